@@ -0,0 +1,50 @@
+package tech.edgx.cage.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.model.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Observation ingestion rate, i.e. validation, UTM projection, geometry and asset registration per addObservation
+ *  - Observation ids cycle over a fixed pool so the mission's maps stay bounded, each call replaces an existing entry
+ *    once the pool has been seen
+ *  - Regression check, the observation snapshot must not be rebuilt per call (see README, Benchmarks)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddObservationBenchmark {
+
+    static final int POOL_SIZE = 1024;
+
+    @Param({"range", "tdoa", "aoa", "mixed"})
+    String mix;
+
+    /* Measurement geometry (circles, hyperbolas, lines) is only computed for display when showMeas is set */
+    @Param({"false", "true"})
+    boolean showMeas;
+
+    CageProcessManager cageProcessManager;
+    List<Observation> observations;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+        GeoMission geoMission = BenchmarkFixtures.createMission(MissionMode.track, InitialStateMode.top_right, FilterEngine.ekf_primitive);
+        geoMission.setShowMeas(showMeas);
+        cageProcessManager = BenchmarkFixtures.createManager(geoMission);
+        observations = BenchmarkFixtures.createObservations(POOL_SIZE, mix, 1);
+    }
+
+    @Benchmark
+    public void addObservation() throws Exception {
+        cageProcessManager.addObservation(observations.get(next));
+        next = (next + 1) % POOL_SIZE;
+    }
+}
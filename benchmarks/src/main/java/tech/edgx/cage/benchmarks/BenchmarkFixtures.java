@@ -0,0 +1,129 @@
+package tech.edgx.cage.benchmarks;
+
+import tech.edgx.cage.CageListener;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.compute.ComputeResults;
+import tech.edgx.cage.model.*;
+import tech.edgx.cage.util.Helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Shared synthetic missions and observations for the benchmarks
+ *  - Assets are spread on a ring around a static target, measurements are exact plus a small seeded noise
+ *  - Observation mix: range, tdoa, aoa or mixed (cycling range, tdoa, aoa)
+ */
+public class BenchmarkFixtures {
+
+    public static final double TRUE_LAT = -31.98;
+    public static final double TRUE_LON = 116.0;
+
+    /* Result listener which discards results */
+    public static final CageListener NOOP_LISTENER = new CageListener() {
+        @Override
+        public void result(String geoId, double lat, double lon, double cep_elp_maj, double cep_elp_min, double cep_elp_rot) {
+        }
+
+        @Override
+        public void result(ComputeResults computeResults) {
+        }
+    };
+
+    /* Benchmark properties, with output written to a temporary working directory */
+    public static Properties loadProperties() throws IOException {
+        Properties properties = new Properties();
+        InputStream in = BenchmarkFixtures.class.getResourceAsStream("/benchmark.properties");
+        try {
+            properties.load(in);
+        }
+        finally {
+            in.close();
+        }
+        File workingDirectory = new File(System.getProperty("java.io.tmpdir"), "cage-benchmarks");
+        new File(workingDirectory, "output").mkdirs();
+        properties.setProperty("working.directory", workingDirectory.getAbsolutePath() + File.separator);
+        return properties;
+    }
+
+    public static GeoMission createMission(MissionMode missionMode, InitialStateMode initialStateMode, FilterEngine filterEngine) {
+        GeoMission geoMission = new GeoMission();
+        geoMission.setMissionMode(missionMode);
+        geoMission.setTarget(new Target("BENCH_TGT_ID","BENCH_TGT_NAME"));
+        geoMission.setGeoId("BENCH_GEO_ID");
+        geoMission.setShowMeas(false);
+        geoMission.setShowCEPs(false);
+        geoMission.setShowGEOs(false);
+        geoMission.setOutputKml(false);
+        geoMission.setOutputKmlFilename("benchmarkOutput.kml");
+        geoMission.setShowTrueLoc(false);
+        geoMission.setOutputFilterState(false);
+        geoMission.setOutputFilterStateKmlFilename("benchmarkFilterState.kml");
+        geoMission.setInitialStateMode(initialStateMode);
+        geoMission.setFilterEngine(filterEngine);
+        if (initialStateMode.equals(InitialStateMode.specified)) {
+            geoMission.setFilterSpecificInitialLat(TRUE_LAT + 0.05);
+            geoMission.setFilterSpecificInitialLon(TRUE_LON - 0.05);
+        }
+        return geoMission;
+    }
+
+    public static CageProcessManager createManager(GeoMission geoMission) throws Exception {
+        CageProcessManager cageProcessManager = new CageProcessManager(NOOP_LISTENER);
+        cageProcessManager.configure(geoMission, loadProperties());
+        geoMission.getTarget().setTrue_current_loc(new Double[]{TRUE_LAT, TRUE_LON});
+        return cageProcessManager;
+    }
+
+    /* numObservations observations of the given mix, from assets on a 5-20km ring around the target */
+    public static List<Observation> createObservations(int numObservations, String mix, long seed) {
+        Random random = new Random(seed);
+        double[] true_utm = Helpers.convertLatLngToUtmNthingEasting(TRUE_LAT, TRUE_LON);
+        List<Observation> observations = new ArrayList<Observation>(numObservations);
+        for (int i=0;i<numObservations;i++) {
+            ObservationType observationType = observationType(mix, i);
+            double[] asset = assetLatLon(i, numObservations, random);
+            double[] asset_utm = Helpers.convertLatLngToUtmNthingEasting(asset[0], asset[1]);
+            double range = Math.sqrt(Math.pow(asset_utm[0] - true_utm[0], 2) + Math.pow(asset_utm[1] - true_utm[1], 2));
+
+            Observation obs = new Observation((long) i, "A"+i, asset[0], asset[1]);
+            obs.setObservationType(observationType);
+            if (observationType.equals(ObservationType.range)) {
+                obs.setMeas(range + random.nextGaussian()*10);
+            }
+            else if (observationType.equals(ObservationType.tdoa)) {
+                double[] asset_b = assetLatLon(i + numObservations/2 + 1, numObservations, random);
+                double[] asset_b_utm = Helpers.convertLatLngToUtmNthingEasting(asset_b[0], asset_b[1]);
+                double range_b = Math.sqrt(Math.pow(asset_b_utm[0] - true_utm[0], 2) + Math.pow(asset_b_utm[1] - true_utm[1], 2));
+                obs.setAssetId_b("B"+i);
+                obs.setLat_b(asset_b[0]);
+                obs.setLon_b(asset_b[1]);
+                obs.setMeas((range - range_b + random.nextGaussian()*10) / Helpers.SPEED_OF_LIGHT);
+            }
+            else {
+                double aoa = Math.atan2(true_utm[0] - asset_utm[0], true_utm[1] - asset_utm[1]) + random.nextGaussian()*0.001;
+                obs.setMeas(aoa < 0 ? aoa + 2*Math.PI : aoa);
+            }
+            observations.add(obs);
+        }
+        return observations;
+    }
+
+    private static ObservationType observationType(String mix, int i) {
+        if (mix.equals("mixed")) {
+            return ObservationType.values()[i % ObservationType.values().length];
+        }
+        return ObservationType.valueOf(mix);
+    }
+
+    private static double[] assetLatLon(int i, int numAssets, Random random) {
+        double bearing = 2*Math.PI*i/Math.max(numAssets, 1);
+        double radius = 0.05 + random.nextDouble()*0.15;
+        return new double[]{TRUE_LAT + radius*Math.sin(bearing), TRUE_LON + radius*Math.cos(bearing)};
+    }
+}
@@ -0,0 +1,60 @@
+package tech.edgx.cage.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.compute.ComputeProcessor;
+import tech.edgx.cage.compute.FilterExecution;
+import tech.edgx.cage.model.*;
+import tech.edgx.cage.util.Helpers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single filter iteration (predict and update over all observations) per observation count and mix
+ *  - The execution is reset each JMH iteration so the filter stays in its converging regime
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterIterationBenchmark {
+
+    @Param({"3", "10", "100", "1000"})
+    int numObservations;
+
+    @Param({"range", "tdoa", "aoa", "mixed"})
+    String mix;
+
+    @Param({"ekf", "ekf_primitive", "ukf"})
+    String filterEngine;
+
+    ComputeProcessor computeProcessor;
+    FilterExecution filterExecution;
+    Double[] start_x_y;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+        GeoMission geoMission = BenchmarkFixtures.createMission(MissionMode.fix, InitialStateMode.specified, FilterEngine.valueOf(filterEngine));
+        CageProcessManager cageProcessManager = BenchmarkFixtures.createManager(geoMission);
+        for (Observation obs : BenchmarkFixtures.createObservations(numObservations, mix, 1)) {
+            cageProcessManager.addObservation(obs);
+        }
+        computeProcessor = cageProcessManager.createProcessor();
+        double[] start_utm = Helpers.convertLatLngToUtmNthingEasting(geoMission.getFilterSpecificInitialLat(), geoMission.getFilterSpecificInitialLon());
+        start_x_y = new Double[]{start_utm[1], start_utm[0]};
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        filterExecution = new FilterExecution(start_x_y);
+        computeProcessor.initialiseExecutionState(filterExecution);
+    }
+
+    @Benchmark
+    public double runFilterIteration() {
+        computeProcessor.runFilterIteration(filterExecution);
+        return computeProcessor.getResidual(filterExecution);
+    }
+}
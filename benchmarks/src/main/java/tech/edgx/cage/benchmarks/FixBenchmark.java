@@ -0,0 +1,53 @@
+package tech.edgx.cage.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.compute.ComputeProcessor;
+import tech.edgx.cage.compute.ComputeResults;
+import tech.edgx.cage.model.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end FIX mission cost, from initialised processor to dispatched result, per initial state mode and engine
+ *  - A fresh processor is created per invocation since a run consumes the filter executions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FixBenchmark {
+
+    @Param({"specified", "random", "top_right", "box_single_out", "box_all_out", "closed_form", "grid_search"})
+    String initialStateMode;
+
+    @Param({"ekf_primitive", "gauss_newton", "ukf", "particle"})
+    String filterEngine;
+
+    @Param({"mixed"})
+    String mix;
+
+    @Param({"10"})
+    int numObservations;
+
+    GeoMission geoMission;
+    ComputeProcessor computeProcessor;
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() throws Exception {
+        geoMission = BenchmarkFixtures.createMission(MissionMode.fix, InitialStateMode.valueOf(initialStateMode), FilterEngine.valueOf(filterEngine));
+        CageProcessManager cageProcessManager = BenchmarkFixtures.createManager(geoMission);
+        for (Observation obs : BenchmarkFixtures.createObservations(numObservations, mix, 1)) {
+            cageProcessManager.addObservation(obs);
+        }
+        computeProcessor = cageProcessManager.createProcessor();
+    }
+
+    @Benchmark
+    public ComputeResults runFix() {
+        computeProcessor.run();
+        return geoMission.getComputeResults();
+    }
+}
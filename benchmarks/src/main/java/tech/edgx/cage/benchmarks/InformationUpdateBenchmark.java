@@ -0,0 +1,60 @@
+package tech.edgx.cage.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.compute.ComputeProcessor;
+import tech.edgx.cage.compute.FilterExecution;
+import tech.edgx.cage.model.*;
+import tech.edgx.cage.util.Helpers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single ekf_primitive iteration over large observation sets, summed versus information form measurement
+ * update, the latter serial or split over the common ForkJoin pool (parallel update threshold)
+ *  - The execution is reset each JMH iteration, as per FilterIterationBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InformationUpdateBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int numObservations;
+
+    @Param({"summed", "information", "information_parallel"})
+    String measurementUpdate;
+
+    ComputeProcessor computeProcessor;
+    FilterExecution filterExecution;
+    Double[] start_x_y;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+        GeoMission geoMission = BenchmarkFixtures.createMission(MissionMode.fix, InitialStateMode.specified, FilterEngine.ekf_primitive);
+        geoMission.setMeasurementUpdate(measurementUpdate.equals("summed") ? MeasurementUpdate.summed : MeasurementUpdate.information);
+        geoMission.setParallelUpdateThreshold(measurementUpdate.equals("information_parallel") ? 1 : Integer.MAX_VALUE);
+        CageProcessManager cageProcessManager = BenchmarkFixtures.createManager(geoMission);
+        for (Observation obs : BenchmarkFixtures.createObservations(numObservations, "range", 1)) {
+            cageProcessManager.addObservation(obs);
+        }
+        computeProcessor = cageProcessManager.createProcessor();
+        double[] start_utm = Helpers.convertLatLngToUtmNthingEasting(geoMission.getFilterSpecificInitialLat(), geoMission.getFilterSpecificInitialLon());
+        start_x_y = new Double[]{start_utm[1], start_utm[0]};
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        filterExecution = new FilterExecution(start_x_y);
+        computeProcessor.initialiseExecutionState(filterExecution);
+    }
+
+    @Benchmark
+    public double runFilterIteration() {
+        computeProcessor.runFilterIteration(filterExecution);
+        return computeProcessor.getResidual(filterExecution);
+    }
+}
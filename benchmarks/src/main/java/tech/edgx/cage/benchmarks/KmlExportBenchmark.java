@@ -0,0 +1,48 @@
+package tech.edgx.cage.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.model.*;
+import tech.edgx.cage.util.KmlFileStaticHelpers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of exporting a completed FIX mission to KML, including measurement geometry
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KmlExportBenchmark {
+
+    @Param({"3", "10", "100"})
+    int numObservations;
+
+    @Param({"mixed"})
+    String mix;
+
+    GeoMission geoMission;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+        geoMission = BenchmarkFixtures.createMission(MissionMode.fix, InitialStateMode.box_all_out, FilterEngine.ekf_primitive);
+        geoMission.setShowMeas(true);
+        geoMission.setShowCEPs(true);
+        geoMission.setShowGEOs(true);
+        geoMission.setShowTrueLoc(true);
+        CageProcessManager cageProcessManager = BenchmarkFixtures.createManager(geoMission);
+        for (Observation obs : BenchmarkFixtures.createObservations(numObservations, mix, 1)) {
+            cageProcessManager.addObservation(obs);
+        }
+        /* Run the fix once for a result to export */
+        cageProcessManager.createProcessor().run();
+    }
+
+    @Benchmark
+    public void exportGeoMissionToKml() {
+        KmlFileStaticHelpers.exportGeoMissionToKml(geoMission);
+    }
+}
@@ -3,15 +3,28 @@ package tech.edgx.cage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tech.edgx.cage.compute.ComputeProcessor;
+import tech.edgx.cage.compute.ExportPipeline;
+import tech.edgx.cage.compute.FilterMetrics;
+import tech.edgx.cage.compute.ObservationSnapshot;
 import tech.edgx.cage.model.*;
+import tech.edgx.cage.util.AssetReferenceIndex;
 import tech.edgx.cage.util.CageValidator;
 import tech.edgx.cage.util.ConfigurationException;
+import tech.edgx.cage.util.FilterTraceRecorder;
 import tech.edgx.cage.util.Helpers;
+import tech.edgx.cage.util.ObservationExpiryIndex;
+import tech.edgx.cage.util.UtmCoordinate;
+import tech.edgx.cage.util.UtmProjectionCache;
 import uk.me.jstott.jcoord.LatLng;
 import uk.me.jstott.jcoord.UTMRef;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.*;
+import java.lang.management.ManagementFactory;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Geolocation fusion and tracking, using custom extended kalman filter implementation
@@ -24,7 +37,38 @@ public class CageProcessManager implements Serializable {
 
     GeoMission geoMission;
 
-    ComputeProcessor computeProcessor;
+    volatile ComputeProcessor computeProcessor;
+
+    /*
+     * Latest immutable view of the observations. Changes only advance observationsVersion, the snapshot is built once
+     * when next adopted (see getObservationSnapshot), such that a burst of changes is compiled once
+     */
+    final AtomicReference<ObservationSnapshot> observationSnapshot = new AtomicReference<ObservationSnapshot>(ObservationSnapshot.EMPTY);
+    volatile long observationsVersion = 0;
+
+    /* Optional - shared executor for concurrent fix mode executions, otherwise a pool is created per run */
+    ExecutorService executorService;
+
+    /* Optional - export stage for async track mode exports, otherwise the shared pipeline is used */
+    ExportPipeline exportPipeline;
+
+    /* Latest UTM projection per asset, repeated observations from stationary assets skip re-projection */
+    UtmProjectionCache utmProjectionCache;
+
+    /* Mission metrics, held here such that they span processor restarts */
+    FilterMetrics filterMetrics;
+
+    /* # observations referencing each asset, assets are removed with their last observation */
+    AssetReferenceIndex assetReferenceIndex = new AssetReferenceIndex();
+
+    /* Optional - observations by expiry time, when the mission has an observation TTL */
+    ObservationExpiryIndex observationExpiryIndex;
+
+    /* Pending eviction, scheduled for the earliest expiry on the shared expiry scheduler */
+    ScheduledFuture<?> expiryTask;
+    long expiryTaskTime = Long.MAX_VALUE;
+
+    private static ScheduledExecutorService expiryScheduler;
 
     public CageProcessManager(CageListener actionListener) {
         this.actionListener = actionListener;
@@ -37,18 +81,21 @@ public class CageProcessManager implements Serializable {
 
     public void removeObservation(Observation obs) throws Exception {
         log.debug("Removing observation: "+obs.getAssetId()+","+obs.getObservationType().name());
-        this.geoMission.observations.remove(obs.getId());
+        synchronized (this) {
+            removeRegisteredObservation(obs);
+            publishSnapshot();
+        }
+    }
 
-        /* If asset has no other linked observations, remove it */
-        boolean hasOtherObs = false;
-        for (Map.Entry<Long, Observation> o : this.geoMission.observations.entrySet()) {
-            if (o.getValue().getAssetId().equals(obs.getAssetId())) {
-                hasOtherObs=true;
-                break;
-            }
+    private void removeRegisteredObservation(Observation obs) {
+        this.geoMission.observations.remove(obs.getId());
+        if (observationExpiryIndex != null) {
+            observationExpiryIndex.remove(obs.getId());
         }
-        if (!hasOtherObs) {
-            this.geoMission.getAssets().remove(obs.getAssetId());
+
+        /* Remove assets which have no other linked observations */
+        for (String assetId : assetReferenceIndex.release(obs.getId())) {
+            this.geoMission.getAssets().remove(assetId);
         }
 
         // Remove plottable measurement
@@ -70,25 +117,298 @@ public class CageProcessManager implements Serializable {
         configureObservation(obs);
 
         log.debug("Adding observation: "+obs.getAssetId()+","+obs.getObservationType().name()+","+obs.getMeas()+",ID:"+obs.getId());
-        this.geoMission.getObservations().put(obs.getId(), obs);
+        synchronized (this) {
+            this.geoMission.getObservations().put(obs.getId(), obs);
+            publishSnapshot();
+        }
+    }
+
+    /* Add a batch of observations, e.g. a sensor sweep, published to the processor together as a single change */
+    public void addObservations(Collection<Observation> observations) throws Exception {
+        addObservations(observations, false);
+    }
+
+    /*
+     * Add a batch of observations, optionally validating and projecting them in parallel (on the shared executor if
+     * set, otherwise the common pool). If any observation is invalid none are added.
+     */
+    public void addObservations(Collection<Observation> observations, boolean parallel) throws Exception {
+        prepareObservations(observations, parallel);
+        synchronized (this) {
+            Map<Long, Observation> updated = new ConcurrentHashMap<Long, Observation>(this.geoMission.getObservations());
+            for (Observation obs : observations) {
+                registerObservation(obs);
+                updated.put(obs.getId(), obs);
+            }
+            publishObservations(updated);
+        }
+        log.debug("Added # observations: "+observations.size());
+    }
+
+    /* Atomically replace all observations (and their assets) with the given set, e.g. a complete sensor picture */
+    public void replaceObservations(Collection<Observation> observations) throws Exception {
+        replaceObservations(observations, false);
+    }
+
+    public void replaceObservations(Collection<Observation> observations, boolean parallel) throws Exception {
+        prepareObservations(observations, parallel);
+        synchronized (this) {
+            Map<Long, Observation> replacement = new ConcurrentHashMap<Long, Observation>();
+            if (observationExpiryIndex != null) {
+                observationExpiryIndex.clear();
+            }
+            assetReferenceIndex.clear();
+            this.geoMission.getAssets().clear();
+            this.geoMission.circlesToShow.clear();
+            this.geoMission.hyperbolasToShow.clear();
+            this.geoMission.linesToShow.clear();
+            for (Observation obs : observations) {
+                registerObservation(obs);
+                replacement.put(obs.getId(), obs);
+            }
+            publishObservations(replacement);
+        }
+        log.debug("Replaced observations, # observations: "+observations.size());
+    }
+
+    /* Validate and enrich a batch, nothing is registered with the mission */
+    private void prepareObservations(Collection<Observation> observations, boolean parallel) throws Exception {
+        if (!parallel || observations.size() < 2) {
+            for (Observation obs : observations) {
+                CageValidator.validate(obs);
+                prepareObservation(obs);
+            }
+            return;
+        }
+        /* Failures are captured rather than thrown, since executors differ in how they wrap task exceptions */
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(observations.size());
+        for (final Observation obs : observations) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    try {
+                        CageValidator.validate(obs);
+                        prepareObservation(obs);
+                    }
+                    catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    }
+                    return null;
+                }
+            });
+        }
+        ExecutorService executor = (this.executorService != null) ? this.executorService : ForkJoinPool.commonPool();
+        executor.invokeAll(tasks);
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /* Swap in a new observation map, published to the processor as a single snapshot. Callers hold the manager lock */
+    private void publishObservations(Map<Long, Observation> observations) {
+        this.geoMission.setObservations(observations);
+        publishSnapshot();
+    }
+
+    /* Mark the observations changed, which also wakes a parked tracking processor. Callers hold the manager lock */
+    private void publishSnapshot() {
+        evictExpiredObservations(System.currentTimeMillis());
+        observationsVersion++;
+        if (computeProcessor != null) {
+            computeProcessor.notifyObservationsChanged();
+        }
+        scheduleObservationExpiry();
+    }
+
+    /*
+     * Evict observations which have outlived the mission's observation TTL and publish the change, e.g. from silent
+     * sensors. Runs on the expiry scheduler at the earliest expiry, or may be called by the client.
+     */
+    public void expireObservations() {
+        synchronized (this) {
+            expiryTask = null;
+            expiryTaskTime = Long.MAX_VALUE;
+            if (evictExpiredObservations(System.currentTimeMillis()) > 0) {
+                publishSnapshot();
+            }
+            else {
+                scheduleObservationExpiry();
+            }
+        }
+    }
+
+    /* Remove expired observations from the mission, returns # evicted. Callers hold the manager lock */
+    private int evictExpiredObservations(long now) {
+        if (observationExpiryIndex == null) {
+            return 0;
+        }
+        List<Observation> expired = observationExpiryIndex.pollExpired(now);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        /* Counted first, such that a reader seeing the observations gone also sees them counted */
+        if (filterMetrics != null) {
+            filterMetrics.recordExpiredObservations(expired.size());
+        }
+        for (Observation obs : expired) {
+            removeRegisteredObservation(obs);
+        }
+        log.debug("Evicted # expired observations: "+expired.size());
+        return expired.size();
+    }
+
+    /* Schedule eviction for the earliest expiry, unless already scheduled sooner. Callers hold the manager lock */
+    private void scheduleObservationExpiry() {
+        if (observationExpiryIndex == null) {
+            return;
+        }
+        Long nextExpiry = observationExpiryIndex.nextExpiry();
+        if (nextExpiry == null || nextExpiry >= expiryTaskTime) {
+            return;
+        }
+        if (expiryTask != null) {
+            expiryTask.cancel(false);
+        }
+        expiryTaskTime = nextExpiry;
+        expiryTask = expiryScheduler().schedule(this::expireObservations, Math.max(0, nextExpiry - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    /* Single daemon thread shared by all missions, eviction is brief */
+    private static synchronized ScheduledExecutorService expiryScheduler() {
+        if (expiryScheduler == null) {
+            expiryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "cage-observation-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return expiryScheduler;
     }
 
     public void stop() throws Exception {
+        synchronized (this) {
+            if (expiryTask != null) {
+                expiryTask.cancel(false);
+                expiryTask = null;
+                expiryTaskTime = Long.MAX_VALUE;
+            }
+        }
         computeProcessor.stopThread();
+        if (this.geoMission.getMetricsJmx() != null && this.geoMission.getMetricsJmx()) {
+            unregisterFilterMetrics();
+        }
     }
 
     /* For Tracker - start process and continually add new observations (one per asset), monitor result in result() callback */
     /* For Fixer - add observations (one per asset) then start, monitor output in result() callback */
     public Thread start() throws Exception {
+        createProcessor();
+        Thread thread = new Thread(computeProcessor);
+        thread.start();
+        return thread;
+    }
+
+    /* Initialise the processor without running it, for running on a MissionScheduler instead of a dedicated thread */
+    public ComputeProcessor createProcessor() throws Exception {
         Iterator it = this.geoMission.observations.values().iterator();
         if (!it.hasNext() && this.geoMission.getMissionMode().equals(MissionMode.fix)) {
             throw new ConfigurationException("There were no observations, couldn't start the process");
         }
-        computeProcessor = new ComputeProcessor(this.actionListener, this.geoMission.observations, this.geoMission);
+        synchronized (this) {
+            computeProcessor = new ComputeProcessor(this.actionListener, getObservationSnapshot(), this.geoMission);
+        }
+        computeProcessor.setObservationSource(this::getObservationSnapshot);
+        computeProcessor.setExecutorService(this.executorService);
+        computeProcessor.setExportPipeline(this.exportPipeline);
+        if (filterMetrics != null) {
+            computeProcessor.setFilterMetrics(filterMetrics);
+            if (this.geoMission.getMetricsJmx() != null && this.geoMission.getMetricsJmx()) {
+                registerFilterMetrics();
+            }
+        }
         computeProcessor.initialiseFilter();
-        Thread thread = new Thread(computeProcessor);
-        thread.start();
-        return thread;
+        return computeProcessor;
+    }
+
+    public ObjectName getFilterMetricsObjectName() throws Exception {
+        return new ObjectName("tech.edgx.cage:type=FilterMetrics,geoId="+ObjectName.quote(this.geoMission.getGeoId()));
+    }
+
+    /* Replaces any MBean left registered under the same geoId */
+    void registerFilterMetrics() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = getFilterMetricsObjectName();
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            FilterMetrics.enableAllocationAccounting();
+            mBeanServer.registerMBean(filterMetrics, objectName);
+            log.debug("Registered filter metrics: "+objectName);
+        }
+        catch (Exception e) {
+            log.warn("Error registering filter metrics MBean", e);
+        }
+    }
+
+    void unregisterFilterMetrics() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = getFilterMetricsObjectName();
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        }
+        catch (Exception e) {
+            log.warn("Error unregistering filter metrics MBean", e);
+        }
+    }
+
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    public void setExportPipeline(ExportPipeline exportPipeline) {
+        this.exportPipeline = exportPipeline;
+    }
+
+    /*
+     * Snapshot of the current observations, built if they have changed since the last one. Not locked, the version is
+     * read before the observations (written after them), so a build racing a change carries an older version and is
+     * rebuilt at the next call
+     */
+    public ObservationSnapshot getObservationSnapshot() {
+        long version = observationsVersion;
+        ObservationSnapshot current = observationSnapshot.get();
+        if (current.getVersion() >= version) {
+            return current;
+        }
+        ObservationSnapshot built = ObservationSnapshot.of(version, this.geoMission.getObservations().values());
+        while (!observationSnapshot.compareAndSet(current, built)) {
+            current = observationSnapshot.get();
+            if (current.getVersion() >= version) {
+                return current;
+            }
+        }
+        return built;
+    }
+
+    /* Iterations/s, convergence, innovation, observations in use, dispatch latency and allocation for this mission */
+    public FilterMetrics getFilterMetrics() {
+        return filterMetrics;
+    }
+
+    public ObservationExpiryIndex getObservationExpiryIndex() {
+        return observationExpiryIndex;
+    }
+
+    public UtmProjectionCache getUtmProjectionCache() {
+        return utmProjectionCache;
     }
 
     public GeoMission getGeoMission() {
@@ -96,7 +416,17 @@ public class CageProcessManager implements Serializable {
     }
 
     public void configureObservation(Observation obs) throws Exception {
+        prepareObservation(obs);
+        synchronized (this) {
+            registerObservation(obs);
+        }
+        log.debug("Configured Observation");
+    }
+
+    /* Enrich the observation for filter operation: utm coords, default errors and plottable geometry. Touches no mission state, safe to run concurrently */
+    void prepareObservation(Observation obs) throws Exception {
         Properties properties = this.geoMission.getProperties();
+        obs.setTime_received(System.currentTimeMillis());
 
         /* Set previous measurement here, if this is a repeated measurement */
         if (this.getGeoMission().getObservations().get(obs.getId()) != null) {
@@ -107,30 +437,19 @@ public class CageProcessManager implements Serializable {
             }
         }
 
-        Object[] zones = Helpers.getUtmLatZoneLonZone(obs.getLat(), obs.getLon());
-        obs.setY_latZone((char)zones[0]);
-        obs.setX_lonZone((int)zones[1]);
-
-        /* Rudimentary - use zones attached to the most recent observation */
-        this.geoMission.setLatZone(obs.getY_latZone());
-        this.geoMission.setLonZone(obs.getX_lonZone());
+        UtmCoordinate utm = utmProjectionCache.project(obs.getAssetId(), obs.getLat(), obs.getLon());
+        obs.setY_latZone(utm.getLatZone());
+        obs.setX_lonZone(utm.getLonZone());
 
-        double[] utm_coords = Helpers.convertLatLngToUtmNthingEasting(obs.getLat(), obs.getLon());
-        obs.setY(utm_coords[0]);
-        obs.setX(utm_coords[1]);
+        obs.setY(utm.getNorthing());
+        obs.setX(utm.getEasting());
         log.debug("Asset:"+obs.getY()+","+obs.getX());
 
-        Asset asset = new Asset(obs.getAssetId(),new double[]{obs.getLat(),obs.getLon()});
-        this.geoMission.getAssets().put(obs.getAssetId(),asset);
-
-        /* There is a second asset to register its location */
+        /* There is a second asset to locate */
         if (obs.getObservationType().equals(ObservationType.tdoa)) {
-            double[] utm_coords_b = Helpers.convertLatLngToUtmNthingEasting(obs.getLat_b(), obs.getLon_b());
-            obs.setYb(utm_coords_b[0]);
-            obs.setXb(utm_coords_b[1]);
-
-            Asset asset_b = new Asset(obs.getAssetId_b(),new double[]{obs.getLat_b(),obs.getLon_b()});
-            this.geoMission.getAssets().put(obs.getAssetId_b(),asset_b);
+            UtmCoordinate utm_b = utmProjectionCache.project(obs.getAssetId_b(), obs.getLat_b(), obs.getLon_b());
+            obs.setYb(utm_b.getNorthing());
+            obs.setXb(utm_b.getEasting());
         }
 
         /* Extract default measurement error if not provided with observation */
@@ -163,12 +482,11 @@ public class CageProcessManager implements Serializable {
             if (obs.getObservationType().equals(ObservationType.range)) {
                 List<double[]> measurementCircle = new ArrayList<double[]>();
                 for (double theta = (1 / 2) * Math.PI; theta <= (5 / 2) * Math.PI; theta += 0.2) {
-                    UTMRef utmMeas = new UTMRef(obs.getMeas() * Math.cos(theta) + obs.getX(), obs.getMeas() * Math.sin(theta) + obs.getY(), this.geoMission.getLatZone(), this.geoMission.getLonZone());
+                    UTMRef utmMeas = new UTMRef(obs.getMeas() * Math.cos(theta) + obs.getX(), obs.getMeas() * Math.sin(theta) + obs.getY(), obs.getY_latZone(), obs.getX_lonZone());
                     LatLng ltln = utmMeas.toLatLng();
                     double[] measPoint = {ltln.getLat(), ltln.getLng()};
                     measurementCircle.add(measPoint);
                 }
-                this.geoMission.circlesToShow.add(obs.getId());
                 obs.setCircleGeometry(measurementCircle);
             }
 
@@ -182,11 +500,10 @@ public class CageProcessManager implements Serializable {
                     double X = a*Math.cosh(t); double Y = b*Math.sinh(t); //# Hyperbola branch
                     double x = (obs.getX()+obs.getXb())/2 + X*ca - Y*sa; //# Rotated and translated
                     double y = (obs.getY()+obs.getYb())/2 + X*sa + Y*ca;
-                    UTMRef utmMeas = new UTMRef(x, y, this.geoMission.getLatZone(), this.geoMission.getLonZone());
+                    UTMRef utmMeas = new UTMRef(x, y, obs.getY_latZone(), obs.getX_lonZone());
                     LatLng ltln = utmMeas.toLatLng();
                     measurementHyperbola.add(new double[]{ltln.getLat(),ltln.getLng()});
                 }
-                this.geoMission.hyperbolasToShow.add(obs.getId());
                 obs.setHyperbolaGeometry(measurementHyperbola);
             }
 
@@ -205,29 +522,58 @@ public class CageProcessManager implements Serializable {
 
                 for (double t = obs.getX()+fromVal; t<= obs.getX()+toVal; t += 100) {
                     double y = Math.tan(obs.getMeas())*t + b;
-                    UTMRef utmMeas = new UTMRef(t, y, this.geoMission.getLatZone(), this.geoMission.getLonZone());
+                    UTMRef utmMeas = new UTMRef(t, y, obs.getY_latZone(), obs.getX_lonZone());
                     LatLng ltln = utmMeas.toLatLng();
                     double[] measPoint = {ltln.getLat(), ltln.getLng()};
                     measurementLine.add(measPoint);
                 }
-                this.geoMission.linesToShow.add(obs.getId());
                 obs.setLineGeometry(measurementLine);
             }
         }
-
-        log.debug("Configured Observation");
     }
 
-    public void configure(GeoMission geoMission) throws Exception {
-        this.geoMission = geoMission;
+    /* Register a prepared observation's zones, assets and plottable measurement with the mission, callers hold the manager lock */
+    void registerObservation(Observation obs) {
+        /* Rudimentary - use zones attached to the most recent observation */
+        this.geoMission.setLatZone(obs.getY_latZone());
+        this.geoMission.setLonZone(obs.getX_lonZone());
 
-        CageValidator.validate(geoMission);
+        /* A replaced observation's assets may no longer be referenced */
+        for (String assetId : assetReferenceIndex.register(obs)) {
+            this.geoMission.getAssets().remove(assetId);
+        }
+
+        Asset asset = new Asset(obs.getAssetId(),new double[]{obs.getLat(),obs.getLon()});
+        this.geoMission.getAssets().put(obs.getAssetId(),asset);
+
+        /* There is a second asset to register its location */
+        if (obs.getObservationType().equals(ObservationType.tdoa)) {
+            Asset asset_b = new Asset(obs.getAssetId_b(),new double[]{obs.getLat_b(),obs.getLon_b()});
+            this.geoMission.getAssets().put(obs.getAssetId_b(),asset_b);
+        }
+
+        if (this.geoMission.getShowMeas()) {
+            if (obs.getObservationType().equals(ObservationType.range)) {
+                this.geoMission.circlesToShow.add(obs.getId());
+            }
+            else if (obs.getObservationType().equals(ObservationType.tdoa)) {
+                this.geoMission.hyperbolasToShow.add(obs.getId());
+            }
+            else if (obs.getObservationType().equals(ObservationType.aoa)) {
+                this.geoMission.linesToShow.add(obs.getId());
+            }
+        }
+
+        if (observationExpiryIndex != null) {
+            observationExpiryIndex.add(obs, System.currentTimeMillis());
+        }
+    }
 
+    public void configure(GeoMission geoMission) throws Exception {
         Properties properties = new Properties();
         String appConfigPath = Thread.currentThread().getContextClassLoader().getResource("").getPath() + "application.properties";
         try {
             properties.load(new FileInputStream(appConfigPath));
-            this.geoMission.setProperties(properties);
         }
         catch(IOException ioe) {
             log.error(ioe.getMessage());
@@ -235,6 +581,15 @@ public class CageProcessManager implements Serializable {
             log.error("Error reading application properties");
             throw new ConfigurationException("Trouble loading common application properties, reinstall the application");
         }
+        configure(geoMission, properties);
+    }
+
+    /* Configure with client supplied properties, e.g. when not running from an exploded classpath */
+    public void configure(GeoMission geoMission, Properties properties) throws Exception {
+        this.geoMission = geoMission;
+
+        CageValidator.validate(geoMission);
+        this.geoMission.setProperties(properties);
 
         if (geoMission.getOutputKml()) {
             log.debug("Creating new kml output file as: "+ properties.getProperty("working.directory")+"output/"+geoMission.getOutputKmlFilename());
@@ -290,6 +645,207 @@ public class CageProcessManager implements Serializable {
             }
         }
 
+        /* Extract Filter Engine - not set is allowed, uses the reference commons-math ekf */
+        if (geoMission.getFilterEngine()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.engine") != null && !geoMission.getProperties().getProperty("ekf.filter.default.engine").isEmpty()) {
+                geoMission.setFilterEngine(FilterEngine.valueOf(geoMission.getProperties().getProperty("ekf.filter.default.engine")));
+            }
+            else {
+                geoMission.setFilterEngine(FilterEngine.ekf);
+            }
+        }
+        if (geoMission.getFilterEngine().equals(FilterEngine.gauss_newton) && geoMission.getMissionMode().equals(MissionMode.track)) {
+            throw new ConfigurationException("The gauss_newton filter engine only supports FIX missions");
+        }
+        if (geoMission.getFilterEngine().equals(FilterEngine.particle) && geoMission.getMissionMode().equals(MissionMode.track)) {
+            throw new ConfigurationException("The particle filter engine only supports FIX missions");
+        }
+
+        /* Extract Motion Model - not set is allowed, position only */
+        if (geoMission.getMotionModel()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.motion_model") != null && !geoMission.getProperties().getProperty("ekf.filter.default.motion_model").isEmpty()) {
+                geoMission.setMotionModel(MotionModel.valueOf(geoMission.getProperties().getProperty("ekf.filter.default.motion_model")));
+            }
+            else {
+                geoMission.setMotionModel(MotionModel.stationary);
+            }
+        }
+        if (geoMission.getMotionModel().equals(MotionModel.constant_velocity) && !geoMission.getFilterEngine().equals(FilterEngine.ekf_primitive)) {
+            throw new ConfigurationException("The constant_velocity motion model requires the ekf_primitive filter engine");
+        }
+
+        /* Extract Track Update Mode - not set is allowed, iterative */
+        if (geoMission.getTrackUpdateMode()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.track_update_mode") != null && !geoMission.getProperties().getProperty("ekf.filter.default.track_update_mode").isEmpty()) {
+                geoMission.setTrackUpdateMode(TrackUpdateMode.valueOf(geoMission.getProperties().getProperty("ekf.filter.default.track_update_mode")));
+            }
+            else {
+                geoMission.setTrackUpdateMode(TrackUpdateMode.iterative);
+            }
+        }
+        if (geoMission.getTrackUpdateMode().equals(TrackUpdateMode.sequential) && !geoMission.getFilterEngine().equals(FilterEngine.ekf_primitive) && !geoMission.getFilterEngine().equals(FilterEngine.ukf)) {
+            throw new ConfigurationException("The sequential track update mode requires the ekf_primitive or ukf filter engine");
+        }
+
+        /* Extract Measurement Update - not set is allowed, summed */
+        if (geoMission.getMeasurementUpdate()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.measurement_update") != null && !geoMission.getProperties().getProperty("ekf.filter.default.measurement_update").isEmpty()) {
+                geoMission.setMeasurementUpdate(MeasurementUpdate.valueOf(geoMission.getProperties().getProperty("ekf.filter.default.measurement_update")));
+            }
+            else {
+                geoMission.setMeasurementUpdate(MeasurementUpdate.summed);
+            }
+        }
+        if (geoMission.getMeasurementUpdate().equals(MeasurementUpdate.information) && (!geoMission.getFilterEngine().equals(FilterEngine.ekf_primitive) || !geoMission.getMotionModel().equals(MotionModel.stationary))) {
+            throw new ConfigurationException("The information measurement update requires the ekf_primitive filter engine and stationary motion model");
+        }
+
+        /* Extract Parallel Update Threshold - not set is allowed, uses 4096 */
+        if (geoMission.getParallelUpdateThreshold()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.parallel_update_threshold") != null && !geoMission.getProperties().getProperty("ekf.filter.default.parallel_update_threshold").isEmpty()) {
+                geoMission.setParallelUpdateThreshold(Integer.parseInt(geoMission.getProperties().getProperty("ekf.filter.default.parallel_update_threshold")));
+            }
+            else {
+                geoMission.setParallelUpdateThreshold(4096);
+            }
+        }
+        if (geoMission.getParallelUpdateThreshold() < 1) {
+            throw new ConfigurationException("Parallel update threshold must be at least 1");
+        }
+
+        /* Extract Particle Count - not set is allowed, uses 4096 */
+        if (geoMission.getParticleCount()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.particle_count") != null && !geoMission.getProperties().getProperty("ekf.filter.default.particle_count").isEmpty()) {
+                geoMission.setParticleCount(Integer.parseInt(geoMission.getProperties().getProperty("ekf.filter.default.particle_count")));
+            }
+            else {
+                geoMission.setParticleCount(4096);
+            }
+        }
+        if (geoMission.getParticleCount() < 1) {
+            throw new ConfigurationException("Particle count must be at least 1");
+        }
+
+        /* Extract Fix Execution Parallelism - not set is allowed, uses all available processors */
+        if (geoMission.getFixExecutionParallelism()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.fix_execution_parallelism") != null && !geoMission.getProperties().getProperty("ekf.filter.default.fix_execution_parallelism").isEmpty()) {
+                geoMission.setFixExecutionParallelism(Integer.parseInt(geoMission.getProperties().getProperty("ekf.filter.default.fix_execution_parallelism")));
+            }
+            else {
+                geoMission.setFixExecutionParallelism(Runtime.getRuntime().availableProcessors());
+            }
+        }
+        if (geoMission.getFixExecutionParallelism() < 1) {
+            throw new ConfigurationException("Fix execution parallelism must be at least 1");
+        }
+
+        /* Extract Fix Stopping Policy - not set is allowed, stops at the convergence threshold or max iterations */
+        if (geoMission.getFixStoppingPolicy()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.fix_stopping_policy") != null && !geoMission.getProperties().getProperty("ekf.filter.default.fix_stopping_policy").isEmpty()) {
+                geoMission.setFixStoppingPolicy(FixStoppingPolicy.valueOf(geoMission.getProperties().getProperty("ekf.filter.default.fix_stopping_policy")));
+            }
+            else {
+                geoMission.setFixStoppingPolicy(FixStoppingPolicy.fixed);
+            }
+        }
+
+        /* Extract Convergence Window - not set is allowed, judges progress every 500 iterations */
+        if (geoMission.getConvergenceWindow()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.convergence_window") != null && !geoMission.getProperties().getProperty("ekf.filter.default.convergence_window").isEmpty()) {
+                geoMission.setConvergenceWindow(Integer.parseInt(geoMission.getProperties().getProperty("ekf.filter.default.convergence_window")));
+            }
+            else {
+                geoMission.setConvergenceWindow(500);
+            }
+        }
+        if (geoMission.getConvergenceWindow() < 1) {
+            throw new ConfigurationException("Convergence window must be at least 1");
+        }
+
+        /* Extract Track Park On Convergence - not set is allowed, tracking iterates continuously */
+        if (geoMission.getTrackParkOnConvergence()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.track_park_on_convergence") != null && !geoMission.getProperties().getProperty("ekf.filter.default.track_park_on_convergence").isEmpty()) {
+                geoMission.setTrackParkOnConvergence(Boolean.parseBoolean(geoMission.getProperties().getProperty("ekf.filter.default.track_park_on_convergence")));
+            }
+            else {
+                geoMission.setTrackParkOnConvergence(false);
+            }
+        }
+
+        /* Extract Async Export - not set is allowed, exports on the filter thread */
+        if (geoMission.getAsyncExport()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.async_export") != null && !geoMission.getProperties().getProperty("ekf.filter.default.async_export").isEmpty()) {
+                geoMission.setAsyncExport(Boolean.parseBoolean(geoMission.getProperties().getProperty("ekf.filter.default.async_export")));
+            }
+            else {
+                geoMission.setAsyncExport(false);
+            }
+        }
+
+        /* Extract Filter Trace Capacity - not set is allowed, holds 4096 samples */
+        if (geoMission.getFilterTraceCapacity()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.filter_trace_capacity") != null && !geoMission.getProperties().getProperty("ekf.filter.default.filter_trace_capacity").isEmpty()) {
+                geoMission.setFilterTraceCapacity(Integer.parseInt(geoMission.getProperties().getProperty("ekf.filter.default.filter_trace_capacity")));
+            }
+            else {
+                geoMission.setFilterTraceCapacity(FilterTraceRecorder.DEFAULT_CAPACITY);
+            }
+        }
+        if (geoMission.getFilterTraceCapacity() < 1) {
+            throw new ConfigurationException("Filter trace capacity must be at least 1");
+        }
+
+        /* Extract Filter Trace Decimation - not set is allowed, samples every 10 iterations */
+        if (geoMission.getFilterTraceDecimation()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.filter_trace_decimation") != null && !geoMission.getProperties().getProperty("ekf.filter.default.filter_trace_decimation").isEmpty()) {
+                geoMission.setFilterTraceDecimation(Integer.parseInt(geoMission.getProperties().getProperty("ekf.filter.default.filter_trace_decimation")));
+            }
+            else {
+                geoMission.setFilterTraceDecimation(FilterTraceRecorder.DEFAULT_DECIMATION);
+            }
+        }
+        if (geoMission.getFilterTraceDecimation() < 1) {
+            throw new ConfigurationException("Filter trace decimation must be at least 1");
+        }
+
+        /* Extract Observation TTL - not set is allowed, observations are kept until removed */
+        if (geoMission.getObservationTtl()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.observation_ttl") != null && !geoMission.getProperties().getProperty("ekf.filter.default.observation_ttl").isEmpty()) {
+                geoMission.setObservationTtl(Long.parseLong(geoMission.getProperties().getProperty("ekf.filter.default.observation_ttl")));
+            }
+        }
+        if (geoMission.getObservationTtl() != null) {
+            if (geoMission.getObservationTtl() < 1) {
+                throw new ConfigurationException("Observation TTL must be at least 1 ms");
+            }
+            observationExpiryIndex = new ObservationExpiryIndex(geoMission.getObservationTtl());
+        }
+
+        /* Extract Metrics JMX - not set is allowed, metrics are available from getFilterMetrics only */
+        if (geoMission.getMetricsJmx()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.metrics_jmx") != null && !geoMission.getProperties().getProperty("ekf.filter.default.metrics_jmx").isEmpty()) {
+                geoMission.setMetricsJmx(Boolean.parseBoolean(geoMission.getProperties().getProperty("ekf.filter.default.metrics_jmx")));
+            }
+            else {
+                geoMission.setMetricsJmx(false);
+            }
+        }
+        filterMetrics = new FilterMetrics(geoMission.getGeoId());
+
+        /* Extract UTM Projection Cache Size - not set is allowed, caches up to 1024 assets */
+        if (geoMission.getUtmProjectionCacheSize()==null) {
+            if (geoMission.getProperties().getProperty("ekf.filter.default.utm_projection_cache_size") != null && !geoMission.getProperties().getProperty("ekf.filter.default.utm_projection_cache_size").isEmpty()) {
+                geoMission.setUtmProjectionCacheSize(Integer.parseInt(geoMission.getProperties().getProperty("ekf.filter.default.utm_projection_cache_size")));
+            }
+            else {
+                geoMission.setUtmProjectionCacheSize(1024);
+            }
+        }
+        if (geoMission.getUtmProjectionCacheSize() < 0) {
+            throw new ConfigurationException("UTM projection cache size must not be negative");
+        }
+        utmProjectionCache = new UtmProjectionCache(geoMission.getUtmProjectionCacheSize());
+
         /* Extract throttle setting - NULL is allowed */
         if (geoMission.getFilterThrottle()==null) {
             if (geoMission.getProperties().getProperty("ekf.filter.default.throttle") != null) {
@@ -0,0 +1,288 @@
+package tech.edgx.cage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.edgx.cage.compute.ComputeProcessor;
+import tech.edgx.cage.util.ConfigurationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs many missions over a bounded pool of worker threads, as an alternative to CageProcessManager.start() which
+ * dedicates a thread to each mission
+ *  - TRACK missions are run in time slices of filter iterations, then requeued
+ *  - FIX missions are run to completion in a single slice
+ *  - Fairness: the runnable mission with the least weighted run time (vruntime) runs next, run time is scaled
+ *    down by priority so a mission with priority 2 gets roughly twice the slices of a mission with priority 1
+ *  - A throttled mission (GeoMission.filterThrottle) runs a single iteration per slice and is requeued after the throttle period
+ *  - A parked (converged) track mission holds no worker, it is requeued when its observations change
+ *  - FIX missions' concurrent executions fan out on a shared execution pool of the same size as the worker pool,
+ *    unless the mission's manager supplies its own executor, so no threads are created per mission
+ */
+public class MissionScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(MissionScheduler.class);
+
+    public static final int DEFAULT_SLICE_ITERATIONS = 100;
+
+    final int sliceIterations;
+
+    final PriorityBlockingQueue<ScheduledMission> runQueue = new PriorityBlockingQueue<ScheduledMission>();
+
+    final Map<String, ScheduledMission> missions = new ConcurrentHashMap<String, ScheduledMission>();
+
+    final List<Thread> workers = new ArrayList<Thread>();
+
+    /* Concurrent FIX executions of all missions, separate from the workers which block on their results */
+    final ExecutorService executionPool;
+
+    /* Requeues throttled missions once their throttle period has passed */
+    final ScheduledExecutorService throttleTimer;
+
+    /* Orders missions started at the same vruntime */
+    final AtomicLong sequence = new AtomicLong();
+
+    /* Lower bound for newly runnable missions, so a new or resumed mission can't starve those already running */
+    volatile long minVruntime = 0;
+
+    volatile boolean shutdown = false;
+
+    public MissionScheduler() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_SLICE_ITERATIONS);
+    }
+
+    public MissionScheduler(int numWorkers, int sliceIterations) {
+        if (numWorkers < 1 || sliceIterations < 1) {
+            throw new IllegalArgumentException("Mission scheduler requires at least one worker and one iteration per slice");
+        }
+        this.sliceIterations = sliceIterations;
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.throttleTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "cage-scheduler-throttle");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final AtomicInteger executionThreadCount = new AtomicInteger();
+        this.executionPool = Executors.newFixedThreadPool(numWorkers, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "cage-scheduler-execution-" + executionThreadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (int i=0;i<numWorkers;i++) {
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    runWorker();
+                }
+            }, "cage-scheduler-worker-" + threadCount.incrementAndGet());
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /* Start the manager's mission, priority >= 1, higher priorities receive proportionally more slices */
+    public void start(CageProcessManager cageProcessManager, int priority) throws Exception {
+        if (shutdown) {
+            throw new ConfigurationException("Mission scheduler has been shutdown");
+        }
+        if (priority < 1) {
+            throw new ConfigurationException("Mission priority must be at least 1");
+        }
+        String geoId = cageProcessManager.getGeoMission().getGeoId();
+        if (missions.containsKey(geoId)) {
+            throw new ConfigurationException("Mission is already scheduled: "+geoId);
+        }
+        ComputeProcessor computeProcessor = cageProcessManager.createProcessor();
+        if (cageProcessManager.getExecutorService() == null) {
+            computeProcessor.setExecutorService(executionPool);
+        }
+        final ScheduledMission scheduledMission = new ScheduledMission(geoId, computeProcessor, priority, cageProcessManager.getGeoMission().getFilterThrottle());
+        computeProcessor.setWakeListener(new Runnable() {
+            @Override
+            public void run() {
+                enqueue(scheduledMission);
+            }
+        });
+        missions.put(geoId, scheduledMission);
+        log.debug("Scheduling mission: "+geoId+", priority: "+priority);
+        enqueue(scheduledMission);
+    }
+
+    public void start(CageProcessManager cageProcessManager) throws Exception {
+        start(cageProcessManager, 1);
+    }
+
+    /* Stop the mission, it is not run again */
+    public void stop(String geoId) {
+        ScheduledMission scheduledMission = missions.remove(geoId);
+        if (scheduledMission != null) {
+            log.debug("Stopping mission: "+geoId);
+            scheduledMission.computeProcessor.stopThread();
+            synchronized (scheduledMission) {
+                scheduledMission.stopped = true;
+            }
+            runQueue.remove(scheduledMission);
+        }
+    }
+
+    /* Hold the mission's filter state, running no further slices until resumed */
+    public void pause(String geoId) {
+        ScheduledMission scheduledMission = missions.get(geoId);
+        if (scheduledMission != null) {
+            log.debug("Pausing mission: "+geoId);
+            synchronized (scheduledMission) {
+                scheduledMission.paused = true;
+            }
+        }
+    }
+
+    public void resume(String geoId) {
+        ScheduledMission scheduledMission = missions.get(geoId);
+        if (scheduledMission != null) {
+            log.debug("Resuming mission: "+geoId);
+            synchronized (scheduledMission) {
+                scheduledMission.paused = false;
+            }
+            enqueue(scheduledMission);
+        }
+    }
+
+    public boolean isScheduled(String geoId) {
+        return missions.containsKey(geoId);
+    }
+
+    public boolean isPaused(String geoId) {
+        ScheduledMission scheduledMission = missions.get(geoId);
+        return scheduledMission != null && scheduledMission.paused;
+    }
+
+    public int getNumMissions() {
+        return missions.size();
+    }
+
+    /* Stop all missions and workers */
+    public void shutdown() {
+        shutdown = true;
+        for (String geoId : new ArrayList<String>(missions.keySet())) {
+            stop(geoId);
+        }
+        throttleTimer.shutdownNow();
+        executionPool.shutdownNow();
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    /* Add to the run queue, unless already queued, running, paused or stopped */
+    void enqueue(ScheduledMission scheduledMission) {
+        synchronized (scheduledMission) {
+            if (scheduledMission.queued || scheduledMission.paused || scheduledMission.stopped || shutdown) {
+                return;
+            }
+            scheduledMission.queued = true;
+            scheduledMission.vruntime = Math.max(scheduledMission.vruntime, minVruntime);
+            scheduledMission.sequence = sequence.incrementAndGet();
+        }
+        runQueue.add(scheduledMission);
+    }
+
+    void runWorker() {
+        while (!shutdown) {
+            ScheduledMission scheduledMission;
+            try {
+                scheduledMission = runQueue.take();
+            }
+            catch (InterruptedException ie) {
+                break;
+            }
+            minVruntime = scheduledMission.vruntime;
+
+            synchronized (scheduledMission) {
+                if (scheduledMission.stopped || scheduledMission.paused) {
+                    scheduledMission.queued = false;
+                    continue;
+                }
+            }
+
+            boolean hasMoreWork;
+            long sliceStart = System.nanoTime();
+            try {
+                hasMoreWork = scheduledMission.computeProcessor.runSlice(scheduledMission.throttle != null ? 1 : sliceIterations);
+            }
+            catch (Exception e) {
+                log.error("Error running mission: "+scheduledMission.geoId+", removing from schedule", e);
+                hasMoreWork = false;
+            }
+            scheduledMission.vruntime += (System.nanoTime() - sliceStart) / scheduledMission.priority;
+
+            synchronized (scheduledMission) {
+                scheduledMission.queued = false;
+            }
+            if (!hasMoreWork) {
+                log.debug("Mission finished: "+scheduledMission.geoId);
+                missions.remove(scheduledMission.geoId, scheduledMission);
+            }
+            else if (scheduledMission.computeProcessor.isParked()) {
+                log.debug("Mission parked, requeued on observation change: "+scheduledMission.geoId);
+            }
+            else if (scheduledMission.throttle != null) {
+                final ScheduledMission throttled = scheduledMission;
+                try {
+                    throttleTimer.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            enqueue(throttled);
+                        }
+                    }, scheduledMission.throttle, TimeUnit.MILLISECONDS);
+                }
+                catch (RejectedExecutionException ree) {
+                    log.debug("Scheduler shutting down, not requeueing: "+scheduledMission.geoId);
+                }
+            }
+            else {
+                enqueue(scheduledMission);
+            }
+        }
+        log.debug("Scheduler worker exiting");
+    }
+
+    static class ScheduledMission implements Comparable<ScheduledMission> {
+        final String geoId;
+        final ComputeProcessor computeProcessor;
+        final int priority;
+        final Long throttle;
+
+        /* Weighted run time [ns] */
+        volatile long vruntime = 0;
+        long sequence;
+
+        boolean queued = false;
+        volatile boolean paused = false;
+        boolean stopped = false;
+
+        ScheduledMission(String geoId, ComputeProcessor computeProcessor, int priority, Long throttle) {
+            this.geoId = geoId;
+            this.computeProcessor = computeProcessor;
+            this.priority = priority;
+            this.throttle = throttle;
+        }
+
+        @Override
+        public int compareTo(ScheduledMission o) {
+            int c = Long.compare(vruntime, o.vruntime);
+            return c != 0 ? c : Long.compare(sequence, o.sequence);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package tech.edgx.cage.compute;
+
+import org.apache.commons.math3.linear.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.edgx.cage.util.Helpers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Direct (non-iterative) least squares position estimate from the current observations, to seed the filter
+ *  - RANGE: circle equations linearised by differencing against a reference range
+ *  - TDOA: Chan style linearisation, r_b = r_a - d, with the reference asset range r_a as an additional unknown per
+ *    reference asset (pairs are grouped by their first asset, a group needs at least 2 pairs)
+ *  - AOA: bearing line through the asset, sin(theta).x - cos(theta).y = sin(theta).x_a - cos(theta).y_a
+ * All rows are stacked into a single system and solved jointly. Coordinates are centred on the mean asset
+ * position for conditioning and each row is normalised by its x,y coefficients.
+ */
+public class ClosedFormEstimator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClosedFormEstimator.class);
+
+    /* Convert m^2 to the filter's covariance scale (Pk is in units of 10km, as per the CEP conversion in summariseResult) */
+    static final double COVARIANCE_SCALE = 1e-8;
+
+    /* Bounds on the seeded covariance diagonal, upper bound is the default 0.01 which is known to be stable */
+    static final double MAX_INITIAL_COVARIANCE = 0.01;
+    static final double MIN_INITIAL_COVARIANCE = 1e-6;
+
+    /* Reject near singular geometry, e.g. all bearings parallel */
+    static final double MAX_CONDITION_NUMBER = 1e10;
+
+    /* Estimated x,y [UTM] */
+    double x;
+    double y;
+
+    /* Initial covariance, in the filter's scale */
+    double[][] covariance;
+
+    /* Returns null if the observations can't determine a position, e.g. too few or degenerate geometry */
+    public static ClosedFormEstimator estimate(ObservationBuffer buffer) {
+        int size = buffer.size();
+        if (size == 0) {
+            return null;
+        }
+
+        /* Centre of the observing assets */
+        double cx = 0; double cy = 0;
+        for (int i=0;i<size;i++) {
+            cx += buffer.x[i];
+            cy += buffer.y[i];
+        }
+        cx = cx / size;
+        cy = cy / size;
+
+        List<double[]> rows = new ArrayList<double[]>();
+        List<Double> rhs = new ArrayList<Double>();
+
+        /* RANGE, differenced against the first range */
+        for (int i=1;i<buffer.tdoaStart;i++) {
+            double x0 = buffer.x[0] - cx; double y0 = buffer.y[0] - cy;
+            double xi = buffer.x[i] - cx; double yi = buffer.y[i] - cy;
+            double r0 = buffer.meas[0]; double ri = buffer.meas[i];
+            double ax = 2*(xi - x0); double ay = 2*(yi - y0);
+            double b = r0*r0 - ri*ri + (xi*xi + yi*yi) - (x0*x0 + y0*y0);
+            addRow(rows, rhs, ax, ay, -1, 0, b);
+        }
+
+        /* TDOA, group pairs by first asset */
+        Map<String, List<Integer>> tdoaGroups = new HashMap<String, List<Integer>>();
+        for (int i=buffer.tdoaStart;i<buffer.aoaStart;i++) {
+            String key = buffer.x[i]+","+buffer.y[i];
+            List<Integer> group = tdoaGroups.get(key);
+            if (group == null) {
+                group = new ArrayList<Integer>();
+                tdoaGroups.put(key, group);
+            }
+            group.add(i);
+        }
+        int numRefs = 0;
+        for (List<Integer> group : tdoaGroups.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            for (int i : group) {
+                double xa = buffer.x[i] - cx; double ya = buffer.y[i] - cy;
+                double xb = buffer.xb[i] - cx; double yb = buffer.yb[i] - cy;
+                double d = buffer.meas[i] * Helpers.SPEED_OF_LIGHT;
+                double ax = -2*(xb - xa); double ay = -2*(yb - ya);
+                double b = d*d - (xb*xb + yb*yb) + (xa*xa + ya*ya);
+                addRow(rows, rhs, ax, ay, numRefs, 2*d, b);
+            }
+            numRefs++;
+        }
+
+        /* AOA, bearing lines */
+        for (int i=buffer.aoaStart;i<size;i++) {
+            double xa = buffer.x[i] - cx; double ya = buffer.y[i] - cy;
+            double s = Math.sin(buffer.meas[i]); double c = Math.cos(buffer.meas[i]);
+            addRow(rows, rhs, s, -c, -1, 0, s*xa - c*ya);
+        }
+
+        int numUnknowns = 2 + numRefs;
+        if (rows.size() < numUnknowns) {
+            log.debug("Too few observation equations for a closed form estimate: "+rows.size());
+            return null;
+        }
+
+        RealMatrix A = new Array2DRowRealMatrix(rows.size(), numUnknowns);
+        RealVector b = new ArrayRealVector(rows.size());
+        for (int r=0;r<rows.size();r++) {
+            double[] row = rows.get(r);
+            A.setEntry(r, 0, row[0]);
+            A.setEntry(r, 1, row[1]);
+            if (row[2] >= 0) {
+                A.setEntry(r, 2 + (int) row[2], row[3]);
+            }
+            b.setEntry(r, rhs.get(r));
+        }
+
+        SingularValueDecomposition svd = new SingularValueDecomposition(A);
+        if (svd.getRank() < numUnknowns || svd.getConditionNumber() > MAX_CONDITION_NUMBER) {
+            log.debug("Degenerate observation geometry for a closed form estimate, condition: "+svd.getConditionNumber());
+            return null;
+        }
+        DecompositionSolver solver = svd.getSolver();
+        RealVector solution = solver.solve(b);
+
+        ClosedFormEstimator estimate = new ClosedFormEstimator();
+        estimate.x = solution.getEntry(0) + cx;
+        estimate.y = solution.getEntry(1) + cy;
+
+        /* Informed covariance from the residual variance, where there are redundant observations */
+        int dof = rows.size() - numUnknowns;
+        if (dof > 0) {
+            RealVector residuals = A.operate(solution).subtract(b);
+            double sigma2 = residuals.dotProduct(residuals) / dof;
+            RealMatrix cov = solver.getInverse().multiply(solver.getInverse().transpose()).scalarMultiply(sigma2 * COVARIANCE_SCALE);
+            estimate.covariance = boundCovariance(new double[][]{{cov.getEntry(0,0), cov.getEntry(0,1)}, {cov.getEntry(1,0), cov.getEntry(1,1)}});
+        }
+        else {
+            estimate.covariance = new double[][]{{MAX_INITIAL_COVARIANCE, 0}, {0, MAX_INITIAL_COVARIANCE}};
+        }
+        log.debug("Closed form estimate: "+estimate.x+","+estimate.y+" from # equations: "+rows.size()+", covariance: "+estimate.covariance[0][0]+","+estimate.covariance[1][1]);
+        return estimate;
+    }
+
+    /* Row normalised by its x,y coefficients such that range, tdoa and aoa rows carry a comparable weight */
+    private static void addRow(List<double[]> rows, List<Double> rhs, double ax, double ay, int refIndex, double aRef, double b) {
+        double norm = Math.sqrt(ax*ax + ay*ay);
+        if (norm == 0) {
+            return;
+        }
+        rows.add(new double[]{ax/norm, ay/norm, refIndex, aRef/norm});
+        rhs.add(b/norm);
+    }
+
+    /* Scale the covariance such that its largest variance lies within the stable bounds, keeping its shape */
+    static double[][] boundCovariance(double[][] cov) {
+        double max = Math.max(cov[0][0], cov[1][1]);
+        double scale = 1;
+        if (max > MAX_INITIAL_COVARIANCE) {
+            scale = MAX_INITIAL_COVARIANCE / max;
+        }
+        else if (max < MIN_INITIAL_COVARIANCE) {
+            scale = MIN_INITIAL_COVARIANCE / Math.max(max, Double.MIN_VALUE);
+        }
+        double[][] bounded = new double[][]{{cov[0][0]*scale, cov[0][1]*scale}, {cov[1][0]*scale, cov[1][1]*scale}};
+        /* Keep a minimum variance on each axis, in case of a degenerate ellipse */
+        bounded[0][0] = Math.max(bounded[0][0], MIN_INITIAL_COVARIANCE);
+        bounded[1][1] = Math.max(bounded[1][1], MIN_INITIAL_COVARIANCE);
+        return bounded;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double[][] getCovariance() {
+        return covariance;
+    }
+}
@@ -5,14 +5,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tech.edgx.cage.model.*;
 import tech.edgx.cage.util.ConfigurationException;
+import tech.edgx.cage.util.FilterTraceRecorder;
 import tech.edgx.cage.util.Helpers;
 import tech.edgx.cage.util.KmlFileStaticHelpers;
 import tech.edgx.cage.CageListener;
-import tech.edgx.cage.util.KmlFileHelpers;
 
+import java.io.File;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Extended Kalman Filter Fusion Processor
@@ -25,7 +28,14 @@ public class ComputeProcessor implements Runnable {
 
     private GeoMission geoMission;
 
-    Map<Long, Observation> staged_observations = new ConcurrentHashMap<Long,Observation>();
+    /* Latest published observations, adopted by the filter between iterations */
+    final AtomicReference<ObservationSnapshot> stagedSnapshot = new AtomicReference<ObservationSnapshot>(ObservationSnapshot.EMPTY);
+
+    /* Where the latest observations are read from, the published snapshot unless built on demand by the manager (see setObservationSource) */
+    Supplier<ObservationSnapshot> observationSource = stagedSnapshot::get;
+
+    /* Observations the filter is currently running on */
+    ObservationSnapshot observationSnapshot = ObservationSnapshot.EMPTY;
 
     Map<Long,Observation> observations = new ConcurrentHashMap<Long,Observation>();
 
@@ -43,61 +53,130 @@ public class ComputeProcessor implements Runnable {
     RealMatrix Qu;
     RealMatrix Rk;
 
-    RealVector Xk;
-    RealMatrix Pk;
-
+    /* Filter state (Xk, Pk, innov) is held per FilterExecution */
     double[] innovd = {0,0};
-    RealVector innov;
 
     double[][] P_innovd = {{0,0}, {0,0}};
-    RealMatrix P_innov;
 
     double[][] eyeData = {{1,0}, {0,1}};
     RealMatrix eye = new Array2DRowRealMatrix(eyeData);
 
-    RealMatrix H;
-    double xk;
-    double yk;
-    RealMatrix K;
+    /* Primitive kernel (FilterKernel) alternative to the commons-math filter above, selected by FilterEngine.ekf_primitive or ukf */
+    boolean usePrimitiveKernel = false;
+
+    /* Unscented kernel in place of the primitive EKF, selected by FilterEngine.ukf */
+    boolean useUnscented = false;
+
+    /* Primitive kernel on the 4 state constant velocity model, selected by MotionModel.constant_velocity */
+    boolean useConstantVelocity = false;
+
+    /* Information form measurement update on the primitive kernel, selected by MeasurementUpdate.information */
+    boolean useInformationUpdate = false;
+
+    /* Sequential track updates, selected by TrackUpdateMode.sequential. Measurement time received of each observation (by id) applied since the track was established */
+    boolean sequentialUpdates = false;
+    boolean trackEstablished = false;
+    final Map<Long,Long> appliedObservations = new HashMap<Long,Long>();
+
+    /* Batch least squares alternative for FIX missions, selected by FilterEngine.gauss_newton */
+    boolean useBatchSolver = false;
+
+    /* Particle filter alternative for FIX missions, all modes in a single execution, selected by FilterEngine.particle */
+    boolean useParticleFilter = false;
+    ObservationBuffer observationBuffer = ObservationBuffer.EMPTY;
 
-    KmlFileHelpers kmlFileHelpers = null;
+    /* Filter state export, provisioned per run when output filter state is set */
+    FilterTraceRecorder filterTraceRecorder = null;
 
     List<FilterExecution> filterExecutions = null;
 
+    /* Adaptive FIX stopping, alternative starts not used by any execution, taken in turn by stalled executions */
+    boolean adaptiveStopping = false;
+    final Deque<FilterExecution> alternativeStarts = new ArrayDeque<FilterExecution>();
+
+    /* Optional client supplied executor for running fix mode FilterExecutions concurrently, otherwise one is created per run */
+    ExecutorService executorService = null;
+
+    /* Optional client supplied export stage for async track mode exports, otherwise the shared pipeline is used */
+    ExportPipeline exportPipeline = null;
+
+    /* Per mission metrics, replaced by the manager's such that they survive processor restarts */
+    FilterMetrics filterMetrics;
+
+    /* Tracking execution state, held across iterations such that tracking may be run in slices */
+    FilterExecution trackingExecution = null;
+    long trackingIterationCount;
+    long trackingStartTime;
+
+    /* Track mode parking - snapshot version at initialisation or the last dispatch, parks if unchanged at the next dispatch */
+    long dispatchedSnapshotVersion = 0;
+    final Object parkLock = new Object();
+    boolean parked = false;
+
+    /* Invoked on wake of a parked processor, in place of waking the processor's own thread (see MissionScheduler) */
+    Runnable wakeListener = null;
+
     /*
      * Create processor for the given config, observations and client implemented listener
      */
     public ComputeProcessor(CageListener cageListener, Map<Long,Observation> observations, GeoMission geoMission)
+    {
+        this(cageListener, ObservationSnapshot.of(0, observations.values()), geoMission);
+    }
+
+    /*
+     * Create processor on a published observation snapshot, see publishObservations for subsequent changes
+     */
+    public ComputeProcessor(CageListener cageListener, ObservationSnapshot observationSnapshot, GeoMission geoMission)
     {
         this.cageListener = cageListener;
         this.geoMission = geoMission;
+        this.filterMetrics = new FilterMetrics(geoMission.getGeoId());
 
-        setObservations(observations);
+        this.stagedSnapshot.set(observationSnapshot);
+        adoptObservations(observationSnapshot);
     }
 
     public void setObservations(Map<Long, Observation> observations) {
-        Comparator<Map.Entry<Long, Observation>> valueComparator = new Comparator<Map.Entry<Long, Observation>>() {
-            @Override
-            public int compare(Map.Entry<Long, Observation> e1, Map.Entry<Long, Observation> e2) {
-                ObservationType v1 = e1.getValue().getObservationType();
-                ObservationType v2 = e2.getValue().getObservationType();
-                return v1.compareTo(v2);
-            }
-        };
+        adoptObservations(ObservationSnapshot.of(observationSnapshot.getVersion(), observations.values()));
+    }
+
+    /* Run the filter on the given snapshot, already bucketed such that AOA is last, for applying the 360-0 conundrum fix */
+    void adoptObservations(ObservationSnapshot observationSnapshot) {
+        this.observationSnapshot = observationSnapshot;
+        this.observations = observationSnapshot.getObservations();
+
+        /* Packed primitive snapshot for the kernel hot loop */
+        this.observationBuffer = observationSnapshot.getBuffer();
+
+        this.filterMetrics.setObservationsInUse(observationSnapshot.size());
+    }
 
-        /* Sort such that AOA last, for applying the 360-0 conundrum fix */
-        List<Map.Entry<Long, Observation>> listOfEntries = new ArrayList<Map.Entry<Long, Observation>>(observations.entrySet());
-        Collections.sort(listOfEntries, valueComparator);
-        LinkedHashMap<Long, Observation> sortedByValue = new LinkedHashMap<Long, Observation>(listOfEntries.size());
-        for(Map.Entry<Long, Observation> entry : listOfEntries){
-            sortedByValue.put(entry.getKey(), entry.getValue());
+    /* Adopt the latest published snapshot if it has changed, by reference */
+    boolean adoptLatestObservations() {
+        ObservationSnapshot latest = observationSource.get();
+        if (latest == observationSnapshot) {
+            return false;
         }
-        this.observations = sortedByValue;
+        log.debug("Observations changed, adopting snapshot version: "+latest.getVersion()+", # observations: "+latest.size());
+        adoptObservations(latest);
+        return true;
     }
 
     public void initialiseFilter() throws Exception {
         double[][] procNoiseData = geoMission.getFilterProcessNoise();
         Qu = new Array2DRowRealMatrix(procNoiseData);
+        useUnscented = FilterEngine.ukf.equals(geoMission.getFilterEngine());
+        usePrimitiveKernel = FilterEngine.ekf_primitive.equals(geoMission.getFilterEngine()) || useUnscented;
+        useBatchSolver = FilterEngine.gauss_newton.equals(geoMission.getFilterEngine());
+        useParticleFilter = FilterEngine.particle.equals(geoMission.getFilterEngine());
+        useConstantVelocity = usePrimitiveKernel && !useUnscented && MotionModel.constant_velocity.equals(geoMission.getMotionModel());
+        log.debug("Using FilterEngine: "+(geoMission.getFilterEngine() != null ? geoMission.getFilterEngine() : FilterEngine.ekf));
+        sequentialUpdates = usePrimitiveKernel && TrackUpdateMode.sequential.equals(geoMission.getTrackUpdateMode());
+        useInformationUpdate = usePrimitiveKernel && !useUnscented && !useConstantVelocity && MeasurementUpdate.information.equals(geoMission.getMeasurementUpdate());
+        log.debug("Using MotionModel: "+(useConstantVelocity ? MotionModel.constant_velocity : MotionModel.stationary));
+        log.debug("Using TrackUpdateMode: "+(sequentialUpdates ? TrackUpdateMode.sequential : TrackUpdateMode.iterative));
+        log.debug("Using MeasurementUpdate: "+(useInformationUpdate ? MeasurementUpdate.information : MeasurementUpdate.summed));
 
         /* Initialise filter state */
         log.debug("Using InitialStateMode: "+geoMission.getInitialStateMode());
@@ -178,18 +257,59 @@ public class ComputeProcessor implements Runnable {
             filterExecutions.add(new FilterExecution(Helpers.getCornerLatLon(InitialStateBoxCorner.TOP_RIGHT, geoMission.getAssets().values())));
             filterExecutions.add(new FilterExecution(Helpers.getCornerLatLon(InitialStateBoxCorner.BOTTOM_LEFT, geoMission.getAssets().values())));
         }
+        // Direct least squares estimate from the current observations, falls back to box corners if under-determined
+        else if (geoMission.getInitialStateMode().equals(InitialStateMode.closed_form)) {
+            ClosedFormEstimator estimate = ClosedFormEstimator.estimate(observationBuffer);
+            if (estimate != null) {
+                log.debug("Using CLOSED FORM initial condition: "+estimate.getX()+", "+estimate.getY());
+                filterExecutions.add(new FilterExecution(new Double[]{estimate.getX(), estimate.getY()}, estimate.getCovariance()));
+            }
+            else if (!geoMission.getAssets().isEmpty()) {
+                log.debug("Closed form estimate not possible with the current observations, using box corners");
+                filterExecutions.add(new FilterExecution(Helpers.getCornerLatLon(InitialStateBoxCorner.TOP_RIGHT, geoMission.getAssets().values())));
+                filterExecutions.add(new FilterExecution(Helpers.getCornerLatLon(InitialStateBoxCorner.BOTTOM_RIGHT, geoMission.getAssets().values())));
+                filterExecutions.add(new FilterExecution(Helpers.getCornerLatLon(InitialStateBoxCorner.BOTTOM_LEFT, geoMission.getAssets().values())));
+                filterExecutions.add(new FilterExecution(Helpers.getCornerLatLon(InitialStateBoxCorner.TOP_LEFT, geoMission.getAssets().values())));
+            }
+            else {
+                throw new ConfigurationException("No observations or assets to compute a closed form initial state");
+            }
+        }
+        // Best fit on a coarse to fine likelihood grid over the asset box, falls back to box corners if there are no observations
+        else if (geoMission.getInitialStateMode().equals(InitialStateMode.grid_search)) {
+            if (geoMission.getAssets().isEmpty()) {
+                throw new ConfigurationException("No observations or assets to grid search an initial state");
+            }
+            GridSearchEstimator estimate = GridSearchEstimator.estimate(observationBuffer, Helpers.getCornerLatLon(InitialStateBoxCorner.BOTTOM_LEFT, geoMission.getAssets().values()), Helpers.getCornerLatLon(InitialStateBoxCorner.TOP_RIGHT, geoMission.getAssets().values()));
+            if (estimate != null) {
+                log.debug("Using GRID SEARCH initial condition: "+estimate.getX()+", "+estimate.getY());
+                filterExecutions.add(new FilterExecution(new Double[]{estimate.getX(), estimate.getY()}, estimate.getCovariance()));
+            }
+            else {
+                log.debug("No observations to grid search, using box corners");
+                filterExecutions.add(new FilterExecution(Helpers.getCornerLatLon(InitialStateBoxCorner.TOP_RIGHT, geoMission.getAssets().values())));
+                filterExecutions.add(new FilterExecution(Helpers.getCornerLatLon(InitialStateBoxCorner.BOTTOM_RIGHT, geoMission.getAssets().values())));
+                filterExecutions.add(new FilterExecution(Helpers.getCornerLatLon(InitialStateBoxCorner.BOTTOM_LEFT, geoMission.getAssets().values())));
+                filterExecutions.add(new FilterExecution(Helpers.getCornerLatLon(InitialStateBoxCorner.TOP_LEFT, geoMission.getAssets().values())));
+            }
+        }
         else {
             throw new ConfigurationException("Could not identify a valid 'Initial State' search strategy, check configuration");
         }
 
+        adaptiveStopping = FixStoppingPolicy.adaptive.equals(geoMission.getFixStoppingPolicy()) && geoMission.getMissionMode().equals(MissionMode.fix) && !useBatchSolver;
+        alternativeStarts.clear();
+        if (adaptiveStopping) {
+            provisionAlternativeStarts();
+        }
+
         log.debug("# Filter Executions: "+ filterExecutions.size());
         for (FilterExecution filterExecution : filterExecutions) {
             double[] latLon = Helpers.convertUtmNthingEastingToLatLng(filterExecution.getLatlon()[0],filterExecution.getLatlon()[1], this.geoMission.getLatZone(), this.geoMission.getLonZone());
             log.debug("Start State: lat/lon: "+latLon[0]+","+latLon[1]+" UTM: ["+ filterExecution.getLatlon()[0]+","+ filterExecution.getLatlon()[1]+"]");
         }
 
-        log.trace("Initialising Stage Observations as current observations, #: "+this.geoMission.observations.size());
-        setStaged_observations(this.geoMission.observations);
+        log.trace("Initialised on observation snapshot version: "+observationSnapshot.getVersion()+", #: "+observationSnapshot.size());
     }
 
     public void run() {
@@ -197,26 +317,36 @@ public class ComputeProcessor implements Runnable {
         // IF FIX MODE, run all executions, combine results and report
         // IF TRACKING MODE, run the single execution, exit once process manually stopped
         if (this.geoMission.getMissionMode().equals(MissionMode.fix)) {
-            int j = 0;
-            List<GeolocationResult> geolocationResults = new ArrayList<GeolocationResult>();
-            for (FilterExecution filterExecution : filterExecutions) {
-                log.debug("Running execution: " + (j+1) + " / " + filterExecutions.size());
-                GeolocationResult geolocationResult = runFixExecution(filterExecution);
-                geolocationResults.add(geolocationResult);
+            running.set(true);
+            filterMetrics.sampleAllocation();
+            filterMetrics.startConvergence();
 
-                if (this.geoMission.getInitialStateMode().equals(InitialStateMode.box_single_out)) {
-                    if (geolocationResult.getResidual() < this.geoMission.getFilterConvergenceResidualThreshold()) {
-                        log.debug("Box Single Out initial search strategy, this result is good enough, exiting and reporting");
-                        break;
-                    }
-                }
-                j++;
-                log.debug("Finished execution: "+j);
+            if (this.geoMission.getOutputFilterState()) {
+                provisionFilterTrace();
+            }
+
+            List<GeolocationResult> geolocationResults;
+            int parallelism = Math.min(filterExecutions.size(), this.geoMission.getFixExecutionParallelism()!=null ? this.geoMission.getFixExecutionParallelism() : Runtime.getRuntime().availableProcessors());
+            if (useParticleFilter) {
+                geolocationResults = runParticleFixExecution(filterExecutions.iterator().next());
+            }
+            else if (parallelism > 1) {
+                geolocationResults = runFixExecutionsConcurrently(parallelism);
+            }
+            else {
+                geolocationResults = runFixExecutionsSequentially();
             }
+            running.set(false);
             log.debug("Finished all executions");
+            filterMetrics.endAllocationSample();
+
+            if (geolocationResults.isEmpty()) {
+                log.info("No executions completed, nothing to report");
+                return;
+            }
 
-            /* Sort by residual_rk */
-            List<GeolocationResult> sorted = sortByResidualRk(geolocationResults);
+            /* Sort by residual_rk, particle filter modes are already ordered by weight */
+            List<GeolocationResult> sorted = useParticleFilter ? geolocationResults : sortByResidualRk(geolocationResults);
             for (GeolocationResult gr : sorted) {
                 log.debug("GeoResult: resk: "+ gr.getResidual_rk()+", "+gr.getLat()+","+gr.getLon()+", elp:"+gr.getElp_long()+", res:"+gr.getResidual());
             }
@@ -242,16 +372,156 @@ public class ComputeProcessor implements Runnable {
         log.debug("FINISHED FILTER THREAD");
     }
 
+    /* Run each FIX execution in turn, on the processor thread */
+    public List<GeolocationResult> runFixExecutionsSequentially() {
+        int j = 0;
+        List<GeolocationResult> geolocationResults = new ArrayList<GeolocationResult>();
+        for (FilterExecution filterExecution : filterExecutions) {
+            log.debug("Running execution: " + (j+1) + " / " + filterExecutions.size());
+            GeolocationResult geolocationResult = runFixExecution(filterExecution);
+            geolocationResults.add(geolocationResult);
+
+            if (this.geoMission.getInitialStateMode().equals(InitialStateMode.box_single_out)) {
+                if (geolocationResult.getResidual() < this.geoMission.getFilterConvergenceResidualThreshold()) {
+                    log.debug("Box Single Out initial search strategy, this result is good enough, exiting and reporting");
+                    break;
+                }
+            }
+            j++;
+            log.debug("Finished execution: "+j);
+        }
+        return geolocationResults;
+    }
+
+    /* Run all FIX executions concurrently. For box_single_out, the first to converge cancels the others and cancelled results are discarded */
+    public List<GeolocationResult> runFixExecutionsConcurrently(int parallelism) {
+        ExecutorService executor = this.executorService;
+        boolean ownExecutor = (executor == null);
+        if (ownExecutor) {
+            executor = Executors.newFixedThreadPool(parallelism);
+        }
+        log.debug("Running # executions: "+filterExecutions.size()+", concurrently with parallelism: "+parallelism);
+
+        List<GeolocationResult> geolocationResults = new ArrayList<GeolocationResult>();
+        try {
+            CompletionService<GeolocationResult> completionService = new ExecutorCompletionService<GeolocationResult>(executor);
+            Map<Future<GeolocationResult>, FilterExecution> futures = new HashMap<Future<GeolocationResult>, FilterExecution>();
+            for (final FilterExecution filterExecution : filterExecutions) {
+                futures.put(completionService.submit(new Callable<GeolocationResult>() {
+                    @Override
+                    public GeolocationResult call() {
+                        return runFixExecution(filterExecution);
+                    }
+                }), filterExecution);
+            }
+
+            for (int j=0;j<futures.size();j++) {
+                Future<GeolocationResult> future = completionService.take();
+                FilterExecution filterExecution = futures.get(future);
+                GeolocationResult geolocationResult;
+                try {
+                    geolocationResult = future.get();
+                }
+                catch (ExecutionException ee) {
+                    log.error("Error running execution", ee.getCause());
+                    continue;
+                }
+                if (filterExecution.isCancelled()) {
+                    log.debug("Discarding cancelled execution");
+                    continue;
+                }
+                geolocationResults.add(geolocationResult);
+                log.debug("Finished execution: "+geolocationResults.size());
+
+                if (this.geoMission.getInitialStateMode().equals(InitialStateMode.box_single_out)) {
+                    if (geolocationResult.getResidual() < this.geoMission.getFilterConvergenceResidualThreshold()) {
+                        log.debug("Box Single Out initial search strategy, this result is good enough, cancelling remaining executions");
+                        for (FilterExecution other : filterExecutions) {
+                            if (other != filterExecution) {
+                                other.cancel();
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        catch (InterruptedException ie) {
+            log.warn("Interrupted waiting on executions");
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            if (ownExecutor) {
+                executor.shutdownNow();
+            }
+        }
+        return geolocationResults;
+    }
+
+    /* Closed form estimate then the box corners, less those already used as an execution's start */
+    void provisionAlternativeStarts() {
+        List<FilterExecution> candidates = new ArrayList<FilterExecution>();
+        ClosedFormEstimator estimate = ClosedFormEstimator.estimate(observationBuffer);
+        if (estimate != null) {
+            candidates.add(new FilterExecution(new Double[]{estimate.getX(), estimate.getY()}, estimate.getCovariance()));
+        }
+        if (!geoMission.getAssets().isEmpty()) {
+            for (InitialStateBoxCorner corner : new InitialStateBoxCorner[]{InitialStateBoxCorner.TOP_RIGHT, InitialStateBoxCorner.BOTTOM_RIGHT, InitialStateBoxCorner.BOTTOM_LEFT, InitialStateBoxCorner.TOP_LEFT}) {
+                Double[] cornerLatLon = Helpers.getCornerLatLon(corner, geoMission.getAssets().values());
+                if (cornerLatLon != null) {
+                    candidates.add(new FilterExecution(cornerLatLon));
+                }
+            }
+        }
+        for (FilterExecution candidate : candidates) {
+            boolean used = false;
+            for (FilterExecution filterExecution : filterExecutions) {
+                used = used || Arrays.equals(candidate.getLatlon(), filterExecution.getLatlon());
+            }
+            if (!used) {
+                alternativeStarts.add(candidate);
+            }
+        }
+        log.debug("# Alternative starts for stalled executions: "+alternativeStarts.size());
+    }
+
+    FilterExecution nextAlternativeStart() {
+        synchronized (alternativeStarts) {
+            return alternativeStarts.poll();
+        }
+    }
+
+    /* Reset the execution's filter state to its start point */
+    public void initialiseExecutionState(FilterExecution filterExecution) {
+        filterExecution.setXk(new ArrayRealVector(filterExecution.getLatlon()));
+        if (filterExecution.getInitialCovariance() != null) {
+            filterExecution.setPk(new Array2DRowRealMatrix(filterExecution.getInitialCovariance()));
+        }
+        else {
+            filterExecution.setPk(Pinit.scalarMultiply(0.01));  // AL1 Tends to lose itself fail to converge, unless this kept small (i.e. ~0.01). AL0 Originally used 1000
+        }
+        filterExecution.setInnov(new ArrayRealVector(innovd));
+        if (usePrimitiveKernel) {
+            if (useConstantVelocity && !(filterExecution.getEkfKernel() instanceof ConstantVelocityEkfKernel)) {
+                filterExecution.setEkfKernel(new ConstantVelocityEkfKernel());
+            }
+            else if (useUnscented && !(filterExecution.getEkfKernel() instanceof UnscentedKalmanKernel)) {
+                filterExecution.setEkfKernel(new UnscentedKalmanKernel());
+            }
+            filterExecution.getEkfKernel().initialise(filterExecution.getLatlon()[0], filterExecution.getLatlon()[1], filterExecution.getPk().getData(), geoMission.getFilterProcessNoise());
+            if (useInformationUpdate) {
+                ((PrimitiveEkfKernel) filterExecution.getEkfKernel()).setInformationUpdate(true, this.geoMission.getParallelUpdateThreshold()!=null ? this.geoMission.getParallelUpdateThreshold() : Integer.MAX_VALUE);
+            }
+        }
+    }
+
     // Runs a single FIX execution
     public GeolocationResult runFixExecution(FilterExecution filterExecution) {
 
         // Set Xk,Pk
         log.debug("Running Fix Execution with init conds: "+filterExecution.getLatlon()[0]+","+filterExecution.getLatlon()[1]);
-        RealVector Xinit = new ArrayRealVector(filterExecution.getLatlon());
-        Xk = Xinit;
-        Pk = Pinit.scalarMultiply(0.01);  // AL1 Tends to lose itself fail to converge, unless this kept small (i.e. ~0.01). AL0 Originally used 1000
-        log.debug("Running Fix Execution with Init State: "+Xk);
-        log.debug("Running Fix Execution with Init State Covariance: "+Pk);
+        initialiseExecutionState(filterExecution);
+        log.debug("Running Fix Execution with Init State: "+filterExecution.getXk());
+        log.debug("Running Fix Execution with Init State Covariance: "+filterExecution.getPk());
 
         log.info("Running for # observations:"+observations.size());
         if (observations.size()==0) {
@@ -259,26 +529,26 @@ public class ComputeProcessor implements Runnable {
             return new GeolocationResult();
         }
 
-        running.set(true);
+        if (useBatchSolver) {
+            return runBatchFixExecution(filterExecution);
+        }
 
         // May want to just clear the kml output state here, plot the asset locations, instead of full dispatch
         //dispatchResult(Xk);
 
-        FilterStateDTO filterStateDTO = new FilterStateDTO();
-
-        if (this.geoMission.getOutputFilterState()) {
-            kmlFileHelpers = new KmlFileHelpers();
-            kmlFileHelpers.provisionFilterStateExport();
-            log.debug("Provisioned filter state export");
+        /* Adaptive stopping, see FixStoppingPolicy. Attempts abandoned for an alternative start are kept, the best fit to the observations (residual_rk, as per run()) is reported */
+        ConvergenceMonitor convergenceMonitor = null;
+        if (adaptiveStopping) {
+            convergenceMonitor = new ConvergenceMonitor(this.geoMission.getConvergenceWindow(), this.geoMission.getMaxFilterIterations(), this.geoMission.getFilterConvergenceResidualThreshold());
         }
-        int filterStateExportCounter = 0;
+        GeolocationResult bestAttempt = null;
 
         // APPLY FOR FIX OR TRACKING EXECUTION CONTROL
         log.debug("Running for Max # filter iterations: "+geoMission.getMaxFilterIterations());
             for (int k=0;k<this.geoMission.getMaxFilterIterations();k++)
             {
                 // RUN THROTTLING
-                if (!running.get()) {
+                if (!running.get() || filterExecution.isCancelled()) {
                     log.debug("Thread was stopped");
                     break;
                 }
@@ -296,31 +566,50 @@ public class ComputeProcessor implements Runnable {
                 filterExecution = runFilterIteration(filterExecution);
 
                 /* A measure of residual changes the filter intends to make */
-                double residual = Math.abs(innov.getEntry(0)) + Math.abs(innov.getEntry(1));
+                double residual = getResidual(filterExecution);
+                filterMetrics.recordIteration(k, residual);
 
                 if (residual < this.geoMission.getFilterConvergenceResidualThreshold()) {
                     log.debug("Exiting since this is a FIX Mode run and filter has converged to threshold. Number of iterations: "+k);
-                    running.set(false);
+                    filterMetrics.recordConvergence(residual);
                     break;
                 }
 
-                /* Export filter state - development debugging */
-                if (this.geoMission.getOutputFilterState()) {
-                    filterStateExportCounter++;
-                    if (filterStateExportCounter == 10) {
-                        // Only if it is changing significantly
-                        double residual_innov = Math.abs(innov.getEntry(0)) + Math.abs(innov.getEntry(1));
-                        if (residual_innov > 0.5) {
-                            filterStateDTO.setFilterObservationDTOs(filterExecution.getFilterObservationDTOs());
-                            filterStateDTO.setXk(Xk);
-                            kmlFileHelpers.exportAdditionalFilterState(this.geoMission, filterStateDTO, residual);
-                            filterStateExportCounter = 0;
+                /* Record filter state, decimated */
+                if (filterTraceRecorder != null) {
+                    recordFilterTrace(filterExecution, k, residual);
+                }
+
+                if (convergenceMonitor != null) {
+                    ConvergenceTrend trend = convergenceMonitor.offer(residual);
+                    if (!trend.equals(ConvergenceTrend.converging)) {
+                        filterMetrics.recordTrend(trend);
+
+                        /* Well short of a reportable result, likely a poor start, try another if there is one */
+                        FilterExecution alternativeStart = (residual >= this.geoMission.getFilterDispatchResidualThreshold()) ? nextAlternativeStart() : null;
+                        if (alternativeStart == null) {
+                            log.debug("Exiting since the filter has "+trend+" at residual: "+residual+". Number of iterations: "+k);
+                            break;
                         }
+
+                        syncKernelState(filterExecution);
+                        GeolocationResult attempt = summariseResult(filterExecution);
+                        if (bestAttempt == null || attempt.getResidual_rk() < bestAttempt.getResidual_rk()) {
+                            bestAttempt = attempt;
+                        }
+
+                        log.debug("Filter has "+trend+" at residual: "+residual+", restarting from: "+alternativeStart.getLatlon()[0]+","+alternativeStart.getLatlon()[1]+". Number of iterations: "+k);
+                        filterExecution.setLatlon(alternativeStart.getLatlon());
+                        filterExecution.setInitialCovariance(alternativeStart.getInitialCovariance());
+                        initialiseExecutionState(filterExecution);
+                        convergenceMonitor.reset(this.geoMission.getMaxFilterIterations() - k - 1);
+                        filterMetrics.recordRestart();
                     }
                 }
 
             } // END FOR MAX ITERATIONS
             log.debug("Finished FIX iterations for this Execution");
+            syncKernelState(filterExecution);
 
             if (log.isDebugEnabled()) {
                 for (FilterObservationDTO obs_state : filterExecution.getFilterObservationDTOs()) {
@@ -335,37 +624,103 @@ public class ComputeProcessor implements Runnable {
                 }
             }
 
-        GeolocationResult geolocationResult = summariseResult(Xk, filterExecution);
+        GeolocationResult geolocationResult = summariseResult(filterExecution);
+        if (bestAttempt != null && bestAttempt.getResidual_rk() < geolocationResult.getResidual_rk()) {
+            log.debug("Reporting an earlier attempt of this execution, a better fit: "+bestAttempt.getResidual_rk()+" < "+geolocationResult.getResidual_rk());
+            return bestAttempt;
+        }
         return geolocationResult;
     }
 
-    public void runTrackingExecution(FilterExecution filterExecution) {
+    /* FIX execution solved in batch from the execution's initial state, reported as per the filter */
+    public GeolocationResult runBatchFixExecution(FilterExecution filterExecution) {
+        GaussNewtonSolver solver = new GaussNewtonSolver();
+        solver.initialise(filterExecution.getLatlon()[0], filterExecution.getLatlon()[1]);
+        solver.solve(observationBuffer, this.geoMission.getMaxFilterIterations(), this.geoMission.getFilterConvergenceResidualThreshold(), filterExecution);
+        log.debug("Finished batch solve for this Execution, # iterations: "+solver.getIterations());
+        filterMetrics.recordIterations(solver.getIterations(), solver.getResidual());
+        if (solver.getResidual() < this.geoMission.getFilterConvergenceResidualThreshold()) {
+            filterMetrics.recordConvergence(solver.getResidual());
+        }
 
-        RealVector Xinit = new ArrayRealVector(filterExecution.getLatlon());
-        Xk = Xinit;
-        Pk = Pinit.scalarMultiply(0.01);  // AL1 Tends to lose itself fail to converge, unless this kept small (i.e. ~0.01). AL0 Originally used 1000
+        filterExecution.setXk(new ArrayRealVector(new double[]{solver.getX(), solver.getY()}));
+        filterExecution.setPk(new Array2DRowRealMatrix(solver.getCovariance()));
+        filterExecution.setInnov(new ArrayRealVector(new double[]{solver.step0, solver.step1}));
+        solver.populateFilterObservationDTOs(observationBuffer, filterExecution.getFilterObservationDTOs());
+        return summariseResult(filterExecution);
+    }
+
+    /* FIX solved by the particle filter on the execution, the whole posterior in a single pass rather than per initial state. Modes reported in descending weight */
+    public List<GeolocationResult> runParticleFixExecution(FilterExecution filterExecution) {
+        List<GeolocationResult> geolocationResults = new ArrayList<GeolocationResult>();
+        log.info("Running particle filter for # observations:"+observations.size());
+        if (observations.size()==0) {
+            log.info("No observations returning");
+            return geolocationResults;
+        }
+
+        ParticleFilterSolver particleFilter = new ParticleFilterSolver(this.geoMission.getParticleCount()!=null ? this.geoMission.getParticleCount() : 4096);
+        particleFilter.initialise(observationBuffer);
+        particleFilter.solve(observationBuffer, this.geoMission.getMaxFilterIterations(), filterExecution);
+        List<ParticleFilterSolver.Mode> modes = particleFilter.findModes(observationBuffer, this.geoMission.getMaxFilterIterations(), this.geoMission.getFilterConvergenceResidualThreshold(), filterExecution);
+        log.debug("Finished particle filter, # rounds: "+particleFilter.getRounds()+", # modes: "+modes.size());
+
+        long iterations = particleFilter.getRounds();
+        for (ParticleFilterSolver.Mode mode : modes) {
+            GaussNewtonSolver solver = mode.getSolver();
+            iterations += solver.getIterations();
+            log.debug("Particle mode: ["+mode.getX()+","+mode.getY()+"], share: "+mode.getShare());
+            filterExecution.setXk(new ArrayRealVector(new double[]{solver.getX(), solver.getY()}));
+            filterExecution.setPk(new Array2DRowRealMatrix(solver.getCovariance()));
+            filterExecution.setInnov(new ArrayRealVector(new double[]{solver.step0, solver.step1}));
+            solver.populateFilterObservationDTOs(observationBuffer, filterExecution.getFilterObservationDTOs());
+            geolocationResults.add(summariseResult(filterExecution));
+        }
+
+        if (!geolocationResults.isEmpty()) {
+            filterMetrics.recordIterations(iterations, geolocationResults.get(0).getResidual());
+            if (geolocationResults.get(0).getResidual() < this.geoMission.getFilterConvergenceResidualThreshold()) {
+                filterMetrics.recordConvergence(geolocationResults.get(0).getResidual());
+            }
+        }
+        return geolocationResults;
+    }
+
+    /* Prepare the single tracking execution, returns false if there is nothing to track */
+    public boolean initialiseTrackingExecution(FilterExecution filterExecution) {
+
+        adoptLatestObservations();
+        initialiseExecutionState(filterExecution);
 
         log.info("Running for # observations:"+observations.size());
         if (observations.size()==0) {
             log.info("No observations returning");
-            return;
+            return false;
         }
 
         running.set(true);
-
-        FilterStateDTO filterStateDTO = new FilterStateDTO();
+        filterMetrics.sampleAllocation();
+        filterMetrics.startConvergence();
 
         if (this.geoMission.getOutputFilterState()) {
-            kmlFileHelpers = new KmlFileHelpers();
-            kmlFileHelpers.provisionFilterStateExport();
-            log.debug("Provisioned filter state export");
+            provisionFilterTrace();
         }
-        int filterStateExportCounter = 0;
+        trackingIterationCount = 0;
+        trackEstablished = false;
+        appliedObservations.clear();
 
-        long startTime = Calendar.getInstance().getTimeInMillis();
+        trackingStartTime = System.currentTimeMillis();
 
-        ComputeResults computeResults = new ComputeResults();
-        computeResults.setGeoId(this.geoMission.getGeoId());
+        trackingExecution = filterExecution;
+        dispatchedSnapshotVersion = observationSnapshot.getVersion();
+        return true;
+    }
+
+    public void runTrackingExecution(FilterExecution filterExecution) {
+
+        if (!initialiseTrackingExecution(filterExecution)) {
+            return;
+        }
 
         while (true) {
 
@@ -385,86 +740,246 @@ public class ComputeProcessor implements Runnable {
                 }
             }
 
-            filterExecution = runFilterIteration(filterExecution);
+            runTrackingIteration(filterExecution);
 
-            /* Export filter state - development debugging */
-            if (this.geoMission.getOutputFilterState()) {
-                filterStateExportCounter++;
-                if (filterStateExportCounter == 10) {
-                    // Only if it is changing significantly
-                    double residual = Math.abs(innov.getEntry(0)) + Math.abs(innov.getEntry(1));
-                    log.debug("Residual changes to implement: "+residual);
-                    if (residual > 0.5) {
-                        filterStateDTO.setFilterObservationDTOs(filterExecution.getFilterObservationDTOs());
-                        log.debug("# filter obs DTOs: "+filterExecution.getFilterObservationDTOs().size());
-                        for (FilterObservationDTO dto : filterExecution.getFilterObservationDTOs()) {
-                            log.debug("dto: "+dto.getF_est());
-                        }
-                        filterStateDTO.setXk(Xk);
-                        kmlFileHelpers.exportAdditionalFilterState(this.geoMission, filterStateDTO, residual);
-                        filterStateExportCounter = 0;
-                    }
+            if (isParked()) {
+                filterMetrics.sampleAllocation();
+                awaitWake();
+            }
+        }
+        filterMetrics.endAllocationSample();
+    }
+
+    /* Single tracking iteration, including state export and periodic result dispatch */
+    public void runTrackingIteration(FilterExecution filterExecution) {
+
+        if (sequentialUpdates) {
+            runSequentialTrackingUpdate(filterExecution);
+            return;
+        }
+
+        /* Pick up any newly published observations between iterations, the filter has to reconverge on them */
+        if (adoptLatestObservations()) {
+            filterMetrics.startConvergence();
+        }
+
+        filterExecution = runFilterIteration(filterExecution);
+
+        /* A measure of residual changes the filter intends to make */
+        double residual = getResidual(filterExecution);
+        filterMetrics.recordIteration(trackingIterationCount, residual);
+        if (residual < this.geoMission.getFilterDispatchResidualThreshold()) {
+            filterMetrics.recordConvergence(residual);
+        }
+
+        /* Record filter state, decimated */
+        trackingIterationCount++;
+        if (filterTraceRecorder != null) {
+            recordFilterTrace(filterExecution, trackingIterationCount, residual);
+        }
+
+        /* Export Result - FOR TRACKING, EXPORT ONLY AFTER CERTAIN TIMINGS */
+        if ((System.currentTimeMillis() - trackingStartTime) > this.geoMission.getDispatchResultsPeriod()) {
+
+            if (residual < this.geoMission.getFilterDispatchResidualThreshold()) {
+                dispatchTrackingResult(filterExecution, residual);
+
+                log.debug("This is a Tracking mode run, continuing on the latest observations...");
+
+                /* Unchanged since initialisation or the previous dispatch, and nothing newer published */
+                boolean unchanged = (observationSnapshot.getVersion() == dispatchedSnapshotVersion) && (observationSource.get() == observationSnapshot);
+                dispatchedSnapshotVersion = observationSnapshot.getVersion();
+
+                /* Converged on an unchanged observation set, nothing further to do until observations change */
+                if (this.geoMission.getTrackParkOnConvergence() != null && this.geoMission.getTrackParkOnConvergence() && unchanged) {
+                    park();
                 }
             }
+            else {
+                log.trace("Residual not low enough to export result: "+residual);
+            }
+        }
+    }
 
-            /* Export Result - FOR TRACKING, EXPORT ONLY AFTER CERTAIN TIMINGS */
-            if ((Calendar.getInstance().getTimeInMillis() - startTime) > this.geoMission.getDispatchResultsPeriod()) {
+    /*
+     * Sequential tracking (TrackUpdateMode.sequential)
+     *  - Until the track is established the initial observations are iterated on as per the iterative mode, until
+     *    the dispatch residual threshold is reached
+     *  - Thereafter each newly arrived (or re-reported) observation is applied once, in measurement time order, after
+     *    predicting the state to its time. Results are dispatched per arrival batch, then parked until the next
+     *  - Removed observations are not unapplied, their information remains in the state
+     */
+    void runSequentialTrackingUpdate(FilterExecution filterExecution) {
 
-                /* A measure of consistency between types of observations */
-                double residual_rk = findResidualRk(filterExecution.getFilterObservationDTOs());
+        boolean changed = adoptLatestObservations();
+        FilterKernel ekfKernel = filterExecution.getEkfKernel();
 
-                /* A measure of residual changes the filter intends to make */
-                double residual = Math.abs(innov.getEntry(0)) + Math.abs(innov.getEntry(1));
-
-                if (residual < this.geoMission.getFilterDispatchResidualThreshold()) {
-                    log.debug("Dispatching Result From # Observations: " + this.observations.size());
-                    log.debug("Residual Movements: "+residual);
-                    log.debug("Residual Measurement Delta: "+residual_rk);
-                    log.debug("Residual Innovation: "+innov);
-                    log.debug("Covariance: "+Pk);
-
-                    if (log.isDebugEnabled()) {
-                        for (FilterObservationDTO obs_state : filterExecution.getFilterObservationDTOs()) {
-                            double f_est_adj = obs_state.getF_est();
-                            if (obs_state.getObs().getObservationType().equals(ObservationType.tdoa)) {
-                                f_est_adj = f_est_adj / Helpers.SPEED_OF_LIGHT;
-                            }
-                            else if (obs_state.getObs().getObservationType().equals(ObservationType.aoa)) {
-                                f_est_adj = f_est_adj * Math.PI / 180;
-                            }
-                            log.debug("Observation utilisation: assets: ["+obs_state.getObs().getAssetId()+"/"+obs_state.getObs().getAssetId_b()+"_"+obs_state.getObs().getObservationType().name()+":"+obs_state.getObs().getMeas()+"] [meas], f_est(adj): " + f_est_adj + ", innov: "+obs_state.getInnov()+", MeasError: "+obs_state.getObs().getMeas_error());
-                        }
-                    }
+        if (!trackEstablished) {
+            if (changed) {
+                filterMetrics.startConvergence();
+            }
+            ekfKernel.iterate(observationBuffer);
+            double residual = ekfKernel.getResidual();
+            filterMetrics.recordIteration(trackingIterationCount, residual);
+            trackingIterationCount++;
+            if (filterTraceRecorder != null) {
+                recordFilterTrace(filterExecution, trackingIterationCount, residual);
+            }
+            if (residual < this.geoMission.getFilterDispatchResidualThreshold()) {
+                filterMetrics.recordConvergence(residual);
+                if (observationBuffer.size > 0) {
+                    ekfKernel.predictTo(observationBuffer.getLatestTime());
+                }
+                for (int i=0;i<observationBuffer.size;i++) {
+                    appliedObservations.put(observationBuffer.observations[i].getId(), observationBuffer.observations[i].getTime_received());
+                }
+                trackEstablished = true;
+                log.debug("Track established after # iterations: "+trackingIterationCount+", applying observations sequentially");
+                dispatchTrackingResult(filterExecution, residual);
+                park();
+            }
+            return;
+        }
 
-                    startTime = Calendar.getInstance().getTimeInMillis();
+        /* Newly arrived observations, in measurement time order. Stable such that simultaneous arrivals keep buffer order */
+        List<Integer> arrivals = new ArrayList<Integer>();
+        if (changed) {
+            for (int i=0;i<observationBuffer.size;i++) {
+                Observation obs = observationBuffer.observations[i];
+                Long applied = appliedObservations.get(obs.getId());
+                if (applied == null || !applied.equals(obs.getTime_received())) {
+                    arrivals.add(i);
+                }
+            }
+            final ObservationBuffer buffer = observationBuffer;
+            Collections.sort(arrivals, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Long.compare(buffer.getTime(a), buffer.getTime(b));
+                }
+            });
+            appliedObservations.keySet().retainAll(this.observations.keySet());
+        }
+
+        if (!arrivals.isEmpty()) {
+            filterMetrics.startConvergence();
+            for (int i : arrivals) {
+                ekfKernel.predictTo(observationBuffer.getTime(i));
+                ekfKernel.updateSequential(observationBuffer, i);
+                appliedObservations.put(observationBuffer.observations[i].getId(), observationBuffer.observations[i].getTime_received());
+                trackingIterationCount++;
+                if (filterTraceRecorder != null) {
+                    recordFilterTrace(filterExecution, trackingIterationCount, ekfKernel.getResidual());
+                }
+            }
+            double residual = ekfKernel.getResidual();
+            filterMetrics.recordIterations(arrivals.size(), residual);
+            filterMetrics.recordConvergence(residual);
+            log.debug("Applied # observations sequentially: "+arrivals.size()+", residual: "+residual);
+            dispatchTrackingResult(filterExecution, residual);
+        }
+        park();
+    }
 
-                    GeolocationResult result = summariseResult(Xk, filterExecution);
-                    computeResults.setGeolocationResult(result);
-                    dispatchResult(computeResults);
+    /* Summarise and dispatch the tracking execution's current estimate */
+    void dispatchTrackingResult(FilterExecution filterExecution, double residual) {
+        syncKernelState(filterExecution);
 
-                    log.debug("This is a Tracking mode run, using latest observations (as held in staging) and continuing...");
+        /* A measure of consistency between types of observations */
+        double residual_rk = findResidualRk(filterExecution.getFilterObservationDTOs());
 
-                    /* Resynch latest observations, and reinitialise with current state estimate */
-                    log.debug("# Staged observations: "+this.staged_observations.size());
-                    setObservations(this.staged_observations);
+        log.debug("Dispatching Result From # Observations: " + this.observations.size());
+        log.debug("Residual Movements: "+residual);
+        log.debug("Residual Measurement Delta: "+residual_rk);
+        log.debug("Residual Innovation: "+filterExecution.getInnov());
+        log.debug("Covariance: "+filterExecution.getPk());
+
+        if (log.isDebugEnabled()) {
+            for (FilterObservationDTO obs_state : filterExecution.getFilterObservationDTOs()) {
+                double f_est_adj = obs_state.getF_est();
+                if (obs_state.getObs().getObservationType().equals(ObservationType.tdoa)) {
+                    f_est_adj = f_est_adj / Helpers.SPEED_OF_LIGHT;
                 }
-                else {
-                    log.trace("Residual not low enough to export result: "+residual);
+                else if (obs_state.getObs().getObservationType().equals(ObservationType.aoa)) {
+                    f_est_adj = f_est_adj * Math.PI / 180;
                 }
+                log.debug("Observation utilisation: assets: ["+obs_state.getObs().getAssetId()+"/"+obs_state.getObs().getAssetId_b()+"_"+obs_state.getObs().getObservationType().name()+":"+obs_state.getObs().getMeas()+"] [meas], f_est(adj): " + f_est_adj + ", innov: "+obs_state.getInnov()+", MeasError: "+obs_state.getObs().getMeas_error());
+            }
+        }
+
+        trackingStartTime = System.currentTimeMillis();
+
+        GeolocationResult result = summariseResult(filterExecution);
+        ComputeResults computeResults = new ComputeResults();
+        computeResults.setGeoId(this.geoMission.getGeoId());
+        computeResults.setGeolocationResult(result);
+        dispatchResult(computeResults);
+        filterMetrics.sampleAllocation();
+    }
+
+    /*
+     * Run a time slice of at most the given # of filter iterations, for multiplexing many missions over shared workers (see MissionScheduler)
+     *  - FIX mode runs to completion in a single slice
+     *  - TRACK mode is initialised on the first slice, then iterates until stopped
+     * Returns true if the mission has further work to run. Throttling is left to the caller.
+     */
+    public boolean runSlice(int iterations) {
+        /* Workers are shared between missions, allocation is only attributed within the slice */
+        filterMetrics.sampleAllocation();
+        try {
+            return runSliceIterations(iterations);
+        }
+        finally {
+            filterMetrics.endAllocationSample();
+        }
+    }
+
+    boolean runSliceIterations(int iterations) {
+        if (this.geoMission.getMissionMode().equals(MissionMode.fix)) {
+            run();
+            return false;
+        }
+
+        if (trackingExecution == null) {
+            if (!initialiseTrackingExecution(filterExecutions.iterator().next())) {
+                return false;
+            }
+        }
+
+        if (isParked()) {
+            return running.get();
+        }
+
+        for (int k=0;k<iterations;k++) {
+            if (!running.get()) {
+                log.debug("Mission was stopped");
+                return false;
+            }
+            runTrackingIteration(trackingExecution);
+            if (isParked()) {
+                break;
             }
         }
+        return running.get();
     }
 
     public FilterExecution runFilterIteration(FilterExecution filterExecution)
     {
+        if (usePrimitiveKernel) {
+            filterExecution.getEkfKernel().iterate(observationBuffer);
+            return filterExecution;
+        }
+
+        RealVector Xk = filterExecution.getXk();
+        RealMatrix Pk = filterExecution.getPk();
         log.trace("Xk: "+Xk);
         Xk = Thi.operate(Xk);
 
             Pk = (Thi.multiply(Pk).multiply(Thi.transpose())).add(Qu);
 
             /* reinitialise various collections */
-            innov = new ArrayRealVector(innovd);
-            P_innov = new Array2DRowRealMatrix(P_innovd);
+            RealVector innov = new ArrayRealVector(innovd);
+            RealMatrix P_innov = new Array2DRowRealMatrix(P_innovd);
             filterExecution.getFilterObservationDTOs().removeAllElements();
             RealVector nextOtherMeasurementExclusiveState = null;
             Iterator obsIterator = this.observations.values().iterator();
@@ -473,12 +988,12 @@ public class ComputeProcessor implements Runnable {
 
                 Observation obs = (Observation) obsIterator.next();
 
-                xk = Xk.getEntry(0);
-                yk = Xk.getEntry(1);
+                double xk = Xk.getEntry(0);
+                double yk = Xk.getEntry(1);
 
                 double f_est = 0.0;
                 double d = 0.0;
-                H = null;
+                RealMatrix H = null;
                 RealMatrix Inverse = null;
 
                 if (obs.getObservationType().equals(ObservationType.range)) {
@@ -531,7 +1046,7 @@ public class ComputeProcessor implements Runnable {
                     Inverse = (new LUDecomposition(toInvert)).getSolver().getInverse();
                 }
 
-                K = Pk.multiply(H.transpose()).multiply(Inverse);
+                RealMatrix K = Pk.multiply(H.transpose()).multiply(Inverse);
 
                 double rk = d - f_est;
 
@@ -547,12 +1062,67 @@ public class ComputeProcessor implements Runnable {
                 filterExecution.getFilterObservationDTOs().add(new FilterObservationDTO(obs, f_est, innov_));
             }
 
-            Xk = Xk.add(innov);
-            Pk = (eye.multiply(Pk)).subtract(P_innov);
+            filterExecution.setXk(Xk.add(innov));
+            filterExecution.setPk((eye.multiply(Pk)).subtract(P_innov));
+            filterExecution.setInnov(innov);
 
             return filterExecution;
     }
 
+    /* A measure of residual changes the filter intends to make */
+    public double getResidual(FilterExecution filterExecution) {
+        if (usePrimitiveKernel) {
+            return filterExecution.getEkfKernel().getResidual();
+        }
+        return Math.abs(filterExecution.getInnov().getEntry(0)) + Math.abs(filterExecution.getInnov().getEntry(1));
+    }
+
+    /* Filter state trace written alongside the result outputs, <name>.kml from the bounded ring and <name>.csv appended */
+    void provisionFilterTrace() {
+        String kmlFilename = (this.geoMission.getOutputFilterStateKmlFilename() != null) ? this.geoMission.getOutputFilterStateKmlFilename() : "filterState.kml";
+        String traceFilename = (kmlFilename.endsWith(".kml") ? kmlFilename.substring(0, kmlFilename.length() - 4) : kmlFilename) + ".csv";
+        String outputDirectory = this.geoMission.getProperties().getProperty("working.directory", "")+"output/";
+        filterTraceRecorder = new FilterTraceRecorder(
+                this.geoMission.getFilterTraceCapacity() != null ? this.geoMission.getFilterTraceCapacity() : FilterTraceRecorder.DEFAULT_CAPACITY,
+                this.geoMission.getFilterTraceDecimation() != null ? this.geoMission.getFilterTraceDecimation() : FilterTraceRecorder.DEFAULT_DECIMATION);
+        filterTraceRecorder.provision(new File(outputDirectory+kmlFilename), new File(outputDirectory+traceFilename));
+    }
+
+    /* Record the execution's current position estimate, read straight from the primitive kernel without syncing */
+    void recordFilterTrace(FilterExecution filterExecution, long iteration, double residual) {
+        /* Only while the estimate is still moving, a converged track would otherwise flood the trace with one point */
+        if (residual < this.geoMission.getFilterConvergenceResidualThreshold()) {
+            return;
+        }
+        if (usePrimitiveKernel) {
+            filterTraceRecorder.record(iteration, filterExecution.getEkfKernel().getX(), filterExecution.getEkfKernel().getY(), residual);
+        }
+        else {
+            filterTraceRecorder.record(iteration, filterExecution.getXk().getEntry(0), filterExecution.getXk().getEntry(1), residual);
+        }
+    }
+
+    /* Copy primitive kernel state into the commons-math state and observation DTOs, used ahead of reporting only */
+    public void syncKernelState(FilterExecution filterExecution) {
+        if (usePrimitiveKernel) {
+            FilterKernel ekfKernel = filterExecution.getEkfKernel();
+            filterExecution.setXk(ekfKernel.getXk());
+            filterExecution.setPk(ekfKernel.getPk());
+            filterExecution.setInnov(ekfKernel.getInnov());
+            if (sequentialUpdates && trackEstablished) {
+                /* Observations were applied once each at their own time, reported against the current estimate */
+                Vector<FilterObservationDTO> filterObservationDTOs = filterExecution.getFilterObservationDTOs();
+                filterObservationDTOs.removeAllElements();
+                for (int i=0;i<observationBuffer.size;i++) {
+                    filterObservationDTOs.add(new FilterObservationDTO(observationBuffer.observations[i], MeasurementModel.predictReported(observationBuffer, i, ekfKernel.getX(), ekfKernel.getY()), new ArrayRealVector(innovd)));
+                }
+            }
+            else {
+                ekfKernel.populateFilterObservationDTOs(observationBuffer, filterExecution.getFilterObservationDTOs());
+            }
+        }
+    }
+
     public RealMatrix recalculateH(double x_rssi, double y_rssi, double Xk1, double Xk2) {
 
         double R1 = Math.sqrt(Math.pow((x_rssi-Xk1),2) + Math.pow(y_rssi-Xk2,2));
@@ -608,7 +1178,9 @@ public class ComputeProcessor implements Runnable {
         return residual_rk;
     }
 
-    public GeolocationResult summariseResult(RealVector Xk, FilterExecution filterExecution) {
+    public GeolocationResult summariseResult(FilterExecution filterExecution) {
+        RealVector Xk = filterExecution.getXk();
+        RealMatrix Pk = filterExecution.getPk();
 
         double[] latLon = Helpers.convertUtmNthingEastingToLatLng(Xk.getEntry(0),Xk.getEntry(1), this.geoMission.getLatZone(), this.geoMission.getLonZone());
 
@@ -630,13 +1202,13 @@ public class ComputeProcessor implements Runnable {
         double residual_rk = findResidualRk(filterExecution.getFilterObservationDTOs());
 
         /* A measure of residual changes the filter intends to make */
-        double residual = Math.abs(innov.getEntry(0)) + Math.abs(innov.getEntry(1));
+        double residual = getResidual(filterExecution);
 
         log.debug("Dispatching Result From # Observations: " + this.observations.size());
         log.debug("Result: "+latLon[0]+","+latLon[1]);
         log.debug("Residual Movements: "+residual);
         log.debug("Residual Measurement Delta: "+residual_rk);
-        log.debug("Residual Innovation: "+innov);
+        log.debug("Residual Innovation: "+filterExecution.getInnov());
         log.debug("Covariance: "+Pk);
 
         GeolocationResult geolocationResult = new GeolocationResult();
@@ -647,19 +1219,43 @@ public class ComputeProcessor implements Runnable {
         geolocationResult.setElp_rot(rot);
         geolocationResult.setResidual(residual);
         geolocationResult.setResidual_rk(residual_rk);
+        if (Xk.getDimension() == 4) {
+            geolocationResult.setVel_east(Xk.getEntry(2));
+            geolocationResult.setVel_north(Xk.getEntry(3));
+        }
 
         return geolocationResult;
     }
 
-    public void dispatchResult(ComputeResults computeResults) {
+    public void dispatchResult(final ComputeResults computeResults) {
+        final long dispatchNanos = System.nanoTime();
 
         this.geoMission.getTarget().setCurrent_loc(new double[]{computeResults.getGeolocationResult().getLat(),computeResults.getGeolocationResult().getLon()});
         this.geoMission.setComputeResults(computeResults);
+
+        /* Track mode may export asynchronously, a FIX result is always delivered before run() returns */
+        if (this.geoMission.getMissionMode().equals(MissionMode.track) && this.geoMission.getAsyncExport() != null && this.geoMission.getAsyncExport()) {
+            ExportPipeline pipeline = (this.exportPipeline != null) ? this.exportPipeline : ExportPipeline.shared();
+            pipeline.submit(this.geoMission.getGeoId(), new Runnable() {
+                @Override
+                public void run() {
+                    exportResult(computeResults, dispatchNanos);
+                }
+            });
+        }
+        else {
+            exportResult(computeResults, dispatchNanos);
+        }
+    }
+
+    /* Deliver the result to the listener and file exports */
+    void exportResult(ComputeResults computeResults, long dispatchNanos) {
         this.cageListener.result(computeResults);
+        filterMetrics.recordDispatchLatency(System.nanoTime() - dispatchNanos);
 
-        if (this.geoMission.getOutputFilterState() && kmlFileHelpers !=null) {
-            /* Write non-static file exports, includes filter state data stored in mem */
-            kmlFileHelpers.writeCurrentExports(this.geoMission);
+        if (this.geoMission.getOutputFilterState() && filterTraceRecorder != null) {
+            /* Append the recorded filter state trace, rewrite the bounded filter state kml */
+            filterTraceRecorder.writeCurrentExports(this.geoMission);
         }
 
         if (this.geoMission.getOutputKml()) {
@@ -672,8 +1268,91 @@ public class ComputeProcessor implements Runnable {
         return geolocationResults;
     }
 
-    public synchronized void setStaged_observations(Map<Long, Observation> staged_observations) {
-        this.staged_observations = staged_observations;
+    public void setStaged_observations(Map<Long, Observation> staged_observations) {
+        publishObservations(ObservationSnapshot.of(stagedSnapshot.get().getVersion() + 1, staged_observations.values()));
+    }
+
+    /* Publish a new observation snapshot, adopted by the filter at its next iteration. Wakes a parked tracking execution */
+    public void publishObservations(ObservationSnapshot observationSnapshot) {
+        stagedSnapshot.set(observationSnapshot);
+        notifyObservationsChanged();
+    }
+
+    /*
+     * Read the latest observations from the given source in place of published snapshots, e.g. a CageProcessManager
+     * building a snapshot only when adopted. Changes are then signalled with notifyObservationsChanged
+     */
+    public void setObservationSource(Supplier<ObservationSnapshot> observationSource) {
+        this.observationSource = observationSource;
+    }
+
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    public void setExportPipeline(ExportPipeline exportPipeline) {
+        this.exportPipeline = exportPipeline;
+    }
+
+    public void setFilterMetrics(FilterMetrics filterMetrics) {
+        filterMetrics.setObservationsInUse(observationSnapshot.size());
+        this.filterMetrics = filterMetrics;
+    }
+
+    public FilterMetrics getFilterMetrics() {
+        return filterMetrics;
+    }
+
+    /* Park the tracking execution until observations change or it is stopped */
+    void park() {
+        synchronized (parkLock) {
+            if (observationSource.get() == observationSnapshot) {
+                log.debug("Tracking filter converged, parking until observations change");
+                parked = true;
+            }
+        }
+    }
+
+    /* Block the processor's own thread while parked, the changed observations are adopted at the next iteration */
+    void awaitWake() {
+        synchronized (parkLock) {
+            while (parked && running.get()) {
+                try {
+                    parkLock.wait();
+                }
+                catch (InterruptedException ie) {
+                    log.warn("Interrupted while parked");
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /* Observations were added or removed, wakes a parked tracking execution */
+    public void notifyObservationsChanged() {
+        Runnable listener = null;
+        synchronized (parkLock) {
+            if (parked) {
+                log.debug("Waking parked tracking filter");
+                parked = false;
+                listener = this.wakeListener;
+                parkLock.notifyAll();
+            }
+        }
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    public boolean isParked() {
+        synchronized (parkLock) {
+            return parked;
+        }
+    }
+
+    public void setWakeListener(Runnable wakeListener) {
+        this.wakeListener = wakeListener;
     }
 
     public boolean isRunning() {
@@ -682,5 +1361,8 @@ public class ComputeProcessor implements Runnable {
 
     public void stopThread() {
         this.running.set(false);
+        synchronized (parkLock) {
+            parkLock.notifyAll();
+        }
     }
 }
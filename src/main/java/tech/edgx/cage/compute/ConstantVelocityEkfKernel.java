@@ -0,0 +1,306 @@
+package tech.edgx.cage.compute;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import tech.edgx.cage.util.Helpers;
+
+import java.util.Vector;
+
+/**
+ * Extended Kalman Filter kernel for the 4 state constant velocity model (x,y,vx,vy) [UTM m, m/s] on primitive fields
+ *  - The state is held at an epoch, the latest observation time. Each observation is fitted against the position
+ *    extrapolated to its measurement time, p + v.dt, such that observations spread in time inform the velocity
+ *  - When newer observations arrive the state is advanced to their time, x' = F.x, P' = F.P.F' with F the constant
+ *    velocity transition, before iterating on them
+ *  - Per iteration process noise and measurement model as per PrimitiveEkfKernel, but observations are applied
+ *    sequentially, each update seeing the state and covariance of the previous. Summing updates against the prior
+ *    covariance (as the position only kernels do) overshoots once velocity couples observations across time
+ *  - No allocation per iteration, per observation working memory is reused until the observation set grows
+ */
+public class ConstantVelocityEkfKernel implements FilterKernel {
+
+    static final int N = 4;
+
+    /* State estimate: UTM easting, northing [m], velocity [m/s] */
+    final double[] xk = new double[N];
+
+    /* State covariance */
+    final double[][] p = new double[N][N];
+
+    /* Process noise, per iteration */
+    final double[][] q = new double[N][N];
+
+    /* Epoch of the state [epoch ms] */
+    long epoch;
+    boolean epochSet = false;
+
+    /* Summed state innovation from the latest iteration */
+    final double[] innov = new double[N];
+
+    /* Iteration accumulator */
+    final double[] sumInnov = new double[N];
+
+    /* Per update working memory: jacobian and P.H' */
+    final double[] h = new double[N];
+    final double[] ph = new double[N];
+
+    /* Per observation estimate and position innovation from the latest iteration, indexed as per the observation buffer */
+    double[] f_est = new double[0];
+    double[] obs_innov0 = new double[0];
+    double[] obs_innov1 = new double[0];
+    int observationCount;
+
+    /* Velocity initial covariance, and process noise if only position (2x2) process noise is given, are taken as the position's per second */
+    @Override
+    public void initialise(double x, double y, double[][] initialCovariance, double[][] processNoise) {
+        xk[0] = x; xk[1] = y; xk[2] = 0; xk[3] = 0;
+        for (int r=0;r<N;r++) {
+            for (int c=0;c<N;c++) {
+                p[r][c] = 0;
+                q[r][c] = 0;
+            }
+        }
+        for (int r=0;r<2;r++) {
+            for (int c=0;c<2;c++) {
+                p[r][c] = initialCovariance[r][c];
+                p[r+2][c+2] = initialCovariance[r][c];
+            }
+        }
+        if (processNoise.length >= N) {
+            for (int r=0;r<N;r++) {
+                for (int c=0;c<N;c++) {
+                    q[r][c] = processNoise[r][c];
+                }
+            }
+        }
+        else {
+            for (int r=0;r<2;r++) {
+                for (int c=0;c<2;c++) {
+                    q[r][c] = processNoise[r][c];
+                    q[r+2][c+2] = processNoise[r][c];
+                }
+            }
+        }
+        for (int r=0;r<N;r++) {
+            innov[r] = 0;
+        }
+        epochSet = false;
+    }
+
+    /* Advance the state to the given time [epoch ms], x' = F.x, P' = F.P.F'. Never steps back in time */
+    public void advanceTo(long time) {
+        if (!epochSet) {
+            epoch = time;
+            epochSet = true;
+            return;
+        }
+        if (time <= epoch) {
+            return;
+        }
+        double dt = (time - epoch) / 1000.0;
+        xk[0] += xk[2]*dt;
+        xk[1] += xk[3]*dt;
+
+        /* F.P, F = [I dt.I; 0 I] adds dt x the velocity rows to the position rows */
+        for (int c=0;c<N;c++) {
+            p[0][c] += dt*p[2][c];
+            p[1][c] += dt*p[3][c];
+        }
+        /* (F.P).F', likewise on columns */
+        for (int r=0;r<N;r++) {
+            p[r][0] += dt*p[r][2];
+            p[r][1] += dt*p[r][3];
+        }
+        epoch = time;
+    }
+
+    /* Single predict/update cycle against all observations, type blocks are processed range, tdoa then aoa (AOA last) */
+    @Override
+    public void iterate(ObservationBuffer buffer) {
+        int count = buffer.size;
+        ensureCapacity(count);
+        if (count > 0) {
+            advanceTo(buffer.latestTime);
+        }
+
+        /* Predict: state is held at the epoch, process noise only */
+        for (int r=0;r<N;r++) {
+            for (int c=0;c<N;c++) {
+                p[r][c] += q[r][c];
+            }
+        }
+
+        correct(buffer, 0, count);
+        observationCount = count;
+    }
+
+    /* Advance the state to the given time, x' = F.x, P' = F.P.F' + Q.dt with process noise per second elapsed */
+    @Override
+    public void predictTo(long time) {
+        long previous = epoch;
+        boolean advanced = epochSet && time > epoch;
+        advanceTo(time);
+        if (advanced) {
+            double dt = (time - previous) / 1000.0;
+            for (int r=0;r<N;r++) {
+                for (int c=0;c<N;c++) {
+                    p[r][c] += q[r][c]*dt;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void updateSequential(ObservationBuffer buffer, int i) {
+        ensureCapacity(buffer.size);
+        correct(buffer, i, i+1);
+        observationCount = buffer.size;
+    }
+
+    /* Sequentially update with observations [from,to), by type block */
+    private void correct(ObservationBuffer buffer, int from, int to) {
+        for (int r=0;r<N;r++) {
+            sumInnov[r] = 0;
+        }
+
+        final double[] x = buffer.x;
+        final double[] y = buffer.y;
+        final double[] meas = buffer.meas;
+        final double[] meas_error = buffer.meas_error;
+        final long[] time = buffer.time;
+
+        /* RANGE */
+        for (int i=from;i<Math.min(to, buffer.tdoaStart);i++) {
+            double dt = (time[i] - epoch) / 1000.0;
+            double dx = x[i] - (xk[0] + xk[2]*dt); double dy = y[i] - (xk[1] + xk[3]*dt);
+            double R1 = Math.sqrt(dx*dx + dy*dy);
+            update(i, R1, meas[i], -dx/R1, -dy/R1, dt, meas_error[i]);
+        }
+
+        /* TDOA */
+        final double[] xb = buffer.xb;
+        final double[] yb = buffer.yb;
+        for (int i=Math.max(from, buffer.tdoaStart);i<Math.min(to, buffer.aoaStart);i++) {
+            double dt = (time[i] - epoch) / 1000.0;
+            double px = xk[0] + xk[2]*dt; double py = xk[1] + xk[3]*dt;
+            double dx = x[i] - px; double dy = y[i] - py;
+            double dx2 = xb[i] - px; double dy2 = yb[i] - py;
+            double R1 = Math.sqrt(dx*dx + dy*dy);
+            double R2 = Math.sqrt(dx2*dx2 + dy2*dy2);
+            update(i, R1 - R2, meas[i] * Helpers.SPEED_OF_LIGHT, -dx/R1 + dx2/R2, -dy/R1 + dy2/R2, dt, meas_error[i]);
+        }
+
+        /* AOA */
+        for (int i=Math.max(from, buffer.aoaStart);i<to;i++) {
+            double dt = (time[i] - epoch) / 1000.0;
+            double px = xk[0] + xk[2]*dt; double py = xk[1] + xk[3]*dt;
+            double dx = x[i] - px; double dy = y[i] - py;
+            double R1 = Math.sqrt(dx*dx + dy*dy);
+            double f = Math.atan(dy/dx)*180/Math.PI;
+            if (px<x[i]) {
+                f = f + 180;
+            }
+            if (py<y[i] && px>=x[i]) {
+                f = 360 - Math.abs(f);
+            }
+            // Note d/d"x" = "y - y_est"/..... on purpose linearisation
+            update(i, f, meas[i] * 180 / Math.PI, dy/R1, -dx/R1, dt, meas_error[i]);
+        }
+
+        for (int r=0;r<N;r++) {
+            innov[r] = sumInnov[r];
+        }
+    }
+
+    /*
+     * Sequential update of the state and covariance for a single observation, innovation accumulated for the iteration.
+     * Position jacobian (h0,h1) at the observation's time, velocity terms are the same scaled by dt
+     */
+    private void update(int i, double f, double d, double h0, double h1, double dt, double r) {
+        h[0] = h0; h[1] = h1; h[2] = h0*dt; h[3] = h1*dt;
+
+        /* P.H', then scalar innovation variance H.P.H' + R */
+        double s = r;
+        for (int row=0;row<N;row++) {
+            ph[row] = p[row][0]*h[0] + p[row][1]*h[1] + p[row][2]*h[2] + p[row][3]*h[3];
+            s += h[row]*ph[row];
+        }
+
+        /* K = P.H'/s, P -= K.H.P = K.(P.H')' as P is symmetric */
+        double rk = d - f;
+        for (int row=0;row<N;row++) {
+            double k = ph[row]/s;
+            xk[row] += k*rk;
+            sumInnov[row] += k*rk;
+            for (int c=0;c<N;c++) {
+                p[row][c] -= k*ph[c];
+            }
+        }
+
+        f_est[i] = f;
+        obs_innov0[i] = ph[0]/s*rk;
+        obs_innov1[i] = ph[1]/s*rk;
+    }
+
+    private void ensureCapacity(int count) {
+        if (f_est.length < count) {
+            f_est = new double[count];
+            obs_innov0 = new double[count];
+            obs_innov1 = new double[count];
+        }
+    }
+
+    /* A measure of residual changes the filter intends to make, in position such that thresholds are shared with the position only model */
+    @Override
+    public double getResidual() {
+        return Math.abs(innov[0]) + Math.abs(innov[1]);
+    }
+
+    /* Rebuild observation utilisation DTOs from the latest iteration - allocates, use only for reporting */
+    @Override
+    public void populateFilterObservationDTOs(ObservationBuffer buffer, Vector<FilterObservationDTO> filterObservationDTOs) {
+        filterObservationDTOs.removeAllElements();
+        for (int i=0;i<observationCount;i++) {
+            filterObservationDTOs.add(new FilterObservationDTO(buffer.observations[i], f_est[i], new ArrayRealVector(new double[]{obs_innov0[i], obs_innov1[i]})));
+        }
+    }
+
+    @Override
+    public RealVector getXk() {
+        return new ArrayRealVector(xk);
+    }
+
+    @Override
+    public RealMatrix getPk() {
+        return new Array2DRowRealMatrix(p);
+    }
+
+    @Override
+    public RealVector getInnov() {
+        return new ArrayRealVector(innov);
+    }
+
+    @Override
+    public double getX() {
+        return xk[0];
+    }
+
+    @Override
+    public double getY() {
+        return xk[1];
+    }
+
+    public double getVx() {
+        return xk[2];
+    }
+
+    public double getVy() {
+        return xk[3];
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+}
@@ -0,0 +1,100 @@
+package tech.edgx.cage.compute;
+
+/**
+ * Tracks the residual trend of a FIX execution over consecutive windows of iterations, for the adaptive stopping policy
+ *  - The best (lowest) residual of each window is compared with the previous window's, the first window is warm up
+ *  - Stalled: no improvement over two consecutive windows, or the current rate of improvement, extrapolated
+ *    geometrically, would not reach the convergence threshold within the remaining iteration budget
+ *  - Diverged: a window's best residual has grown well beyond the best seen
+ * Allocation free, O(1) per iteration.
+ */
+public class ConvergenceMonitor {
+
+    /* Window best this many times the best seen is taken as divergence */
+    static final double DIVERGENCE_FACTOR = 10;
+
+    /* # consecutive windows without improvement taken as a plateau */
+    static final int FLAT_WINDOWS = 2;
+
+    final int window;
+    final double threshold;
+
+    long budget;
+    long iterations;
+    int windows;
+    int flatWindows;
+    double windowBest;
+    double previousWindowBest;
+    double bestResidual;
+
+    public ConvergenceMonitor(int window, long budget, double threshold) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Convergence window must be at least 1");
+        }
+        this.window = window;
+        this.threshold = threshold;
+        reset(budget);
+    }
+
+    /* Start monitoring a new attempt with the given # iterations remaining */
+    public void reset(long budget) {
+        this.budget = budget;
+        this.iterations = 0;
+        this.windows = 0;
+        this.flatWindows = 0;
+        this.windowBest = Double.MAX_VALUE;
+        this.previousWindowBest = Double.MAX_VALUE;
+        this.bestResidual = Double.MAX_VALUE;
+    }
+
+    public ConvergenceTrend offer(double residual) {
+        iterations++;
+        if (residual < windowBest) {
+            windowBest = residual;
+        }
+        if (iterations % window != 0) {
+            return ConvergenceTrend.converging;
+        }
+        double best = windowBest;
+        windowBest = Double.MAX_VALUE;
+        windows++;
+
+        if (windows == 1) {
+            previousWindowBest = best;
+            bestResidual = best;
+            return ConvergenceTrend.converging;
+        }
+
+        if (best > DIVERGENCE_FACTOR * bestResidual) {
+            return ConvergenceTrend.diverged;
+        }
+
+        double improvement = 1 - best / previousWindowBest;
+        previousWindowBest = best;
+        bestResidual = Math.min(bestResidual, best);
+
+        if (improvement <= 0) {
+            flatWindows++;
+            return (flatWindows >= FLAT_WINDOWS) ? ConvergenceTrend.stalled : ConvergenceTrend.converging;
+        }
+        flatWindows = 0;
+
+        /* # windows to the threshold at the current rate, versus the windows left in the budget */
+        if (best > threshold && improvement < 1) {
+            double windowsToThreshold = Math.log(threshold / best) / Math.log(1 - improvement);
+            long remainingWindows = (budget - iterations) / window;
+            if (windowsToThreshold > remainingWindows) {
+                return ConvergenceTrend.stalled;
+            }
+        }
+        return ConvergenceTrend.converging;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    public double getBestResidual() {
+        return bestResidual;
+    }
+}
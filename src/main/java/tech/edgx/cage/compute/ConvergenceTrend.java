@@ -0,0 +1,8 @@
+package tech.edgx.cage.compute;
+
+/**
+ * Progress of a filter execution as judged by the ConvergenceMonitor
+ */
+public enum ConvergenceTrend {
+    converging,stalled,diverged
+}
@@ -0,0 +1,173 @@
+package tech.edgx.cage.compute;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs result exports (listener callback, KML output) on a dedicated thread, off the filter thread
+ *  - Coalescing: holds at most one pending export per geoId, a newer result replaces the pending one, which is dropped
+ *  - Bounded: at most capacity missions pending, when full the longest waiting export is dropped
+ *  - Exports for a geoId are run in submission order, a slow output sink only costs dropped intermediate results,
+ *    never filter iterations
+ */
+public class ExportPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportPipeline.class);
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static ExportPipeline shared;
+
+    final int capacity;
+
+    /* Pending export per geoId, in order of first submission */
+    final LinkedHashMap<String, Runnable> pending = new LinkedHashMap<String, Runnable>();
+
+    final Thread worker;
+
+    long submittedCount = 0;
+    long droppedCount = 0;
+    long exportedCount = 0;
+    boolean exporting = false;
+    boolean shutdown = false;
+
+    public ExportPipeline() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ExportPipeline(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Export pipeline capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWorker();
+            }
+        }, "cage-export");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /* Pipeline shared by processors which aren't given their own */
+    public static synchronized ExportPipeline shared() {
+        if (shared == null) {
+            shared = new ExportPipeline();
+        }
+        return shared;
+    }
+
+    /* Queue the export for the geoId, replacing any export still pending for it */
+    public void submit(String geoId, Runnable export) {
+        synchronized (pending) {
+            submittedCount++;
+            if (shutdown) {
+                droppedCount++;
+                return;
+            }
+            if (pending.containsKey(geoId)) {
+                log.trace("Coalescing export for: "+geoId);
+                droppedCount++;
+            }
+            else if (pending.size() >= capacity) {
+                Iterator<Map.Entry<String, Runnable>> eldest = pending.entrySet().iterator();
+                log.debug("Export queue full, dropping export for: "+eldest.next().getKey());
+                eldest.remove();
+                droppedCount++;
+            }
+            pending.put(geoId, export);
+            pending.notifyAll();
+        }
+    }
+
+    void runWorker() {
+        while (true) {
+            Runnable export;
+            synchronized (pending) {
+                while (pending.isEmpty() && !shutdown) {
+                    try {
+                        pending.wait();
+                    }
+                    catch (InterruptedException ie) {
+                        log.debug("Export worker interrupted");
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                Iterator<Map.Entry<String, Runnable>> eldest = pending.entrySet().iterator();
+                export = eldest.next().getValue();
+                eldest.remove();
+                exporting = true;
+            }
+            try {
+                export.run();
+            }
+            catch (Throwable t) {
+                log.error("Error exporting result", t);
+            }
+            synchronized (pending) {
+                exporting = false;
+                exportedCount++;
+                pending.notifyAll();
+            }
+        }
+    }
+
+    /* Wait until all pending exports have run, returns false on timeout */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (pending) {
+            while (!pending.isEmpty() || exporting) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                pending.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    /* Pending exports are still run, new submissions are dropped */
+    public void shutdown() {
+        synchronized (pending) {
+            shutdown = true;
+            pending.notifyAll();
+        }
+    }
+
+    public int getQueueDepth() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    public long getSubmittedCount() {
+        synchronized (pending) {
+            return submittedCount;
+        }
+    }
+
+    public long getDroppedCount() {
+        synchronized (pending) {
+            return droppedCount;
+        }
+    }
+
+    public long getExportedCount() {
+        synchronized (pending) {
+            return exportedCount;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
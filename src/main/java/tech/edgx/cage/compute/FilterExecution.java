@@ -1,13 +1,32 @@
 package tech.edgx.cage.compute;
 
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+
 import java.util.Vector;
 
 public class FilterExecution {
     public FilterExecution(Double[] latlon) {
         this.latlon = latlon;
     }
+
+    public FilterExecution(Double[] latlon, double[][] initialCovariance) {
+        this.latlon = latlon;
+        this.initialCovariance = initialCovariance;
+    }
     Double[] latlon;
 
+    /* Optional informed initial covariance, otherwise the default initial covariance is used */
+    double[][] initialCovariance;
+
+    public double[][] getInitialCovariance() {
+        return initialCovariance;
+    }
+
+    public void setInitialCovariance(double[][] initialCovariance) {
+        this.initialCovariance = initialCovariance;
+    }
+
     public Double[] getLatlon() {
         return latlon;
     }
@@ -26,4 +45,53 @@ public class FilterExecution {
     public void setFilterObservationDTOs(Vector<FilterObservationDTO> filterObservationDTOs) {
         this.filterObservationDTOs = filterObservationDTOs;
     }
+
+    /* Filter state, owned by this execution such that executions may run concurrently */
+    RealVector Xk;
+    RealMatrix Pk;
+    RealVector innov;
+    FilterKernel ekfKernel = new PrimitiveEkfKernel();
+
+    /* Set to stop this execution only, i.e. once another start has converged */
+    volatile boolean cancelled = false;
+
+    public RealVector getXk() {
+        return Xk;
+    }
+
+    public void setXk(RealVector xk) {
+        Xk = xk;
+    }
+
+    public RealMatrix getPk() {
+        return Pk;
+    }
+
+    public void setPk(RealMatrix pk) {
+        Pk = pk;
+    }
+
+    public RealVector getInnov() {
+        return innov;
+    }
+
+    public void setInnov(RealVector innov) {
+        this.innov = innov;
+    }
+
+    public FilterKernel getEkfKernel() {
+        return ekfKernel;
+    }
+
+    public void setEkfKernel(FilterKernel ekfKernel) {
+        this.ekfKernel = ekfKernel;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void cancel() {
+        this.cancelled = true;
+    }
 }
@@ -0,0 +1,42 @@
+package tech.edgx.cage.compute;
+
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+
+import java.util.Vector;
+
+/**
+ * Primitive filter kernel run by the ekf_primitive engine, one per FilterExecution
+ *  - State leads with the position estimate (x,y) [UTM m], covariance likewise
+ *  - iterate is the hot loop and must not allocate, the remaining accessors are for reporting
+ *  - predictTo/updateSequential are the time driven alternative to iterate, see TrackUpdateMode.sequential
+ */
+public interface FilterKernel {
+
+    /* Reset to the given start position, 2x2 position covariance and (2x2 or full size) process noise */
+    void initialise(double x, double y, double[][] initialCovariance, double[][] processNoise);
+
+    /* Single predict/update cycle against all observations */
+    void iterate(ObservationBuffer buffer);
+
+    /* Time update to the given time [epoch ms], process noise is per second elapsed. Never steps back in time */
+    void predictTo(long time);
+
+    /* Apply a single observation once, against the current state and covariance */
+    void updateSequential(ObservationBuffer buffer, int i);
+
+    /* A measure of residual changes the filter intends to make, in position */
+    double getResidual();
+
+    void populateFilterObservationDTOs(ObservationBuffer buffer, Vector<FilterObservationDTO> filterObservationDTOs);
+
+    RealVector getXk();
+
+    RealMatrix getPk();
+
+    RealVector getInnov();
+
+    double getX();
+
+    double getY();
+}
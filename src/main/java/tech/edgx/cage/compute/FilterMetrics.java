@@ -0,0 +1,302 @@
+package tech.edgx.cage.compute;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per mission filter metrics, for sizing deployments and alerting on missions which stop converging
+ *  - The filter only bumps an iteration counter, the innovation is sampled every SAMPLE_INTERVAL iterations of each
+ *    execution, on the execution's own iteration #, so concurrent fix executions share no sampling state
+ *  - Convergence, dispatch latency and allocation are recorded at convergence/dispatch boundaries, off the hot path
+ *  - Rates are derived on read, iterations per second is over the window since the previous rate read (at least 1s)
+ *  - Allocation is an estimate, the bytes allocated by the processor's thread between samples (requires a JVM
+ *    supporting thread allocation accounting, enabled by the host application or when the mission's metrics are
+ *    registered over JMX), concurrent fix executions on pool threads are not counted
+ */
+public class FilterMetrics implements FilterMetricsMBean {
+
+    private static final Logger log = LoggerFactory.getLogger(FilterMetrics.class);
+
+    /* Power of two, innovation is sampled once per interval */
+    static final int SAMPLE_INTERVAL = 64;
+
+    static final long RATE_WINDOW_NANOS = 1000000000L;
+
+    static final com.sun.management.ThreadMXBean allocationMXBean = allocationMXBean();
+
+    final String geoId;
+
+    final long createdNanos = System.nanoTime();
+
+    final LongAdder iterations = new LongAdder();
+    volatile double innovation = Double.NaN;
+
+    volatile int observationsInUse = 0;
+    final LongAdder expiredObservations = new LongAdder();
+
+    /* Convergence episode, started on (re)initialisation and on each observation change */
+    volatile boolean converged = false;
+    volatile long convergenceStartNanos = System.nanoTime();
+    volatile long convergenceStartIterations = 0;
+    volatile long lastConvergenceMillis = -1;
+    volatile long lastConvergenceIterations = -1;
+    final LongAdder convergenceCount = new LongAdder();
+    final LongAdder stallCount = new LongAdder();
+    final LongAdder divergenceCount = new LongAdder();
+    final LongAdder restartCount = new LongAdder();
+
+    final LatencyHistogram dispatchLatency = new LatencyHistogram();
+
+    final LongAdder allocatedBytes = new LongAdder();
+    long allocationThreadId = -1;
+    long allocationThreadBytes = 0;
+
+    /* Iteration rate window */
+    long rateWindowNanos = createdNanos;
+    long rateWindowIterations = 0;
+    double iterationsPerSecond = 0;
+
+    public FilterMetrics(String geoId) {
+        this.geoId = geoId;
+    }
+
+    static com.sun.management.ThreadMXBean allocationMXBean() {
+        try {
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()) {
+                return (com.sun.management.ThreadMXBean) threadMXBean;
+            }
+        }
+        catch (Throwable t) {
+            log.debug("Thread allocation accounting unavailable: "+t.getMessage());
+        }
+        return null;
+    }
+
+    /* JVM wide, only on opting in to JMX metrics (GeoMission.metricsJmx), otherwise left to the host application */
+    public static void enableAllocationAccounting() {
+        if (allocationMXBean != null && !allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+            try {
+                allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+            }
+            catch (Throwable t) {
+                log.debug("Thread allocation accounting unavailable: "+t.getMessage());
+            }
+        }
+    }
+
+    /* Per iteration of an execution, iteration is the execution's own iteration # */
+    public void recordIteration(long iteration, double residual) {
+        iterations.increment();
+        if ((iteration & (SAMPLE_INTERVAL - 1)) == 0) {
+            innovation = residual;
+        }
+    }
+
+    /* Batch solvers, once per solve */
+    public void recordIterations(long n, double residual) {
+        iterations.add(n);
+        innovation = residual;
+    }
+
+    public void setObservationsInUse(int observationsInUse) {
+        this.observationsInUse = observationsInUse;
+    }
+
+    /* Observations evicted on reaching the mission's observation TTL */
+    public void recordExpiredObservations(int n) {
+        expiredObservations.add(n);
+    }
+
+    /* Filter has to (re)converge, e.g. initialised or the observations changed */
+    public void startConvergence() {
+        convergenceStartNanos = System.nanoTime();
+        convergenceStartIterations = iterations.sum();
+        converged = false;
+    }
+
+    /* Filter reached its convergence (fix) or dispatch (track) threshold, recorded once per episode */
+    public void recordConvergence(double residual) {
+        if (converged) {
+            return;
+        }
+        synchronized (this) {
+            if (converged) {
+                return;
+            }
+            innovation = residual;
+            lastConvergenceMillis = (System.nanoTime() - convergenceStartNanos) / 1000000;
+            lastConvergenceIterations = iterations.sum() - convergenceStartIterations;
+            convergenceCount.increment();
+            converged = true;
+        }
+    }
+
+    /* Adaptive fix stopping, an execution stalled or diverged */
+    public void recordTrend(ConvergenceTrend trend) {
+        if (trend.equals(ConvergenceTrend.stalled)) {
+            stallCount.increment();
+        }
+        else if (trend.equals(ConvergenceTrend.diverged)) {
+            divergenceCount.increment();
+        }
+    }
+
+    /* Adaptive fix stopping, an execution was restarted from an alternative start */
+    public void recordRestart() {
+        restartCount.increment();
+    }
+
+    /* Time from dispatch of a result to its delivery to the listener, including any export queueing */
+    public void recordDispatchLatency(long nanos) {
+        dispatchLatency.record(nanos);
+    }
+
+    /* Attribute the current thread's allocation since the previous sample on the same thread to this mission */
+    public synchronized void sampleAllocation() {
+        if (allocationMXBean == null) {
+            return;
+        }
+        long threadId = Thread.currentThread().getId();
+        long bytes = allocationMXBean.getThreadAllocatedBytes(threadId);
+        if (bytes < 0) {
+            return;
+        }
+        if (threadId == allocationThreadId && bytes >= allocationThreadBytes) {
+            allocatedBytes.add(bytes - allocationThreadBytes);
+        }
+        allocationThreadId = threadId;
+        allocationThreadBytes = bytes;
+    }
+
+    /* Subsequent allocation on the current thread isn't this mission's, e.g. a scheduler worker moving on */
+    public synchronized void endAllocationSample() {
+        sampleAllocation();
+        allocationThreadId = -1;
+    }
+
+    @Override
+    public String getGeoId() {
+        return geoId;
+    }
+
+    @Override
+    public long getIterations() {
+        return iterations.sum();
+    }
+
+    @Override
+    public synchronized double getIterationsPerSecond() {
+        long now = System.nanoTime();
+        long total = iterations.sum();
+        if (now - rateWindowNanos >= RATE_WINDOW_NANOS || rateWindowIterations == 0) {
+            if (now > rateWindowNanos) {
+                iterationsPerSecond = (total - rateWindowIterations) * 1e9 / (now - rateWindowNanos);
+            }
+            rateWindowNanos = now;
+            rateWindowIterations = total;
+        }
+        return iterationsPerSecond;
+    }
+
+    @Override
+    public double getInnovation() {
+        return innovation;
+    }
+
+    @Override
+    public int getObservationsInUse() {
+        return observationsInUse;
+    }
+
+    @Override
+    public long getExpiredObservations() {
+        return expiredObservations.sum();
+    }
+
+    @Override
+    public boolean isConverged() {
+        return converged;
+    }
+
+    @Override
+    public long getConvergenceCount() {
+        return convergenceCount.sum();
+    }
+
+    /* -1 if not converged yet */
+    @Override
+    public long getLastConvergenceMillis() {
+        return lastConvergenceMillis;
+    }
+
+    @Override
+    public long getLastConvergenceIterations() {
+        return lastConvergenceIterations;
+    }
+
+    /* Time spent unconverged in the current episode, 0 once converged. A growing value flags a stuck mission */
+    @Override
+    public long getMillisSinceConvergenceStart() {
+        return converged ? 0 : (System.nanoTime() - convergenceStartNanos) / 1000000;
+    }
+
+    @Override
+    public long getStallCount() {
+        return stallCount.sum();
+    }
+
+    @Override
+    public long getDivergenceCount() {
+        return divergenceCount.sum();
+    }
+
+    @Override
+    public long getRestartCount() {
+        return restartCount.sum();
+    }
+
+    @Override
+    public long getDispatchCount() {
+        return dispatchLatency.getCount();
+    }
+
+    @Override
+    public double getDispatchLatencyMeanMicros() {
+        return dispatchLatency.getMeanMicros();
+    }
+
+    @Override
+    public long getDispatchLatencyP50Micros() {
+        return dispatchLatency.getPercentileMicros(50);
+    }
+
+    @Override
+    public long getDispatchLatencyP99Micros() {
+        return dispatchLatency.getPercentileMicros(99);
+    }
+
+    @Override
+    public long getDispatchLatencyMaxMicros() {
+        return dispatchLatency.getMaxMicros();
+    }
+
+    public LatencyHistogram getDispatchLatency() {
+        return dispatchLatency;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public double getAllocatedBytesPerIteration() {
+        long n = iterations.sum();
+        return n == 0 ? 0 : (double) allocatedBytes.sum() / n;
+    }
+}
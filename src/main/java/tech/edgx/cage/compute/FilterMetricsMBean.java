@@ -0,0 +1,49 @@
+package tech.edgx.cage.compute;
+
+/**
+ * JMX view of a mission's FilterMetrics
+ */
+public interface FilterMetricsMBean {
+
+    String getGeoId();
+
+    long getIterations();
+
+    double getIterationsPerSecond();
+
+    double getInnovation();
+
+    int getObservationsInUse();
+
+    long getExpiredObservations();
+
+    boolean isConverged();
+
+    long getConvergenceCount();
+
+    long getLastConvergenceMillis();
+
+    long getLastConvergenceIterations();
+
+    long getMillisSinceConvergenceStart();
+
+    long getStallCount();
+
+    long getDivergenceCount();
+
+    long getRestartCount();
+
+    long getDispatchCount();
+
+    double getDispatchLatencyMeanMicros();
+
+    long getDispatchLatencyP50Micros();
+
+    long getDispatchLatencyP99Micros();
+
+    long getDispatchLatencyMaxMicros();
+
+    long getAllocatedBytes();
+
+    double getAllocatedBytesPerIteration();
+}
@@ -0,0 +1,154 @@
+package tech.edgx.cage.compute;
+
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Vector;
+
+/**
+ * Batch weighted nonlinear least squares (Levenberg-Marquardt damped Gauss-Newton) fix over all observations
+ *  - Alternative to iterating the EKF for static FIX missions, typically converges in tens of iterations
+ *  - Exact jacobians and physical measurement sigmas from MeasurementModel
+ *  - Covariance is (J'WJ)^-1 at the solution, reported in the filter's covariance scale so the CEP ellipse
+ *    is derived as per the EKF result
+ */
+public class GaussNewtonSolver {
+
+    private static final Logger log = LoggerFactory.getLogger(GaussNewtonSolver.class);
+
+    /* Convert m^2 to the filter's covariance scale, i.e. units of UTM_UNIT */
+    static final double COVARIANCE_SCALE = 1/(MeasurementModel.UTM_UNIT*MeasurementModel.UTM_UNIT);
+
+    static final double INITIAL_DAMPING = 1e-3;
+    static final double MAX_DAMPING = 1e12;
+
+    /* Solution x,y [UTM] */
+    double x;
+    double y;
+
+    /* Normal matrix J'WJ at the solution */
+    double n00, n01, n11;
+
+    /* Last accepted step [m] */
+    double step0, step1;
+
+    int iterations;
+
+    public void initialise(double x, double y) {
+        this.x = x;
+        this.y = y;
+        this.step0 = 0;
+        this.step1 = 0;
+        this.iterations = 0;
+    }
+
+    /* Iterate until the step is below the convergence threshold [m], or the max iterations, or cancelled */
+    public void solve(ObservationBuffer buffer, long maxIterations, double convergenceThreshold, FilterExecution filterExecution) {
+        double lambda = INITIAL_DAMPING;
+        double[] jacobian = new double[2];
+        double cost = cost(buffer, x, y);
+
+        for (iterations=0;iterations<maxIterations;iterations++) {
+            if (filterExecution != null && filterExecution.isCancelled()) {
+                log.debug("Execution was cancelled");
+                break;
+            }
+
+            /* Normal equations J'WJ.dx = J'Wr, the residual is meas - predict so dx is the forward step */
+            double a00 = 0, a01 = 0, a11 = 0, g0 = 0, g1 = 0;
+            for (int i=0;i<buffer.size;i++) {
+                MeasurementModel.jacobian(buffer, i, x, y, jacobian);
+                double sigma = MeasurementModel.sigma(buffer, i, x, y);
+                double w = 1/(sigma*sigma);
+                double r = MeasurementModel.residual(buffer, i, x, y);
+                a00 += w*jacobian[0]*jacobian[0];
+                a01 += w*jacobian[0]*jacobian[1];
+                a11 += w*jacobian[1]*jacobian[1];
+                g0 += w*jacobian[0]*r;
+                g1 += w*jacobian[1]*r;
+            }
+            n00 = a00; n01 = a01; n11 = a11;
+
+            /* Damped step, increase damping until the cost reduces */
+            boolean accepted = false;
+            while (lambda < MAX_DAMPING) {
+                double d00 = a00*(1 + lambda); double d11 = a11*(1 + lambda);
+                double det = d00*d11 - a01*a01;
+                if (det != 0) {
+                    double dx = (d11*g0 - a01*g1)/det;
+                    double dy = (d00*g1 - a01*g0)/det;
+                    double newCost = cost(buffer, x + dx, y + dy);
+                    if (newCost <= cost) {
+                        x += dx;
+                        y += dy;
+                        cost = newCost;
+                        step0 = dx;
+                        step1 = dy;
+                        lambda = Math.max(lambda/10, 1e-12);
+                        accepted = true;
+                        break;
+                    }
+                }
+                lambda = lambda*10;
+            }
+
+            if (!accepted) {
+                log.debug("No further cost reduction, exiting. Number of iterations: "+iterations);
+                step0 = 0;
+                step1 = 0;
+                break;
+            }
+            if (getResidual() < convergenceThreshold) {
+                log.debug("Exiting since the solver has converged to threshold. Number of iterations: "+iterations);
+                break;
+            }
+        }
+    }
+
+    /* Weighted sum of squared residuals */
+    static double cost(ObservationBuffer buffer, double x, double y) {
+        double cost = 0;
+        for (int i=0;i<buffer.size;i++) {
+            double sigma = MeasurementModel.sigma(buffer, i, x, y);
+            double r = MeasurementModel.residual(buffer, i, x, y);
+            cost += r*r/(sigma*sigma);
+        }
+        return cost;
+    }
+
+    /* A measure of the residual changes the solver intends to make, as per the EKF residual */
+    public double getResidual() {
+        return Math.abs(step0) + Math.abs(step1);
+    }
+
+    /* (J'WJ)^-1, in the filter's covariance scale */
+    public double[][] getCovariance() {
+        double det = n00*n11 - n01*n01;
+        if (det <= 0) {
+            /* Unobservable, report a nominal 1 utm variance */
+            return new double[][]{{1, 0}, {0, 1}};
+        }
+        return new double[][]{{n11/det*COVARIANCE_SCALE, -n01/det*COVARIANCE_SCALE}, {-n01/det*COVARIANCE_SCALE, n00/det*COVARIANCE_SCALE}};
+    }
+
+    /* Observation utilisation at the solution, in the EKF's reporting units */
+    public void populateFilterObservationDTOs(ObservationBuffer buffer, Vector<FilterObservationDTO> filterObservationDTOs) {
+        filterObservationDTOs.removeAllElements();
+        for (int i=0;i<buffer.size;i++) {
+            filterObservationDTOs.add(new FilterObservationDTO(buffer.observations[i], MeasurementModel.predictReported(buffer, i, x, y), new ArrayRealVector(new double[]{step0, step1})));
+        }
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+}
@@ -10,6 +10,10 @@ public class GeolocationResult {
     double elp_short;
     double elp_rot;
 
+    /* Estimated velocity [m/s], constant_velocity motion model only */
+    Double vel_east;
+    Double vel_north;
+
     public double getResidual() {
         return residual;
     }
@@ -73,4 +77,20 @@ public class GeolocationResult {
     public void setProcessed_ok(Boolean processed_ok) {
         this.processed_ok = processed_ok;
     }
+
+    public Double getVel_east() {
+        return vel_east;
+    }
+
+    public void setVel_east(Double vel_east) {
+        this.vel_east = vel_east;
+    }
+
+    public Double getVel_north() {
+        return vel_north;
+    }
+
+    public void setVel_north(Double vel_north) {
+        this.vel_north = vel_north;
+    }
 }
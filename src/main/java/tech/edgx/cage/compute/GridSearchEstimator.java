@@ -0,0 +1,191 @@
+package tech.edgx.cage.compute;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.stream.IntStream;
+
+/**
+ * Coarse to fine likelihood grid search for the initial state, to seed the filter close to the best fit
+ *  - The combined range/tdoa/aoa log-likelihood (MeasurementModel) is evaluated over a coarse grid on the asset box,
+ *    widened such that every range circle lies within it
+ *  - The best local maxima of the coarse grid are each refined by finer grids about the best cell, until cells are
+ *    below RESOLUTION. The best refined cell is the estimate
+ *  - Grids are evaluated over the observation buffer's primitive arrays, tiles of rows in a parallel stream. Each
+ *    tile writes disjoint cells of a primitive grid
+ *  - Covariance is taken from the curvature of the likelihood at the estimate, bounded as per ClosedFormEstimator
+ */
+public class GridSearchEstimator {
+
+    private static final Logger log = LoggerFactory.getLogger(GridSearchEstimator.class);
+
+    /* Cells per axis of the coarse grid, and of each refinement grid */
+    static final int COARSE_CELLS = 64;
+    static final int REFINE_CELLS = 16;
+
+    /* Each refinement grid spans # cells of the previous level, about the best cell */
+    static final int REFINE_SPAN = 4;
+
+    /* # coarse local maxima refined */
+    static final int CANDIDATES = 4;
+
+    /* Refinement stops once cells are below RESOLUTION [m], or after MAX_LEVELS */
+    static final double RESOLUTION = 1;
+    static final int MAX_LEVELS = 8;
+
+    /* Finite difference step for the curvature [m] */
+    static final double CURVATURE_STEP = 10;
+
+    /* Grid rows per parallel tile */
+    static final int TILE_ROWS = 4;
+
+    /* Estimated x,y [UTM] */
+    double x;
+    double y;
+
+    /* Initial covariance, in the filter's scale */
+    double[][] covariance;
+
+    /* # likelihood evaluations */
+    int evaluations;
+
+    /* Returns null if there are no observations. Box corners [UTM x,y] as per the box initial state modes */
+    public static GridSearchEstimator estimate(ObservationBuffer buffer, Double[] lowerCorner, Double[] upperCorner) {
+        if (buffer.size() == 0) {
+            return null;
+        }
+        double minX = lowerCorner[0]; double minY = lowerCorner[1];
+        double maxX = upperCorner[0]; double maxY = upperCorner[1];
+        for (int i=0;i<buffer.tdoaStart;i++) {
+            minX = Math.min(minX, buffer.x[i] - buffer.meas[i]); maxX = Math.max(maxX, buffer.x[i] + buffer.meas[i]);
+            minY = Math.min(minY, buffer.y[i] - buffer.meas[i]); maxY = Math.max(maxY, buffer.y[i] + buffer.meas[i]);
+        }
+        /* Square cells */
+        double cell = Math.max(maxX - minX, maxY - minY) / COARSE_CELLS;
+        double originX = (minX + maxX)/2 - cell*COARSE_CELLS/2;
+        double originY = (minY + maxY)/2 - cell*COARSE_CELLS/2;
+
+        GridSearchEstimator estimate = new GridSearchEstimator();
+        double[] coarse = new double[COARSE_CELLS*COARSE_CELLS];
+        estimate.evaluate(buffer, originX, originY, cell, COARSE_CELLS, coarse);
+        int[] candidates = localMaxima(coarse, COARSE_CELLS, CANDIDATES);
+
+        double best = -Double.MAX_VALUE;
+        double[] refined = new double[REFINE_CELLS*REFINE_CELLS];
+        for (int candidate : candidates) {
+            if (candidate < 0) {
+                continue;
+            }
+            double cx = originX + (candidate % COARSE_CELLS + 0.5)*cell;
+            double cy = originY + (candidate / COARSE_CELLS + 0.5)*cell;
+            double l = coarse[candidate];
+            double size = cell;
+            for (int level=0;level<MAX_LEVELS && size > RESOLUTION;level++) {
+                double span = size*REFINE_SPAN;
+                size = span / REFINE_CELLS;
+                double ox = cx - span/2; double oy = cy - span/2;
+                estimate.evaluate(buffer, ox, oy, size, REFINE_CELLS, refined);
+                int k = localMaxima(refined, REFINE_CELLS, 1)[0];
+                if (k < 0 || refined[k] <= l) {
+                    /* Best at the previous centre, finer steps about it */
+                    continue;
+                }
+                cx = ox + (k % REFINE_CELLS + 0.5)*size;
+                cy = oy + (k / REFINE_CELLS + 0.5)*size;
+                l = refined[k];
+            }
+            log.trace("Grid search candidate: "+cx+","+cy+", log-likelihood: "+l);
+            if (l > best) {
+                best = l;
+                estimate.x = cx;
+                estimate.y = cy;
+            }
+        }
+        estimate.covariance = curvatureCovariance(buffer, estimate.x, estimate.y, CURVATURE_STEP);
+        log.debug("Grid search estimate: "+estimate.x+","+estimate.y+", log-likelihood: "+best+", # evaluations: "+estimate.evaluations+", covariance: "+estimate.covariance[0][0]+","+estimate.covariance[1][1]);
+        return estimate;
+    }
+
+    /* Log-likelihood at the centre of each cell of an n x n grid from the origin (lower corner) */
+    void evaluate(ObservationBuffer buffer, double originX, double originY, double cell, int n, double[] grid) {
+        int tiles = (n + TILE_ROWS - 1) / TILE_ROWS;
+        IntStream.range(0, tiles).parallel().forEach(tile -> {
+            for (int row=tile*TILE_ROWS;row<Math.min((tile+1)*TILE_ROWS, n);row++) {
+                double cy = originY + (row + 0.5)*cell;
+                for (int col=0;col<n;col++) {
+                    grid[row*n + col] = MeasurementModel.logLikelihood(buffer, originX + (col + 0.5)*cell, cy);
+                }
+            }
+        });
+        evaluations += n*n;
+    }
+
+    /* Indices of the (up to) count highest cells no lower than their neighbours, by descending value. Unfilled are -1 */
+    static int[] localMaxima(double[] grid, int n, int count) {
+        int[] maxima = new int[count];
+        for (int k=0;k<count;k++) {
+            maxima[k] = -1;
+        }
+        for (int row=0;row<n;row++) {
+            for (int col=0;col<n;col++) {
+                double value = grid[row*n + col];
+                if (Double.isNaN(value) || !isLocalMaximum(grid, n, row, col)) {
+                    continue;
+                }
+                /* Insert in descending order */
+                int k = count;
+                while (k > 0 && (maxima[k-1] < 0 || grid[maxima[k-1]] < value)) {
+                    k--;
+                }
+                if (k < count) {
+                    System.arraycopy(maxima, k, maxima, k+1, count-k-1);
+                    maxima[k] = row*n + col;
+                }
+            }
+        }
+        return maxima;
+    }
+
+    static boolean isLocalMaximum(double[] grid, int n, int row, int col) {
+        double value = grid[row*n + col];
+        for (int r=Math.max(row-1, 0);r<=Math.min(row+1, n-1);r++) {
+            for (int c=Math.max(col-1, 0);c<=Math.min(col+1, n-1);c++) {
+                if (grid[r*n + c] > value) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /* Inverse of the log-likelihood's curvature by central differences, in the filter's covariance scale */
+    static double[][] curvatureCovariance(ObservationBuffer buffer, double x, double y, double h) {
+        double l = MeasurementModel.logLikelihood(buffer, x, y);
+        double fxx = -(MeasurementModel.logLikelihood(buffer, x+h, y) - 2*l + MeasurementModel.logLikelihood(buffer, x-h, y))/(h*h);
+        double fyy = -(MeasurementModel.logLikelihood(buffer, x, y+h) - 2*l + MeasurementModel.logLikelihood(buffer, x, y-h))/(h*h);
+        double fxy = -(MeasurementModel.logLikelihood(buffer, x+h, y+h) - MeasurementModel.logLikelihood(buffer, x+h, y-h)
+                - MeasurementModel.logLikelihood(buffer, x-h, y+h) + MeasurementModel.logLikelihood(buffer, x-h, y-h))/(4*h*h);
+        double det = fxx*fyy - fxy*fxy;
+        if (!(fxx > 0) || !(det > 0)) {
+            return new double[][]{{ClosedFormEstimator.MAX_INITIAL_COVARIANCE, 0}, {0, ClosedFormEstimator.MAX_INITIAL_COVARIANCE}};
+        }
+        double scale = ClosedFormEstimator.COVARIANCE_SCALE/det;
+        return ClosedFormEstimator.boundCovariance(new double[][]{{fyy*scale, -fxy*scale}, {-fxy*scale, fxx*scale}});
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double[][] getCovariance() {
+        return covariance;
+    }
+
+    public int getEvaluations() {
+        return evaluations;
+    }
+}
@@ -0,0 +1,77 @@
+package tech.edgx.cage.compute;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed power of two bucket latency histogram, in microseconds
+ *  - Bucket 0 holds < 1us, bucket i holds [2^(i-1), 2^i) us, the last bucket holds everything above
+ *  - Lock free, recording is a couple of atomic adds, percentiles are reported as the upper bound of their bucket
+ */
+public class LatencyHistogram {
+
+    public static final int NUM_BUCKETS = 32;
+
+    final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    final AtomicLong count = new AtomicLong();
+    final AtomicLong totalMicros = new AtomicLong();
+    final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        buckets.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    static int bucketOf(long micros) {
+        return Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /* Exclusive upper bound of the bucket [us] */
+    static long upperBoundOf(int bucket) {
+        return 1L << bucket;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double getMeanMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) totalMicros.get() / n;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /* Upper bound [us] of the bucket holding the given percentile [0,100], 0 if nothing recorded */
+    public long getPercentileMicros(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * n);
+        long seen = 0;
+        for (int i=0;i<NUM_BUCKETS;i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return Math.min(upperBoundOf(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    public long[] getBucketCounts() {
+        long[] counts = new long[NUM_BUCKETS];
+        for (int i=0;i<NUM_BUCKETS;i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+}
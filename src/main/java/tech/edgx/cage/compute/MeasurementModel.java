@@ -0,0 +1,115 @@
+package tech.edgx.cage.compute;
+
+import tech.edgx.cage.util.Helpers;
+
+/**
+ * Exact measurement functions and jacobians for a 2D position (x,y) [UTM m] against an ObservationBuffer entry,
+ * for the solvers which don't share the EKF's linearisation
+ *  - Working units: range [m], tdoa [m] (range difference, meas*c), aoa [radians] (atan2 convention, asset to target)
+ *  - Measurement errors are configured in 'utm' units (see application.properties), taken as 1 utm = UTM_UNIT [m],
+ *    the same scale used to convert covariance to the CEP ellipse. AOA error is taken as a cross-range error at the
+ *    current range.
+ */
+public class MeasurementModel {
+
+    /* Metres per configured 'utm' error unit */
+    public static final double UTM_UNIT = 10000;
+
+    /* Predicted measurement, working units */
+    public static double predict(ObservationBuffer buffer, int i, double x, double y) {
+        double dx = x - buffer.x[i]; double dy = y - buffer.y[i];
+        if (i < buffer.tdoaStart) {
+            return Math.sqrt(dx*dx + dy*dy);
+        }
+        else if (i < buffer.aoaStart) {
+            double dx2 = x - buffer.xb[i]; double dy2 = y - buffer.yb[i];
+            return Math.sqrt(dx*dx + dy*dy) - Math.sqrt(dx2*dx2 + dy2*dy2);
+        }
+        else {
+            return Math.atan2(dy, dx);
+        }
+    }
+
+    /* Observed measurement, working units */
+    public static double measurement(ObservationBuffer buffer, int i) {
+        if (i >= buffer.tdoaStart && i < buffer.aoaStart) {
+            return buffer.meas[i] * Helpers.SPEED_OF_LIGHT;
+        }
+        return buffer.meas[i];
+    }
+
+    /* Measurement less prediction, aoa wrapped to [-pi,pi] */
+    public static double residual(ObservationBuffer buffer, int i, double x, double y) {
+        double r = measurement(buffer, i) - predict(buffer, i, x, y);
+        if (i >= buffer.aoaStart) {
+            r = wrapAngle(r);
+        }
+        return r;
+    }
+
+    /* d(predict)/dx, d(predict)/dy into jacobian[0..1] */
+    public static void jacobian(ObservationBuffer buffer, int i, double x, double y, double[] jacobian) {
+        double dx = x - buffer.x[i]; double dy = y - buffer.y[i];
+        double R1 = Math.max(Math.sqrt(dx*dx + dy*dy), 1e-9);
+        if (i < buffer.tdoaStart) {
+            jacobian[0] = dx/R1;
+            jacobian[1] = dy/R1;
+        }
+        else if (i < buffer.aoaStart) {
+            double dx2 = x - buffer.xb[i]; double dy2 = y - buffer.yb[i];
+            double R2 = Math.max(Math.sqrt(dx2*dx2 + dy2*dy2), 1e-9);
+            jacobian[0] = dx/R1 - dx2/R2;
+            jacobian[1] = dy/R1 - dy2/R2;
+        }
+        else {
+            jacobian[0] = -dy/(R1*R1);
+            jacobian[1] = dx/(R1*R1);
+        }
+    }
+
+    /* Measurement standard deviation, working units */
+    public static double sigma(ObservationBuffer buffer, int i, double x, double y) {
+        double sigma = buffer.meas_error[i] * UTM_UNIT;
+        if (i >= buffer.aoaStart) {
+            double dx = x - buffer.x[i]; double dy = y - buffer.y[i];
+            return Math.atan2(sigma, Math.max(Math.sqrt(dx*dx + dy*dy), 1));
+        }
+        return sigma;
+    }
+
+    /*
+     * Gaussian log-likelihood of all observations at (x,y), less its normalising term. The aoa cross-range sigma
+     * varies with range, its normalising term would otherwise favour positions further from the asset
+     */
+    public static double logLikelihood(ObservationBuffer buffer, double x, double y) {
+        double l = 0;
+        for (int i=0;i<buffer.size;i++) {
+            double sigma = sigma(buffer, i, x, y);
+            double r = residual(buffer, i, x, y);
+            l -= 0.5*r*r/(sigma*sigma);
+        }
+        return l;
+    }
+
+    /* Prediction in the EKF's reporting units, i.e. aoa in degrees [0,360), for FilterObservationDTO */
+    public static double predictReported(ObservationBuffer buffer, int i, double x, double y) {
+        double f = predict(buffer, i, x, y);
+        if (i >= buffer.aoaStart) {
+            f = f*180/Math.PI;
+            if (f < 0) {
+                f = f + 360;
+            }
+        }
+        return f;
+    }
+
+    public static double wrapAngle(double angle) {
+        while (angle > Math.PI) {
+            angle -= 2*Math.PI;
+        }
+        while (angle < -Math.PI) {
+            angle += 2*Math.PI;
+        }
+        return angle;
+    }
+}
@@ -0,0 +1,137 @@
+package tech.edgx.cage.compute;
+
+import tech.edgx.cage.model.Observation;
+import tech.edgx.cage.model.ObservationType;
+
+import java.util.Collection;
+
+/**
+ * Packed structure-of-arrays snapshot of the observations used by the filter hot loop
+ *  - Observations are grouped by type in contiguous blocks: range [0,tdoaStart), tdoa [tdoaStart,aoaStart), aoa [aoaStart,size)
+ *  - AOA remains last, as required for the 360-0 conundrum fix
+ *  - Immutable once compiled, recompile when the observation set changes
+ */
+public class ObservationBuffer {
+
+    public static final ObservationBuffer EMPTY = compile(new Observation[0]);
+
+    /* Source observations in buffer order, retained for reporting only */
+    final Observation[] observations;
+
+    /* Asset UTM Easting, Northing */
+    final double[] x;
+    final double[] y;
+
+    /* Second asset UTM Easting, Northing - TDOA block only */
+    final double[] xb;
+    final double[] yb;
+
+    /* Measurement as per Observation.meas, i.e. range [m], tdoa [s], aoa [radians] */
+    final double[] meas;
+    final double[] meas_error;
+
+    /* Measurement time [epoch ms], observations without a time are taken as at the latest time */
+    final long[] time;
+    long latestTime = 0;
+
+    final int tdoaStart;
+    final int aoaStart;
+    final int size;
+
+    private ObservationBuffer(int size, int tdoaStart, int aoaStart) {
+        this.size = size;
+        this.tdoaStart = tdoaStart;
+        this.aoaStart = aoaStart;
+        this.observations = new Observation[size];
+        this.x = new double[size];
+        this.y = new double[size];
+        this.xb = new double[size];
+        this.yb = new double[size];
+        this.meas = new double[size];
+        this.meas_error = new double[size];
+        this.time = new long[size];
+    }
+
+    public static ObservationBuffer compile(Collection<Observation> observations) {
+        return compile(observations.toArray(new Observation[0]));
+    }
+
+    /* Bucket observations by type, preserving order within each type */
+    public static ObservationBuffer compile(Observation[] observations) {
+        int numRange = 0; int numTdoa = 0;
+        for (Observation obs : observations) {
+            if (obs.getObservationType() == ObservationType.range) {
+                numRange++;
+            }
+            else if (obs.getObservationType() == ObservationType.tdoa) {
+                numTdoa++;
+            }
+        }
+        ObservationBuffer buffer = new ObservationBuffer(observations.length, numRange, numRange + numTdoa);
+        int rangeIndex = 0; int tdoaIndex = buffer.tdoaStart; int aoaIndex = buffer.aoaStart;
+        for (Observation obs : observations) {
+            if (obs.getObservationType() == ObservationType.range) {
+                buffer.put(rangeIndex++, obs);
+            }
+            else if (obs.getObservationType() == ObservationType.tdoa) {
+                buffer.put(tdoaIndex++, obs);
+            }
+            else {
+                buffer.put(aoaIndex++, obs);
+            }
+        }
+        buffer.resolveTimes();
+        return buffer;
+    }
+
+    private void put(int i, Observation obs) {
+        observations[i] = obs;
+        x[i] = obs.getX();
+        y[i] = obs.getY();
+        xb[i] = obs.getXb();
+        yb[i] = obs.getYb();
+        meas[i] = obs.getMeas();
+        meas_error[i] = obs.getMeas_error();
+        time[i] = (obs.getTime() != null) ? obs.getTime() : (obs.getTime_received() != null) ? obs.getTime_received() : Long.MIN_VALUE;
+    }
+
+    private void resolveTimes() {
+        boolean timed = false;
+        for (int i=0;i<size;i++) {
+            if (time[i] != Long.MIN_VALUE && (!timed || time[i] > latestTime)) {
+                latestTime = time[i];
+                timed = true;
+            }
+        }
+        for (int i=0;i<size;i++) {
+            if (time[i] == Long.MIN_VALUE) {
+                time[i] = latestTime;
+            }
+        }
+    }
+
+    public Observation getObservation(int i) {
+        return observations[i];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getTdoaStart() {
+        return tdoaStart;
+    }
+
+    public int getAoaStart() {
+        return aoaStart;
+    }
+
+    public long getTime(int i) {
+        return time[i];
+    }
+
+    /* Latest measurement time [epoch ms], 0 if no observation has a time */
+    public long getLatestTime() {
+        return latestTime;
+    }
+}
@@ -0,0 +1,56 @@
+package tech.edgx.cage.compute;
+
+import tech.edgx.cage.model.Observation;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable, versioned view of a mission's observations as published to the ComputeProcessor
+ *  - Built by the publisher once per adopted change, coalescing a burst of changes, bucketed by type in filter order
+ *    (AOA last) in O(n), no sort
+ *  - The filter adopts a newer snapshot between iterations by reference, nothing is copied or re-sorted on its thread
+ */
+public class ObservationSnapshot {
+
+    public static final ObservationSnapshot EMPTY = new ObservationSnapshot(0, ObservationBuffer.EMPTY);
+
+    final long version;
+
+    /* Observations in buffer order, unmodifiable */
+    final Map<Long, Observation> observations;
+
+    final ObservationBuffer buffer;
+
+    private ObservationSnapshot(long version, ObservationBuffer buffer) {
+        this.version = version;
+        this.buffer = buffer;
+        Map<Long, Observation> ordered = new LinkedHashMap<Long, Observation>(buffer.size * 2);
+        for (int i=0;i<buffer.size;i++) {
+            ordered.put(buffer.observations[i].getId(), buffer.observations[i]);
+        }
+        this.observations = Collections.unmodifiableMap(ordered);
+    }
+
+    public static ObservationSnapshot of(long version, Collection<Observation> observations) {
+        return new ObservationSnapshot(version, ObservationBuffer.compile(observations));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<Long, Observation> getObservations() {
+        return observations;
+    }
+
+    public ObservationBuffer getBuffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return buffer.size;
+    }
+}
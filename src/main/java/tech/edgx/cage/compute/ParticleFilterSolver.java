@@ -0,0 +1,436 @@
+package tech.edgx.cage.compute;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Particle filter fix over all observations, representing the whole (possibly multimodal) posterior in one pass
+ *  - Alternative to restarting the EKF from several initial states (box_all_out) to resolve ambiguous geometries,
+ *    e.g. mirror TDOA solutions or AOA bearings near the 0/360 wrap
+ *  - Particles start uniformly over the asset box, widened by half its extent or the furthest range. The likelihood is
+ *    introduced progressively (tempering), each step as large as keeps most particles effective, followed by
+ *    systematic resampling and metropolis moves at the new temperature, shaped by the particle covariance
+ *  - Log-likelihoods are computed over primitive particle arrays, split in chunks over the common ForkJoin pool
+ *  - Modes are found by clustering about the most likely remaining particle. Each is polished by a Gauss-Newton solve
+ *    from its mean, such that precision doesn't depend on the particle count, and those polishing onto the same
+ *    solution merged
+ *  - Seeded, the result is reproducible for a given observation set
+ */
+public class ParticleFilterSolver {
+
+    private static final Logger log = LoggerFactory.getLogger(ParticleFilterSolver.class);
+
+    static final long SEED = 1;
+
+    /* Minimum margin around the assets [m] */
+    static final double MIN_MARGIN = 5000;
+
+    /* Tempering steps keep at least this fraction of the particles effective */
+    static final double MIN_EFFECTIVE_FRACTION = 0.8;
+
+    /* # particles per forked likelihood task */
+    static final int CHUNK_SIZE = 512;
+
+    /* Metropolis moves per round, and the proposal scale on the particle covariance (2.38/sqrt(d), d = 2) */
+    static final int MOVES = 3;
+    static final double MOVE_SCALE = 1.68;
+
+    /* Modes reported: at most MAX_MODES, each with at least MIN_MODE_SHARE of the particles */
+    static final int MAX_MODES = 4;
+    static final double MIN_MODE_SHARE = 0.05;
+
+    /* Clusters polished into modes, each with at least MIN_CLUSTER_SHARE of the particles */
+    static final double MIN_CLUSTER_SHARE = 0.01;
+
+    /* Cluster radius, # standard deviations of the cluster's particles. Polished modes within # standard deviations of each other are merged */
+    static final double MODE_RADIUS = 3;
+
+    final int count;
+    final double[] px;
+    final double[] py;
+    final double[] logLikelihood;
+    final double[] weight;
+
+    /* Resampling and move proposal working memory */
+    final double[] rx;
+    final double[] ry;
+    final double[] rl;
+    final double[] acceptance;
+    final boolean[] moved;
+    double temperature;
+
+    final Random random = new Random(SEED);
+
+    /* Tempering steps taken */
+    int rounds;
+
+    public ParticleFilterSolver(int count) {
+        this.count = count;
+        this.px = new double[count];
+        this.py = new double[count];
+        this.logLikelihood = new double[count];
+        this.weight = new double[count];
+        this.rx = new double[count];
+        this.ry = new double[count];
+        this.rl = new double[count];
+        this.acceptance = new double[count];
+        this.moved = new boolean[count];
+    }
+
+    /* A mode of the posterior, position [UTM m] and share of the particles, with the batch solve polishing it */
+    public static class Mode {
+        double x;
+        double y;
+        double share;
+        GaussNewtonSolver solver;
+
+        Mode(double x, double y, double share) {
+            this.x = x;
+            this.y = y;
+            this.share = share;
+        }
+
+        public GaussNewtonSolver getSolver() {
+            return solver;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        public double getShare() {
+            return share;
+        }
+    }
+
+    /* Uniform particles over the asset box, widened by half its extent or the furthest range measurement */
+    public void initialise(ObservationBuffer buffer) {
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        double margin = MIN_MARGIN;
+        for (int i=0;i<buffer.size;i++) {
+            minX = Math.min(minX, buffer.x[i]); maxX = Math.max(maxX, buffer.x[i]);
+            minY = Math.min(minY, buffer.y[i]); maxY = Math.max(maxY, buffer.y[i]);
+            if (i >= buffer.tdoaStart && i < buffer.aoaStart) {
+                minX = Math.min(minX, buffer.xb[i]); maxX = Math.max(maxX, buffer.xb[i]);
+                minY = Math.min(minY, buffer.yb[i]); maxY = Math.max(maxY, buffer.yb[i]);
+            }
+            if (i < buffer.tdoaStart) {
+                margin = Math.max(margin, buffer.meas[i]);
+            }
+        }
+        margin = Math.max(margin, Math.max(maxX - minX, maxY - minY)/2);
+        minX -= margin; maxX += margin;
+        minY -= margin; maxY += margin;
+        log.debug("Particle region: ["+minX+","+minY+"] -> ["+maxX+","+maxY+"], # particles: "+count);
+
+        for (int p=0;p<count;p++) {
+            px[p] = minX + random.nextDouble()*(maxX - minX);
+            py[p] = minY + random.nextDouble()*(maxY - minY);
+        }
+        rounds = 0;
+    }
+
+    /* Temper in the likelihood until it is fully applied, or the max # rounds, or cancelled */
+    public void solve(ObservationBuffer buffer, long maxRounds, FilterExecution filterExecution) {
+        double temperature = 0;
+        ForkJoinPool.commonPool().invoke(new LikelihoodTask(buffer, 0, count, true));
+        while (temperature < 1 && rounds < maxRounds) {
+            if (filterExecution != null && filterExecution.isCancelled()) {
+                log.debug("Execution was cancelled");
+                break;
+            }
+            double step = findTemperingStep(1 - temperature);
+            temperature = (step == 1 - temperature) ? 1 : temperature + step;
+            resample();
+            int accepted = 0;
+            for (int m=0;m<MOVES;m++) {
+                accepted += move(buffer, temperature);
+            }
+            rounds++;
+            log.trace("Particle round: "+rounds+", temperature: "+temperature+", acceptance: "+(double) accepted/(MOVES*count));
+        }
+        log.debug("Particle filter finished, # rounds: "+rounds+", temperature: "+temperature);
+    }
+
+    /* Largest step (at most the remaining) keeping the effective sample size above MIN_EFFECTIVE_FRACTION, by bisection */
+    double findTemperingStep(double remaining) {
+        if (effectiveSampleSize(remaining) >= MIN_EFFECTIVE_FRACTION*count) {
+            return remaining;
+        }
+        double low = 0; double high = remaining;
+        for (int k=0;k<50;k++) {
+            double mid = (low + high)/2;
+            if (effectiveSampleSize(mid) >= MIN_EFFECTIVE_FRACTION*count) {
+                low = mid;
+            }
+            else {
+                high = mid;
+            }
+        }
+        double step = Math.max(low, remaining*1e-6);
+        effectiveSampleSize(step);
+        return step;
+    }
+
+    /* Normalised weights for the step, exp(step.logLikelihood), returns the effective sample size */
+    double effectiveSampleSize(double step) {
+        double max = -Double.MAX_VALUE;
+        for (int p=0;p<count;p++) {
+            max = Math.max(max, logLikelihood[p]);
+        }
+        double sum = 0;
+        for (int p=0;p<count;p++) {
+            weight[p] = Math.exp(step*(logLikelihood[p] - max));
+            sum += weight[p];
+        }
+        double sumSq = 0;
+        for (int p=0;p<count;p++) {
+            weight[p] /= sum;
+            sumSq += weight[p]*weight[p];
+        }
+        return 1/sumSq;
+    }
+
+    /* Systematic resampling on the current weights, a single uniform draw */
+    void resample() {
+        double u = random.nextDouble()/count;
+        double cumulative = weight[0];
+        int j = 0;
+        for (int p=0;p<count;p++) {
+            double target = u + (double) p/count;
+            while (target > cumulative && j < count-1) {
+                j++;
+                cumulative += weight[j];
+            }
+            rx[p] = px[j];
+            ry[p] = py[j];
+            rl[p] = logLikelihood[j];
+        }
+        System.arraycopy(rx, 0, px, 0, count);
+        System.arraycopy(ry, 0, py, 0, count);
+        System.arraycopy(rl, 0, logLikelihood, 0, count);
+    }
+
+    /*
+     * Metropolis random walk move of each particle, targeting the tempered posterior such that resampled duplicates
+     * spread out without leaving it. Gaussian proposal shaped by the particle covariance, scaled by MOVE_SCALE.
+     * Draws are made up front, such that the forked evaluation is reproducible. Returns the # accepted
+     */
+    int move(ObservationBuffer buffer, double temperature) {
+        double meanX = 0, meanY = 0;
+        for (int p=0;p<count;p++) {
+            meanX += px[p];
+            meanY += py[p];
+        }
+        meanX /= count; meanY /= count;
+        double cxx = 0, cxy = 0, cyy = 0;
+        for (int p=0;p<count;p++) {
+            double dx = px[p] - meanX; double dy = py[p] - meanY;
+            cxx += dx*dx; cxy += dx*dy; cyy += dy*dy;
+        }
+        /* Closed form 2x2 cholesky of the scaled covariance */
+        double scale = MOVE_SCALE*MOVE_SCALE/count;
+        double l00 = Math.sqrt(Math.max(cxx*scale, 0));
+        double l10 = l00 > 0 ? cxy*scale/l00 : 0;
+        double l11 = Math.sqrt(Math.max(cyy*scale - l10*l10, 0));
+        for (int p=0;p<count;p++) {
+            double n0 = random.nextGaussian(); double n1 = random.nextGaussian();
+            rx[p] = px[p] + l00*n0;
+            ry[p] = py[p] + l10*n0 + l11*n1;
+            acceptance[p] = Math.log(random.nextDouble());
+        }
+        this.temperature = temperature;
+        ForkJoinPool.commonPool().invoke(new LikelihoodTask(buffer, 0, count, false));
+        int accepted = 0;
+        for (int p=0;p<count;p++) {
+            if (moved[p]) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    /* Particles [from,to): initial log-likelihoods, or accept/reject the proposed moves at the current temperature */
+    void evaluate(ObservationBuffer buffer, int from, int to, boolean initial) {
+        for (int p=from;p<to;p++) {
+            if (initial) {
+                logLikelihood[p] = MeasurementModel.logLikelihood(buffer, px[p], py[p]);
+                continue;
+            }
+            double proposed = MeasurementModel.logLikelihood(buffer, rx[p], ry[p]);
+            moved[p] = temperature*(proposed - logLikelihood[p]) >= acceptance[p];
+            if (moved[p]) {
+                px[p] = rx[p];
+                py[p] = ry[p];
+                logLikelihood[p] = proposed;
+            }
+        }
+    }
+
+    /* Evaluation over particles [from,to), forked in halves down to the chunk size. Chunks write disjoint particles */
+    class LikelihoodTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final ObservationBuffer buffer;
+        final int from, to;
+        final boolean initial;
+
+        LikelihoodTask(ObservationBuffer buffer, int from, int to, boolean initial) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.initial = initial;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                evaluate(buffer, from, to, initial);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new LikelihoodTask(buffer, from, mid, initial), new LikelihoodTask(buffer, mid, to, initial));
+        }
+    }
+
+    /*
+     * Modes of the final particles, by descending share. Clusters are polished by a batch solve from their mean, those
+     * polishing onto the same solution merged, such that elongated modes split over several clusters are rejoined
+     */
+    public List<Mode> findModes(ObservationBuffer buffer, long maxIterations, double convergenceThreshold, FilterExecution filterExecution) {
+        List<Mode> modes = new ArrayList<Mode>();
+        for (Mode cluster : findClusters()) {
+            cluster.solver = new GaussNewtonSolver();
+            cluster.solver.initialise(cluster.x, cluster.y);
+            cluster.solver.solve(buffer, maxIterations, convergenceThreshold, filterExecution);
+            Mode duplicate = null;
+            for (Mode mode : modes) {
+                if (distance(mode.solver, cluster.solver) <= MODE_RADIUS*Math.max(deviation(mode.solver), deviation(cluster.solver))) {
+                    duplicate = mode;
+                    break;
+                }
+            }
+            log.debug("Particle cluster: ["+cluster.x+","+cluster.y+"], share: "+cluster.share+", polished: ["+cluster.solver.getX()+","+cluster.solver.getY()+"]"+(duplicate != null ? ", duplicate" : ""));
+            if (duplicate != null) {
+                duplicate.share += cluster.share;
+            }
+            else {
+                cluster.x = cluster.solver.getX();
+                cluster.y = cluster.solver.getY();
+                modes.add(cluster);
+            }
+        }
+        Collections.sort(modes, (m1, m2) -> Double.compare(m2.share, m1.share));
+        List<Mode> reported = new ArrayList<Mode>();
+        for (Mode mode : modes) {
+            if (reported.size() < MAX_MODES && mode.share >= MIN_MODE_SHARE) {
+                reported.add(mode);
+            }
+        }
+        return reported;
+    }
+
+    static double distance(GaussNewtonSolver s1, GaussNewtonSolver s2) {
+        return Math.sqrt(Math.pow(s1.getX()-s2.getX(),2) + Math.pow(s1.getY()-s2.getY(),2));
+    }
+
+    /* Largest standard deviation of the solve [m], at least a metre */
+    static double deviation(GaussNewtonSolver solver) {
+        double[][] covariance = solver.getCovariance();
+        return Math.max(1, Math.sqrt(Math.max(covariance[0][0], covariance[1][1]))*MeasurementModel.UTM_UNIT);
+    }
+
+    /*
+     * Clusters of the final particles, by descending share. Each is clustered about the most likely unassigned
+     * particle, starting from the spread of its nearest neighbours, re-centred on the cluster mean with the radius
+     * narrowed to MODE_RADIUS standard deviations of the cluster
+     */
+    List<Mode> findClusters() {
+        boolean[] assigned = new boolean[count];
+        int unassigned = count;
+        List<Mode> clusters = new ArrayList<Mode>();
+        while (unassigned >= MIN_CLUSTER_SHARE*count) {
+            int seed = -1;
+            for (int p=0;p<count;p++) {
+                if (!assigned[p] && (seed < 0 || logLikelihood[p] > logLikelihood[seed])) {
+                    seed = p;
+                }
+            }
+            double cx = px[seed]; double cy = py[seed];
+            double radius = MODE_RADIUS*nearestSpread(seed, assigned);
+            for (int k=0;k<3;k++) {
+                double sumX = 0, sumY = 0, sumSq = 0;
+                int members = 0;
+                for (int p=0;p<count;p++) {
+                    double dx = px[p] - cx; double dy = py[p] - cy;
+                    if (!assigned[p] && dx*dx + dy*dy <= radius*radius) {
+                        sumX += dx;
+                        sumY += dy;
+                        sumSq += dx*dx + dy*dy;
+                        members++;
+                    }
+                }
+                double meanX = sumX/members; double meanY = sumY/members;
+                double spread = Math.sqrt(Math.max(sumSq/members - meanX*meanX - meanY*meanY, 0)/2);
+                cx += meanX;
+                cy += meanY;
+                radius = Math.max(MODE_RADIUS*spread, Double.MIN_NORMAL);
+            }
+            int members = 0;
+            for (int p=0;p<count;p++) {
+                double dx = px[p] - cx; double dy = py[p] - cy;
+                if (!assigned[p] && dx*dx + dy*dy <= radius*radius) {
+                    assigned[p] = true;
+                    members++;
+                }
+            }
+            /* A degenerate cluster takes its seed, such that the search always progresses */
+            if (members == 0) {
+                assigned[seed] = true;
+                members = 1;
+            }
+            unassigned -= members;
+            double share = (double) members/count;
+            if (share >= MIN_CLUSTER_SHARE) {
+                clusters.add(new Mode(cx, cy, share));
+            }
+        }
+        Collections.sort(clusters, (m1, m2) -> Double.compare(m2.share, m1.share));
+        return clusters;
+    }
+
+    /* RMS distance (per axis) of the unassigned particles nearest the seed, the closest MIN_CLUSTER_SHARE of them */
+    double nearestSpread(int seed, boolean[] assigned) {
+        double[] distances = new double[count];
+        int n = 0;
+        for (int p=0;p<count;p++) {
+            if (!assigned[p]) {
+                double dx = px[p] - px[seed]; double dy = py[p] - py[seed];
+                distances[n++] = dx*dx + dy*dy;
+            }
+        }
+        Arrays.sort(distances, 0, n);
+        int nearest = Math.max(1, Math.min((int) (MIN_CLUSTER_SHARE*count), n));
+        double sumSq = 0;
+        for (int k=0;k<nearest;k++) {
+            sumSq += distances[k];
+        }
+        return Math.sqrt(sumSq/nearest/2);
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+}
@@ -0,0 +1,373 @@
+package tech.edgx.cage.compute;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.edgx.cage.util.Helpers;
+
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Extended Kalman Filter kernel for the 2 state (x,y) model on primitive fields
+ *  - Same filter equations as the commons-math path in ComputeProcessor.runFilterIteration
+ *  - Closed form 2x2 covariance update, scalar innovation variance instead of a 1x1 LU inverse
+ *  - No allocation per iteration, per observation working memory is reused until the observation set grows
+ *  - Iterates the ObservationBuffer type blocks by index, no per observation type dispatch
+ *  - Information form update (MeasurementUpdate.information) sums H'.R^-1.H and H'.R^-1.r over the observations,
+ *    an associative reduction which is split over the common ForkJoin pool for large observation sets, then solved
+ *    as a single 2x2 system. Allocates per iteration only when split
+ */
+public class PrimitiveEkfKernel implements FilterKernel {
+
+    private static final Logger log = LoggerFactory.getLogger(PrimitiveEkfKernel.class);
+
+    /* State estimate: UTM easting, northing */
+    double xk;
+    double yk;
+
+    /* State covariance */
+    double p00, p01, p10, p11;
+
+    /* Process noise */
+    double q00, q01, q10, q11;
+
+    /* Epoch of the state [epoch ms], sequential updates only */
+    long epoch;
+    boolean epochSet = false;
+
+    /* Summed state innovation from the latest iteration */
+    double innov0, innov1;
+
+    /* Iteration accumulators */
+    double sumInnov0, sumInnov1;
+    double pInnov00, pInnov01, pInnov10, pInnov11;
+
+    /* Information form update, split over the common ForkJoin pool from the given # observations */
+    boolean informationUpdate = false;
+    int parallelThreshold = Integer.MAX_VALUE;
+
+    /* Per observation innovations of the latest update are information (H'.R^-1.r) rather than state innovations */
+    boolean informationInnovations = false;
+
+    /* Information accumulator: H'.R^-1.H (i00, i01, i11) and H'.R^-1.r (b0, b1) */
+    static final int INFORMATION_SIZE = 5;
+    final double[] informationSum = new double[INFORMATION_SIZE];
+
+    /* Minimum # observations per forked reduction task */
+    static final int MIN_REDUCTION_BLOCK = 256;
+
+    /* Per observation estimate and innovation from the latest iteration, indexed as per the observation buffer */
+    double[] f_est = new double[0];
+    double[] obs_innov0 = new double[0];
+    double[] obs_innov1 = new double[0];
+    int observationCount;
+
+    public void initialise(double x, double y, double initialCovariance, double[][] processNoise) {
+        initialise(x, y, new double[][]{{initialCovariance, 0}, {0, initialCovariance}}, processNoise);
+    }
+
+    @Override
+    public void initialise(double x, double y, double[][] initialCovariance, double[][] processNoise) {
+        this.xk = x;
+        this.yk = y;
+        this.p00 = initialCovariance[0][0]; this.p01 = initialCovariance[0][1];
+        this.p10 = initialCovariance[1][0]; this.p11 = initialCovariance[1][1];
+        this.q00 = processNoise[0][0]; this.q01 = processNoise[0][1];
+        this.q10 = processNoise[1][0]; this.q11 = processNoise[1][1];
+        this.innov0 = 0;
+        this.innov1 = 0;
+        this.epochSet = false;
+    }
+
+    /* Single predict/update cycle against all observations, type blocks are processed range, tdoa then aoa (AOA last) */
+    @Override
+    public void iterate(ObservationBuffer buffer) {
+        int count = buffer.size;
+        ensureCapacity(count);
+
+        /* Predict: Thi is identity, B is zero */
+        p00 += q00; p01 += q01;
+        p10 += q10; p11 += q11;
+
+        if (informationUpdate) {
+            correctInformation(buffer, count);
+        }
+        else {
+            correct(buffer, 0, count);
+        }
+        observationCount = count;
+    }
+
+    /* Process noise per second elapsed, the state is unchanged. Never steps back in time */
+    @Override
+    public void predictTo(long time) {
+        if (!epochSet) {
+            epoch = time;
+            epochSet = true;
+            return;
+        }
+        if (time <= epoch) {
+            return;
+        }
+        double dt = (time - epoch) / 1000.0;
+        p00 += q00*dt; p01 += q01*dt;
+        p10 += q10*dt; p11 += q11*dt;
+        epoch = time;
+    }
+
+    @Override
+    public void updateSequential(ObservationBuffer buffer, int i) {
+        ensureCapacity(buffer.size);
+        correct(buffer, i, i+1);
+        observationCount = buffer.size;
+    }
+
+    /* Update the state and covariance with the summed gains and innovations of observations [from,to) */
+    private void correct(ObservationBuffer buffer, int from, int to) {
+        sumInnov0 = 0; sumInnov1 = 0;
+        pInnov00 = 0; pInnov01 = 0; pInnov10 = 0; pInnov11 = 0;
+
+        accumulate(buffer, from, to, null);
+
+        xk += sumInnov0;
+        yk += sumInnov1;
+        p00 -= pInnov00; p01 -= pInnov01;
+        p10 -= pInnov10; p11 -= pInnov11;
+        innov0 = sumInnov0;
+        innov1 = sumInnov1;
+        informationInnovations = false;
+    }
+
+    /*
+     * Information form update against all observations, the batch equivalent of applying them in turn:
+     * P+ = (P^-1 + sum H'.R^-1.H)^-1, x+ = x + P+.sum H'.R^-1.r
+     * Skipped, leaving the predicted state and the previous innovations, if P or Y isn't invertible (positive determinant)
+     */
+    private void correctInformation(ObservationBuffer buffer, int count) {
+        for (int k=0;k<INFORMATION_SIZE;k++) {
+            informationSum[k] = 0;
+        }
+        if (count >= parallelThreshold) {
+            int block = Math.max(MIN_REDUCTION_BLOCK, count / (4 * ForkJoinPool.getCommonPoolParallelism()));
+            ForkJoinPool.commonPool().invoke(new InformationReduction(buffer, 0, count, block, informationSum));
+        }
+        else {
+            accumulate(buffer, 0, count, informationSum);
+        }
+
+        /* Y = P^-1 + I, P+ = Y^-1 */
+        double det = p00*p11 - p01*p10;
+        if (!(det > 0)) {
+            log.debug("Covariance not invertible, skipping the information update, det: "+det);
+            return;
+        }
+        double y00 = p11/det + informationSum[0];
+        double y01 = -p01/det + informationSum[1];
+        double y10 = -p10/det + informationSum[1];
+        double y11 = p00/det + informationSum[2];
+        double detY = y00*y11 - y01*y10;
+        if (!(detY > 0)) {
+            log.debug("Information not invertible, skipping the information update, det: "+detY);
+            return;
+        }
+        p00 = y11/detY; p01 = -y01/detY;
+        p10 = -y10/detY; p11 = y00/detY;
+
+        innov0 = p00*informationSum[3] + p01*informationSum[4];
+        innov1 = p10*informationSum[3] + p11*informationSum[4];
+        xk += innov0;
+        yk += innov1;
+        informationInnovations = true;
+    }
+
+    /* Information reduction over observations [from,to), forked in halves down to the block size, leaves summed into the parent's accumulator */
+    class InformationReduction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final ObservationBuffer buffer;
+        final int from, to, block;
+        final double[] sum;
+
+        InformationReduction(ObservationBuffer buffer, int from, int to, int block, double[] sum) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.block = block;
+            this.sum = sum;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= block) {
+                accumulate(buffer, from, to, sum);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            double[] right = new double[INFORMATION_SIZE];
+            InformationReduction rightTask = new InformationReduction(buffer, mid, to, block, right);
+            rightTask.fork();
+            new InformationReduction(buffer, from, mid, block, sum).compute();
+            rightTask.join();
+            for (int k=0;k<INFORMATION_SIZE;k++) {
+                sum[k] += right[k];
+            }
+        }
+    }
+
+    /*
+     * Accumulate observations [from,to) by type block, either gains and innovations against the prior covariance or,
+     * given an information accumulator, their information. Reads only the state for the latter, such that disjoint
+     * ranges may be accumulated concurrently
+     */
+    private void accumulate(ObservationBuffer buffer, int from, int to, double[] information) {
+        final double[] x = buffer.x;
+        final double[] y = buffer.y;
+        final double[] meas = buffer.meas;
+        final double[] meas_error = buffer.meas_error;
+
+        /* RANGE */
+        for (int i=from;i<Math.min(to, buffer.tdoaStart);i++) {
+            double dx = x[i] - xk; double dy = y[i] - yk;
+            double R1 = Math.sqrt(dx*dx + dy*dy);
+            update(i, R1, meas[i], -dx/R1, -dy/R1, meas_error[i], information);
+        }
+
+        /* TDOA */
+        final double[] xb = buffer.xb;
+        final double[] yb = buffer.yb;
+        for (int i=Math.max(from, buffer.tdoaStart);i<Math.min(to, buffer.aoaStart);i++) {
+            double dx = x[i] - xk; double dy = y[i] - yk;
+            double dx2 = xb[i] - xk; double dy2 = yb[i] - yk;
+            double R1 = Math.sqrt(dx*dx + dy*dy);
+            double R2 = Math.sqrt(dx2*dx2 + dy2*dy2);
+            update(i, R1 - R2, meas[i] * Helpers.SPEED_OF_LIGHT, -dx/R1 + dx2/R2, -dy/R1 + dy2/R2, meas_error[i], information);
+        }
+
+        /* AOA */
+        for (int i=Math.max(from, buffer.aoaStart);i<to;i++) {
+            double dx = x[i] - xk; double dy = y[i] - yk;
+            double R1 = Math.sqrt(dx*dx + dy*dy);
+            double f = Math.atan(dy/dx)*180/Math.PI;
+            if (xk<x[i]) {
+                f = f + 180;
+            }
+            if (yk<y[i] && xk>=x[i]) {
+                f = 360 - Math.abs(f);
+            }
+            // Note d/d"x" = "y - y_est"/..... on purpose linearisation
+            update(i, f, meas[i] * 180 / Math.PI, dy/R1, -dx/R1, meas_error[i], information);
+        }
+    }
+
+    /* Gain and innovation for a single observation against the prior covariance, accumulated for the iteration */
+    private void update(int i, double f, double d, double h0, double h1, double r, double[] information) {
+        if (information != null) {
+            inform(i, f, d, h0, h1, r, information);
+            return;
+        }
+        /* H.Pk, then scalar innovation variance H.Pk.H' + R */
+        double hp0 = h0*p00 + h1*p10;
+        double hp1 = h0*p01 + h1*p11;
+        double s = hp0*h0 + hp1*h1 + r;
+
+        /* K = Pk.H'/s */
+        double k0 = (p00*h0 + p01*h1)/s;
+        double k1 = (p10*h0 + p11*h1)/s;
+
+        double rk = d - f;
+        double innov_0 = k0*rk;
+        double innov_1 = k1*rk;
+        sumInnov0 += innov_0;
+        sumInnov1 += innov_1;
+
+        /* K.H.Pk */
+        pInnov00 += k0*hp0; pInnov01 += k0*hp1;
+        pInnov10 += k1*hp0; pInnov11 += k1*hp1;
+
+        f_est[i] = f;
+        obs_innov0[i] = innov_0;
+        obs_innov1[i] = innov_1;
+    }
+
+    /* Information of a single observation, H'.R^-1.H and H'.R^-1.r. Per observation innovation is its share of H'.R^-1.r, scaled by P+ when reported */
+    private void inform(int i, double f, double d, double h0, double h1, double r, double[] information) {
+        double rk = d - f;
+        information[0] += h0*h0/r;
+        information[1] += h0*h1/r;
+        information[2] += h1*h1/r;
+        information[3] += h0*rk/r;
+        information[4] += h1*rk/r;
+
+        f_est[i] = f;
+        obs_innov0[i] = h0*rk/r;
+        obs_innov1[i] = h1*rk/r;
+    }
+
+    private void ensureCapacity(int count) {
+        if (f_est.length < count) {
+            f_est = new double[count];
+            obs_innov0 = new double[count];
+            obs_innov1 = new double[count];
+        }
+    }
+
+    /* A measure of residual changes the filter intends to make */
+    @Override
+    public double getResidual() {
+        return Math.abs(innov0) + Math.abs(innov1);
+    }
+
+    /* Rebuild observation utilisation DTOs from the latest iteration - allocates, use only for reporting */
+    @Override
+    public void populateFilterObservationDTOs(ObservationBuffer buffer, Vector<FilterObservationDTO> filterObservationDTOs) {
+        filterObservationDTOs.removeAllElements();
+        for (int i=0;i<observationCount;i++) {
+            if (informationInnovations) {
+                filterObservationDTOs.add(new FilterObservationDTO(buffer.observations[i], f_est[i], new ArrayRealVector(new double[]{p00*obs_innov0[i] + p01*obs_innov1[i], p10*obs_innov0[i] + p11*obs_innov1[i]})));
+            }
+            else {
+                filterObservationDTOs.add(new FilterObservationDTO(buffer.observations[i], f_est[i], new ArrayRealVector(new double[]{obs_innov0[i], obs_innov1[i]})));
+            }
+        }
+    }
+
+    /* Select the information form update for iterate, split over the common ForkJoin pool from parallelThreshold # observations */
+    public void setInformationUpdate(boolean informationUpdate, int parallelThreshold) {
+        this.informationUpdate = informationUpdate;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    @Override
+    public RealVector getXk() {
+        return new ArrayRealVector(new double[]{xk, yk});
+    }
+
+    @Override
+    public RealMatrix getPk() {
+        return new Array2DRowRealMatrix(new double[][]{{p00, p01}, {p10, p11}});
+    }
+
+    @Override
+    public RealVector getInnov() {
+        return new ArrayRealVector(new double[]{innov0, innov1});
+    }
+
+    @Override
+    public double getX() {
+        return xk;
+    }
+
+    @Override
+    public double getY() {
+        return yk;
+    }
+}
@@ -0,0 +1,226 @@
+package tech.edgx.cage.compute;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+
+import java.util.Vector;
+
+/**
+ * Unscented Kalman Filter kernel for the 2 state (x,y) model, selected by FilterEngine.ukf
+ *  - No linearisation, each observation's innovation variance and cross covariance (hence gain) are taken from the
+ *    exact measurement functions (MeasurementModel) at 2n+1 sigma points about the estimate, scaled by the
+ *    covariance (kappa = 3-n, alpha = 1)
+ *  - The residual is taken at the estimate rather than the sigma point mean. Per iteration process noise keeps the
+ *    prior broad, the mean over it would bias a static fix (by ~P/2R for range)
+ *  - Works in consistent metric units: covariance and process noise as configured are in the filter's covariance
+ *    scale (units of UTM_UNIT, as reported in the CEP), measurement noise as per MeasurementModel.sigma. The sigma
+ *    points therefore span the configured uncertainty (~1km by default) rather than a fraction of a metre, such
+ *    that larger initial uncertainty is tolerated and far starts converge in few iterations
+ *  - Observations are applied sequentially, each update seeing the state and covariance of the previous
+ *  - No allocation per iteration, sigma points and per observation working memory are reused
+ */
+public class UnscentedKalmanKernel implements FilterKernel {
+
+    static final int N = 2;
+
+    /* Sigma point spread, n + lambda with kappa = 3-n and alpha = 1, and weights. beta = 2 for gaussian priors */
+    static final double SPREAD = 3;
+    static final double W0_MEAN = (SPREAD - N) / SPREAD;
+    static final double W0_COVARIANCE = W0_MEAN + 2;
+    static final double WI = 1 / (2 * SPREAD);
+
+    /* Configured covariance scale [utm] to m^2 */
+    static final double COVARIANCE_SCALE = MeasurementModel.UTM_UNIT * MeasurementModel.UTM_UNIT;
+
+    /* State estimate: UTM easting, northing [m] */
+    double xk;
+    double yk;
+
+    /* State covariance, process noise [m^2] */
+    double p00, p01, p11;
+    double q00, q01, q11;
+
+    /* Epoch of the state [epoch ms], sequential updates only */
+    long epoch;
+    boolean epochSet = false;
+
+    /* Summed state innovation from the latest iteration */
+    double innov0, innov1;
+
+    /* Sigma points and their predicted measurements */
+    final double[] sx = new double[2*N+1];
+    final double[] sy = new double[2*N+1];
+    final double[] sz = new double[2*N+1];
+
+    /* Per observation innovation from the latest iteration, indexed as per the observation buffer */
+    double[] obs_innov0 = new double[0];
+    double[] obs_innov1 = new double[0];
+    int observationCount;
+
+    @Override
+    public void initialise(double x, double y, double[][] initialCovariance, double[][] processNoise) {
+        this.xk = x;
+        this.yk = y;
+        this.p00 = initialCovariance[0][0] * COVARIANCE_SCALE;
+        this.p01 = initialCovariance[0][1] * COVARIANCE_SCALE;
+        this.p11 = initialCovariance[1][1] * COVARIANCE_SCALE;
+        this.q00 = processNoise[0][0] * COVARIANCE_SCALE;
+        this.q01 = processNoise[0][1] * COVARIANCE_SCALE;
+        this.q11 = processNoise[1][1] * COVARIANCE_SCALE;
+        this.innov0 = 0;
+        this.innov1 = 0;
+        this.epochSet = false;
+    }
+
+    /* Single predict/update cycle against all observations */
+    @Override
+    public void iterate(ObservationBuffer buffer) {
+        int count = buffer.size;
+        ensureCapacity(count);
+
+        /* Predict: static target, process noise only */
+        p00 += q00; p01 += q01; p11 += q11;
+
+        double x0 = xk; double y0 = yk;
+        for (int i=0;i<count;i++) {
+            update(buffer, i);
+        }
+        innov0 = xk - x0;
+        innov1 = yk - y0;
+        observationCount = count;
+    }
+
+    /* Process noise per second elapsed, the state is unchanged. Never steps back in time */
+    @Override
+    public void predictTo(long time) {
+        if (!epochSet) {
+            epoch = time;
+            epochSet = true;
+            return;
+        }
+        if (time <= epoch) {
+            return;
+        }
+        double dt = (time - epoch) / 1000.0;
+        p00 += q00*dt; p01 += q01*dt; p11 += q11*dt;
+        epoch = time;
+    }
+
+    @Override
+    public void updateSequential(ObservationBuffer buffer, int i) {
+        ensureCapacity(buffer.size);
+        double x0 = xk; double y0 = yk;
+        update(buffer, i);
+        innov0 = xk - x0;
+        innov1 = yk - y0;
+        observationCount = buffer.size;
+    }
+
+    /* Unscented update of the state and covariance for a single observation */
+    private void update(ObservationBuffer buffer, int i) {
+        /* Sigma points x, x +/- columns of sqrt(SPREAD.P), closed form 2x2 cholesky */
+        double l00 = Math.sqrt(SPREAD * p00);
+        if (!(l00 > 0)) {
+            return;
+        }
+        double l10 = SPREAD * p01 / l00;
+        double l11 = Math.sqrt(Math.max(SPREAD * p11 - l10*l10, 0));
+        sx[0] = xk; sy[0] = yk;
+        sx[1] = xk + l00; sy[1] = yk + l10;
+        sx[2] = xk; sy[2] = yk + l11;
+        sx[3] = xk - l00; sy[3] = yk - l10;
+        sx[4] = xk; sy[4] = yk - l11;
+
+        /* Predicted measurement per sigma point, aoa taken relative to the estimate such that it doesn't wrap */
+        boolean angular = i >= buffer.aoaStart;
+        double z0 = MeasurementModel.predict(buffer, i, xk, yk);
+        double zMean = 0;
+        for (int s=0;s<sx.length;s++) {
+            double z = MeasurementModel.predict(buffer, i, sx[s], sy[s]);
+            sz[s] = angular ? MeasurementModel.wrapAngle(z - z0) : z;
+            zMean += (s == 0 ? W0_MEAN : WI) * sz[s];
+        }
+
+        /* Innovation variance and state/measurement cross covariance */
+        double sigma = MeasurementModel.sigma(buffer, i, xk, yk);
+        double pzz = sigma*sigma;
+        double pxz0 = 0; double pxz1 = 0;
+        for (int s=0;s<sx.length;s++) {
+            double w = (s == 0 ? W0_COVARIANCE : WI);
+            double dz = sz[s] - zMean;
+            pzz += w*dz*dz;
+            pxz0 += w*(sx[s] - xk)*dz;
+            pxz1 += w*(sy[s] - yk)*dz;
+        }
+
+        double rk = angular
+                ? MeasurementModel.wrapAngle(MeasurementModel.measurement(buffer, i) - z0)
+                : MeasurementModel.measurement(buffer, i) - z0;
+
+        /* K = Pxz/Pzz, P -= K.Pzz.K' */
+        double k0 = pxz0/pzz;
+        double k1 = pxz1/pzz;
+        xk += k0*rk;
+        yk += k1*rk;
+        p00 -= k0*k0*pzz;
+        p01 -= k0*k1*pzz;
+        p11 -= k1*k1*pzz;
+
+        obs_innov0[i] = k0*rk;
+        obs_innov1[i] = k1*rk;
+    }
+
+    private void ensureCapacity(int count) {
+        if (obs_innov0.length < count) {
+            obs_innov0 = new double[count];
+            obs_innov1 = new double[count];
+        }
+    }
+
+    /* A measure of residual changes the filter intends to make */
+    @Override
+    public double getResidual() {
+        return Math.abs(innov0) + Math.abs(innov1);
+    }
+
+    /* Rebuild observation utilisation DTOs against the current estimate - allocates, use only for reporting */
+    @Override
+    public void populateFilterObservationDTOs(ObservationBuffer buffer, Vector<FilterObservationDTO> filterObservationDTOs) {
+        filterObservationDTOs.removeAllElements();
+        for (int i=0;i<observationCount;i++) {
+            filterObservationDTOs.add(new FilterObservationDTO(buffer.observations[i], MeasurementModel.predictReported(buffer, i, xk, yk), new ArrayRealVector(new double[]{obs_innov0[i], obs_innov1[i]})));
+        }
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    @Override
+    public RealVector getXk() {
+        return new ArrayRealVector(new double[]{xk, yk});
+    }
+
+    /* In the filter's covariance scale, as per the other engines */
+    @Override
+    public RealMatrix getPk() {
+        return new Array2DRowRealMatrix(new double[][]{{p00/COVARIANCE_SCALE, p01/COVARIANCE_SCALE}, {p01/COVARIANCE_SCALE, p11/COVARIANCE_SCALE}});
+    }
+
+    @Override
+    public RealVector getInnov() {
+        return new ArrayRealVector(new double[]{innov0, innov1});
+    }
+
+    @Override
+    public double getX() {
+        return xk;
+    }
+
+    @Override
+    public double getY() {
+        return yk;
+    }
+}
@@ -0,0 +1,16 @@
+package tech.edgx.cage.model;
+
+/**
+ * Filter engine implementations
+ *
+ * ekf - extended kalman filter on commons-math matrices, original reference implementation
+ * ekf_primitive - extended kalman filter on primitive fields, allocation free per iteration
+ * gauss_newton - batch levenberg-marquardt least squares over all observations, FIX mode only
+ * ukf - unscented kalman filter on primitive fields, no linearisation and in consistent metric units, tolerates
+ *       larger initial uncertainty and converges in far fewer iterations. Stationary motion model only
+ * particle - particle filter over the whole multimodal posterior, reports the dominant mode with secondary modes as
+ *            additional results. Resolves ambiguous geometries in one pass rather than per initial state, FIX mode only
+ */
+public enum FilterEngine {
+    ekf,ekf_primitive,gauss_newton,ukf,particle
+}
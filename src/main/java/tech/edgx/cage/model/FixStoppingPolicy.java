@@ -0,0 +1,13 @@
+package tech.edgx.cage.model;
+
+/**
+ * When a FIX mode execution stops iterating
+ *
+ * fixed - at the convergence residual threshold, otherwise after max filter iterations
+ * adaptive - as per fixed, also stops early once progress over the convergence window stalls, diverges or is too slow
+ *            to reach the threshold within the remaining iterations. A stall well above the dispatch residual threshold
+ *            restarts the execution from an alternative start, the attempt closest to convergence (residual) is reported
+ */
+public enum FixStoppingPolicy {
+    fixed,adaptive
+}
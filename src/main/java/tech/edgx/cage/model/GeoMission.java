@@ -77,6 +77,54 @@ public class GeoMission {
 
     public InitialStateMode initialStateMode;
 
+    /* Optional to override default - filter implementation to run - Default: ekf */
+    public FilterEngine filterEngine;
+
+    /* Optional to override default - target motion model of the filter state, constant_velocity requires the ekf_primitive engine - Default: stationary */
+    public MotionModel motionModel;
+
+    /* Optional to override default - how TRACK mode applies observations, sequential requires the ekf_primitive or ukf engine - Default: iterative */
+    public TrackUpdateMode trackUpdateMode;
+
+    /* Optional to override default - form of the ekf_primitive measurement update, information requires the stationary motion model - Default: summed */
+    public MeasurementUpdate measurementUpdate;
+
+    /* Optional to override default - # observations from which the information update is split over the common ForkJoin pool - Default: 4096 */
+    public Integer parallelUpdateThreshold;
+
+    /* Optional to override default - # particles of the particle filter engine - Default: 4096 */
+    public Integer particleCount;
+
+    /* Optional to override default - max # fix mode filter executions (initial states) run concurrently, 1 runs sequentially - Default: # available processors */
+    public Integer fixExecutionParallelism;
+
+    /* Optional to override default - when fix mode executions stop iterating - Default: fixed */
+    public FixStoppingPolicy fixStoppingPolicy;
+
+    /* Optional to override default - # iterations per window over which adaptive fix stopping judges progress - Default: 500 */
+    public Integer convergenceWindow;
+
+    /* Optional to override default - observations older than this [ms] (by measurement time, or time added) are evicted - Default: not set (kept until removed) */
+    public Long observationTtl;
+
+    /* Optional to override default - track mode parks once converged, until observations change - Default: false (iterate continuously) */
+    public Boolean trackParkOnConvergence;
+
+    /* Optional to override default - max # assets whose latest UTM projection is cached, 0 disables - Default: 1024 */
+    public Integer utmProjectionCacheSize;
+
+    /* Optional to override default - track mode results are exported (listener, kml) off the filter thread, coalescing to the latest result - Default: false */
+    public Boolean asyncExport;
+
+    /* Optional to override default - # filter state samples held for the filter state export, oldest are overwritten - Default: 4096 */
+    public Integer filterTraceCapacity;
+
+    /* Optional to override default - filter state is sampled every # iterations for the filter state export - Default: 10 */
+    public Integer filterTraceDecimation;
+
+    /* Optional to override default - register the mission's filter metrics as an MBean - Default: false */
+    public Boolean metricsJmx;
+
     /* Allow specific conditions, otherwise default uses random conditions geographically nearby observing assets */
     //Boolean filterUseSpecificInitialCondition = null;  DEPRECATE IN FAVOUR OF INITIALSTATEMODES enum
     // Options
@@ -330,6 +378,134 @@ public class GeoMission {
         this.initialStateMode = initialStateMode;
     }
 
+    public FilterEngine getFilterEngine() {
+        return filterEngine;
+    }
+
+    public void setFilterEngine(FilterEngine filterEngine) {
+        this.filterEngine = filterEngine;
+    }
+
+    public MotionModel getMotionModel() {
+        return motionModel;
+    }
+
+    public void setMotionModel(MotionModel motionModel) {
+        this.motionModel = motionModel;
+    }
+
+    public TrackUpdateMode getTrackUpdateMode() {
+        return trackUpdateMode;
+    }
+
+    public void setTrackUpdateMode(TrackUpdateMode trackUpdateMode) {
+        this.trackUpdateMode = trackUpdateMode;
+    }
+
+    public MeasurementUpdate getMeasurementUpdate() {
+        return measurementUpdate;
+    }
+
+    public void setMeasurementUpdate(MeasurementUpdate measurementUpdate) {
+        this.measurementUpdate = measurementUpdate;
+    }
+
+    public Integer getParallelUpdateThreshold() {
+        return parallelUpdateThreshold;
+    }
+
+    public void setParallelUpdateThreshold(Integer parallelUpdateThreshold) {
+        this.parallelUpdateThreshold = parallelUpdateThreshold;
+    }
+
+    public Integer getParticleCount() {
+        return particleCount;
+    }
+
+    public void setParticleCount(Integer particleCount) {
+        this.particleCount = particleCount;
+    }
+
+    public Integer getFixExecutionParallelism() {
+        return fixExecutionParallelism;
+    }
+
+    public void setFixExecutionParallelism(Integer fixExecutionParallelism) {
+        this.fixExecutionParallelism = fixExecutionParallelism;
+    }
+
+    public FixStoppingPolicy getFixStoppingPolicy() {
+        return fixStoppingPolicy;
+    }
+
+    public void setFixStoppingPolicy(FixStoppingPolicy fixStoppingPolicy) {
+        this.fixStoppingPolicy = fixStoppingPolicy;
+    }
+
+    public Integer getConvergenceWindow() {
+        return convergenceWindow;
+    }
+
+    public void setConvergenceWindow(Integer convergenceWindow) {
+        this.convergenceWindow = convergenceWindow;
+    }
+
+    public Long getObservationTtl() {
+        return observationTtl;
+    }
+
+    public void setObservationTtl(Long observationTtl) {
+        this.observationTtl = observationTtl;
+    }
+
+    public Boolean getTrackParkOnConvergence() {
+        return trackParkOnConvergence;
+    }
+
+    public void setTrackParkOnConvergence(Boolean trackParkOnConvergence) {
+        this.trackParkOnConvergence = trackParkOnConvergence;
+    }
+
+    public Boolean getAsyncExport() {
+        return asyncExport;
+    }
+
+    public void setAsyncExport(Boolean asyncExport) {
+        this.asyncExport = asyncExport;
+    }
+
+    public Integer getFilterTraceCapacity() {
+        return filterTraceCapacity;
+    }
+
+    public void setFilterTraceCapacity(Integer filterTraceCapacity) {
+        this.filterTraceCapacity = filterTraceCapacity;
+    }
+
+    public Integer getFilterTraceDecimation() {
+        return filterTraceDecimation;
+    }
+
+    public void setFilterTraceDecimation(Integer filterTraceDecimation) {
+        this.filterTraceDecimation = filterTraceDecimation;
+    }
+
+    public Boolean getMetricsJmx() {
+        return metricsJmx;
+    }
+
+    public void setMetricsJmx(Boolean metricsJmx) {
+        this.metricsJmx = metricsJmx;
+    }
+
+    public Integer getUtmProjectionCacheSize() {
+        return utmProjectionCacheSize;
+    }
+
+    public void setUtmProjectionCacheSize(Integer utmProjectionCacheSize) {
+        this.utmProjectionCacheSize = utmProjectionCacheSize;
+    }
+
     public Long getMaxFilterIterations() {
         return maxFilterIterations;
     }
@@ -1,5 +1,5 @@
 package tech.edgx.cage.model;
 
 public enum InitialStateMode {
-    specified,random,top_right,bottom_right,bottom_left,top_left,box_single_out,box_all_out
+    specified,random,top_right,bottom_right,bottom_left,top_left,box_single_out,box_all_out,closed_form,grid_search
 }
@@ -0,0 +1,13 @@
+package tech.edgx.cage.model;
+
+/**
+ * Form of the ekf_primitive measurement update applied each iteration
+ *
+ * summed - a gain per observation against the same prior covariance, updates summed (as per the ekf engine)
+ * information - information filter form, H'.R^-1.H and H'.R^-1.r are summed over all observations and solved as a
+ *               single 2x2 system. The sum is a reduction which is split across cores for large observation sets
+ *               (see parallel update threshold). Requires the ekf_primitive filter engine and stationary motion model
+ */
+public enum MeasurementUpdate {
+    summed,information
+}
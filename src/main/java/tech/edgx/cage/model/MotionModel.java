@@ -0,0 +1,12 @@
+package tech.edgx.cage.model;
+
+/**
+ * Target motion model of the filter state
+ *
+ * stationary - position (x,y) only, a moving target is followed through process noise alone
+ * constant_velocity - position and velocity (x,y,vx,vy), observations are fitted at their measurement times and the
+ *                     state is advanced to the latest observation time. Requires the ekf_primitive filter engine
+ */
+public enum MotionModel {
+    stationary,constant_velocity
+}
@@ -70,6 +70,13 @@ public class Observation {
      * Guide: Range: 100 [m] == 0.01 [utm] */
     Double meas_error;
 
+    /* Measurement time [epoch ms] - optional, observations without one age from when they were added.
+     * Observations older than the mission's observation TTL are evicted */
+    Long time;
+
+    /* Time the observation was last added [epoch ms], set by the manager. Stands in for a missing measurement time */
+    Long time_received;
+
     public Observation(Long id, String assetId, double lat, double lon) {
         this.id = id;
         this.assetId = assetId;
@@ -244,4 +251,20 @@ public class Observation {
     public void setMeas_error(Double meas_error) {
         this.meas_error = meas_error;
     }
+
+    public Long getTime() {
+        return time;
+    }
+
+    public void setTime(Long time) {
+        this.time = time;
+    }
+
+    public Long getTime_received() {
+        return time_received;
+    }
+
+    public void setTime_received(Long time_received) {
+        this.time_received = time_received;
+    }
 }
@@ -0,0 +1,15 @@
+package tech.edgx.cage.model;
+
+/**
+ * How TRACK mode applies observations to the filter
+ *
+ * iterative - free running, the current observations are applied repeatedly with process noise added per iteration,
+ *             the estimate depends on iteration rate (CPU speed, throttle)
+ * sequential - time driven, the initial observations are iterated to convergence to establish the track, thereafter
+ *              each new observation is applied once, in measurement time order, after a predict step over the time
+ *              elapsed (process noise per second). Results follow observation arrival and don't depend on hardware.
+ *              Requires the ekf_primitive or ukf filter engine
+ */
+public enum TrackUpdateMode {
+    iterative,sequential
+}
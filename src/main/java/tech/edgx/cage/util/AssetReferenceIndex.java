@@ -0,0 +1,72 @@
+package tech.edgx.cage.util;
+
+import tech.edgx.cage.model.Observation;
+import tech.edgx.cage.model.ObservationType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reference counts of the observations using each asset, so removing an observation finds its orphaned assets in
+ * constant time rather than scanning all observations
+ *  - A TDOA observation references both its assets (assetId and assetId_b)
+ *  - Re-registering an observation id releases the assets of the observation it replaces
+ *  - Not thread safe, callers hold the manager lock
+ */
+public class AssetReferenceIndex {
+
+    /* Assets referenced per observation id */
+    final Map<Long, String[]> observationAssets = new HashMap<Long, String[]>();
+
+    final Map<String, int[]> assetCounts = new HashMap<String, int[]>();
+
+    /* Register the observation's assets, returns any assets of a replaced observation which are no longer referenced */
+    public List<String> register(Observation obs) {
+        String[] previous = observationAssets.get(obs.getId());
+        String[] assets = obs.getObservationType().equals(ObservationType.tdoa)
+                ? new String[]{obs.getAssetId(), obs.getAssetId_b()}
+                : new String[]{obs.getAssetId()};
+        observationAssets.put(obs.getId(), assets);
+        for (String assetId : assets) {
+            int[] count = assetCounts.get(assetId);
+            if (count == null) {
+                assetCounts.put(assetId, new int[]{1});
+            }
+            else {
+                count[0]++;
+            }
+        }
+        return (previous == null) ? new ArrayList<String>() : decrement(previous);
+    }
+
+    /* Release the observation's assets, returns those no longer referenced by any observation */
+    public List<String> release(Long observationId) {
+        String[] assets = observationAssets.remove(observationId);
+        return (assets == null) ? new ArrayList<String>() : decrement(assets);
+    }
+
+    List<String> decrement(String[] assets) {
+        List<String> orphaned = new ArrayList<String>(assets.length);
+        for (String assetId : assets) {
+            int[] count = assetCounts.get(assetId);
+            if (count != null && --count[0] == 0) {
+                assetCounts.remove(assetId);
+                orphaned.add(assetId);
+            }
+        }
+        return orphaned;
+    }
+
+    /* # observations referencing the asset */
+    public int getReferenceCount(String assetId) {
+        int[] count = assetCounts.get(assetId);
+        return (count == null) ? 0 : count[0];
+    }
+
+    public void clear() {
+        observationAssets.clear();
+        assetCounts.clear();
+    }
+}
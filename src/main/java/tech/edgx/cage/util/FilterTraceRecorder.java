@@ -0,0 +1,281 @@
+package tech.edgx.cage.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.edgx.cage.model.GeoMission;
+
+import javax.xml.stream.XMLStreamWriter;
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Bounded trace of the filter state (position estimate and residual) over iterations, for diagnosing convergence
+ *  - Recording is allocation free, every decimation'th iteration is kept in a fixed capacity ring of primitives,
+ *    the oldest samples are overwritten once full
+ *  - Exports append samples recorded since the last export to a csv trace, which is never rewritten, and rewrite
+ *    the filter state kml from the samples held in the ring, so each export costs at most capacity samples
+ *  - Recording and exporting may run on different threads, exports work on a copy of the ring taken under the lock.
+ *    Iterations off the decimation are rejected before locking, so concurrent fix executions only contend on the
+ *    recorded iterations
+ */
+public class FilterTraceRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(FilterTraceRecorder.class);
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int DEFAULT_DECIMATION = 10;
+
+    /* Residual bands plotted in the kml */
+    static final double HIGH_RESIDUAL = 15;
+    static final double MEDIUM_RESIDUAL = 5;
+
+    static final String TRACE_HEADER = "iteration,x,y,lat,lon,residual";
+
+    final int capacity;
+    final int decimation;
+
+    /* Ring of recorded samples, record n is held at slot n % capacity */
+    final long[] iteration;
+    final double[] x;
+    final double[] y;
+    final double[] residual;
+    long recordedCount = 0;
+
+    /* Export side copy of the ring, with the lat/lon of each slot cached against its record # */
+    final Object exportLock = new Object();
+    final long[] exportIteration;
+    final double[] exportX;
+    final double[] exportY;
+    final double[] exportResidual;
+    final double[] exportLat;
+    final double[] exportLon;
+    final long[] projectedRecord;
+    long appendedCount = 0;
+    long overwrittenCount = 0;
+
+    File kmlOutput = null;
+    File traceOutput = null;
+
+    public FilterTraceRecorder(int capacity, int decimation) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Filter trace capacity must be at least 1");
+        }
+        if (decimation < 1) {
+            throw new IllegalArgumentException("Filter trace decimation must be at least 1");
+        }
+        this.capacity = capacity;
+        this.decimation = decimation;
+        this.iteration = new long[capacity];
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.residual = new double[capacity];
+        this.exportIteration = new long[capacity];
+        this.exportX = new double[capacity];
+        this.exportY = new double[capacity];
+        this.exportResidual = new double[capacity];
+        this.exportLat = new double[capacity];
+        this.exportLon = new double[capacity];
+        this.projectedRecord = new long[capacity];
+        Arrays.fill(projectedRecord, -1);
+    }
+
+    /* Set the output files, the kml is rewritten per export, the trace is truncated here and appended to thereafter */
+    public void provision(File kmlOutput, File traceOutput) {
+        synchronized (exportLock) {
+            this.kmlOutput = kmlOutput;
+            this.traceOutput = traceOutput;
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(traceOutput, false), "UTF-8"))) {
+                out.write(TRACE_HEADER);
+                out.write('\n');
+            }
+            catch (IOException e) {
+                log.error("Error provisioning filter trace output", e);
+            }
+            appendedCount = getRecordedCount();
+        }
+        log.debug("Provisioned filter trace export: "+kmlOutput.getPath()+", "+traceOutput.getPath());
+    }
+
+    /* Offer the state at the given filter iteration, recorded if the iteration falls on the decimation. Only recorded iterations take the lock */
+    public boolean record(long iteration, double x, double y, double residual) {
+        if (iteration % decimation != 0) {
+            return false;
+        }
+        synchronized (this) {
+            int slot = (int) (recordedCount % capacity);
+            this.iteration[slot] = iteration;
+            this.x[slot] = x;
+            this.y[slot] = y;
+            this.residual[slot] = residual;
+            recordedCount++;
+        }
+        return true;
+    }
+
+    /* Append newly recorded samples to the trace and rewrite the kml from the ring */
+    public void writeCurrentExports(GeoMission geoMission) {
+        synchronized (exportLock) {
+            if (kmlOutput == null) {
+                return;
+            }
+            long recorded;
+            synchronized (this) {
+                recorded = recordedCount;
+                System.arraycopy(iteration, 0, exportIteration, 0, capacity);
+                System.arraycopy(x, 0, exportX, 0, capacity);
+                System.arraycopy(y, 0, exportY, 0, capacity);
+                System.arraycopy(residual, 0, exportResidual, 0, capacity);
+            }
+            long oldest = Math.max(0, recorded - capacity);
+
+            /* Only samples not yet seen by a previous export are projected */
+            for (long n=oldest;n<recorded;n++) {
+                int slot = (int) (n % capacity);
+                if (projectedRecord[slot] != n) {
+                    double[] latLon = Helpers.convertUtmNthingEastingToLatLng(exportX[slot], exportY[slot], geoMission.getLatZone(), geoMission.getLonZone());
+                    exportLat[slot] = latLon[0];
+                    exportLon[slot] = latLon[1];
+                    projectedRecord[slot] = n;
+                }
+            }
+
+            appendTrace(oldest, recorded);
+            writeKml(oldest, recorded);
+        }
+    }
+
+    void appendTrace(long oldest, long recorded) {
+        long from = Math.max(appendedCount, oldest);
+        if (from > appendedCount) {
+            overwrittenCount += from - appendedCount;
+            log.debug("Filter trace overwritten before export, # samples lost from trace: "+(from - appendedCount));
+        }
+        if (from == recorded) {
+            return;
+        }
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(traceOutput, true), "UTF-8"), KmlFileStaticHelpers.OUTPUT_BUFFER_SIZE)) {
+            StringBuilder line = new StringBuilder(128);
+            for (long n=from;n<recorded;n++) {
+                int slot = (int) (n % capacity);
+                line.setLength(0);
+                line.append(exportIteration[slot]).append(',')
+                        .append(exportX[slot]).append(',').append(exportY[slot]).append(',')
+                        .append(exportLat[slot]).append(',').append(exportLon[slot]).append(',')
+                        .append(exportResidual[slot]).append('\n');
+                out.append(line);
+            }
+        }
+        catch (IOException e) {
+            log.error("Error appending filter trace", e);
+            return;
+        }
+        appendedCount = recorded;
+    }
+
+    void writeKml(long oldest, long recorded) {
+        File staging = new File(kmlOutput.getPath()+".tmp");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(staging), "UTF-8"), KmlFileStaticHelpers.OUTPUT_BUFFER_SIZE))
+        {
+            XMLStreamWriter writer = KmlFileStaticHelpers.outputFactory.createXMLStreamWriter(out);
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("kml");
+            writer.writeAttribute("xmlns", "http://www.opengis.net/kml/2.2");
+            writer.writeAttribute("xmlns:gx","http://www.google.com/kml/ext/2.2");
+            writer.writeStartElement("Document");
+
+            StringBuilder coords = new StringBuilder(64);
+            writeResidualBand(writer, "High Residual", "style1", "ffffA500", HIGH_RESIDUAL, Double.MAX_VALUE, oldest, recorded, coords);
+            writeResidualBand(writer, "Medium Residual", "style2", "ffffD500", MEDIUM_RESIDUAL, HIGH_RESIDUAL, oldest, recorded, coords);
+            writeResidualBand(writer, "Low Residual", "style3", "fffgG500", -Double.MAX_VALUE, MEDIUM_RESIDUAL, oldest, recorded, coords);
+
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        }
+        catch (Exception e)
+        {
+            log.error("Error exporting filter state to kml", e);
+            staging.delete();
+            return;
+        }
+        KmlFileStaticHelpers.moveIntoPlace(staging, kmlOutput);
+    }
+
+    /* Line through the samples with residual in (lower, upper] */
+    void writeResidualBand(XMLStreamWriter writer, String name, String styleId, String color, double lower, double upper, long oldest, long recorded, StringBuilder coords) throws Exception {
+        writer.writeStartElement("Placemark");
+        KmlFileStaticHelpers.writeElement(writer, "name", name);
+        KmlFileStaticHelpers.writeElement(writer, "styleUrl", "#"+styleId);
+        writer.writeStartElement("LineString");
+        writer.writeStartElement("coordinates");
+        for (long n=oldest;n<recorded;n++) {
+            int slot = (int) (n % capacity);
+            if (exportResidual[slot] > lower && exportResidual[slot] <= upper) {
+                coords.setLength(0);
+                coords.append(exportLon[slot]).append(',').append(exportLat[slot]).append(",0 \n");
+                writer.writeCharacters(coords.toString());
+            }
+        }
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndElement();
+
+        writer.writeStartElement("Style");
+        writer.writeAttribute("id", styleId);
+        writer.writeStartElement("LineStyle");
+        KmlFileStaticHelpers.writeElement(writer, "color", color);
+        KmlFileStaticHelpers.writeElement(writer, "width", "2");
+        writer.writeEndElement();
+        writer.writeEndElement();
+    }
+
+    public synchronized long getRecordedCount() {
+        return recordedCount;
+    }
+
+    /* # samples currently held, at most capacity */
+    public synchronized int size() {
+        return (int) Math.min(recordedCount, capacity);
+    }
+
+    /* Samples held, 0 is the oldest */
+    public synchronized long getIteration(int i) {
+        return iteration[slotOf(i)];
+    }
+
+    public synchronized double getX(int i) {
+        return x[slotOf(i)];
+    }
+
+    public synchronized double getY(int i) {
+        return y[slotOf(i)];
+    }
+
+    public synchronized double getResidual(int i) {
+        return residual[slotOf(i)];
+    }
+
+    int slotOf(int i) {
+        if (i < 0 || i >= Math.min(recordedCount, capacity)) {
+            throw new IndexOutOfBoundsException("Filter trace index: "+i+", size: "+Math.min(recordedCount, capacity));
+        }
+        return (int) ((Math.max(0, recordedCount - capacity) + i) % capacity);
+    }
+
+    /* # samples overwritten in the ring before an export appended them to the trace */
+    public long getOverwrittenCount() {
+        synchronized (exportLock) {
+            return overwrittenCount;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getDecimation() {
+        return decimation;
+    }
+}
@@ -30,6 +30,13 @@ public class Helpers {
         return new double[]{utm.getNorthing(),utm.getEasting()};
     }
 
+    /*  Convert lat/lon to UTM northing/easting and zones in a single projection */
+    public static UtmCoordinate convertLatLngToUtm(double lat, double lng) {
+        LatLng ltln = new LatLng(lat,lng);
+        UTMRef utm = ltln.toUTMRef();
+        return new UtmCoordinate(lat, lng, utm.getNorthing(), utm.getEasting(), utm.getLatZone(), utm.getLngZone());
+    }
+
     public static Object[] getUtmLatZoneLonZone(double lat, double lng) {
         LatLng ltln = new LatLng(lat,lng);
         UTMRef utm = ltln.toUTMRef();
@@ -1,24 +1,18 @@
 package tech.edgx.cage.util;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Text;
 import tech.edgx.cage.compute.GeolocationResult;
 import tech.edgx.cage.model.Asset;
 import tech.edgx.cage.model.GeoMission;
@@ -27,27 +21,30 @@ import uk.me.jstott.jcoord.UTMRef;
 
 /**
  * KML Filesystem I/O - (Static Applications)
+ *  - Streamed (StAX) straight to a buffered file, no document tree is built, cost is linear in the output size
  */
 public class KmlFileStaticHelpers {
 
     private static final Logger log = LoggerFactory.getLogger(KmlFileStaticHelpers.class);
 
+    /* Factories are expensive to look up, shared. Writers are created per export */
+    static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+    static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
     public static void exportGeoMissionToKml(GeoMission geoMission) {
-        try
+        File output = new File(geoMission.getProperties().getProperty("working.directory")+"output/"+geoMission.getOutputKmlFilename());
+        /* Written alongside then moved into place, viewers never see a partially written file */
+        File staging = new File(output.getPath()+".tmp");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(staging), "UTF-8"), OUTPUT_BUFFER_SIZE))
         {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            TransformerFactory tranFactory = TransformerFactory.newInstance();
-            Transformer aTransformer = tranFactory.newTransformer();
-
-            Document doc = builder.newDocument();
-            Element root = doc.createElement("kml");
-            root.setAttribute("xmlns", "http://www.opengis.net/kml/2.2");
-            root.setAttribute("xmlns:gx","http://www.google.com/kml/ext/2.2");
-            doc.appendChild(root);
+            XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out);
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("kml");
+            writer.writeAttribute("xmlns", "http://www.opengis.net/kml/2.2");
+            writer.writeAttribute("xmlns:gx","http://www.google.com/kml/ext/2.2");
 
-            Element dnode = doc.createElement("Document");
-            root.appendChild(dnode);
+            writer.writeStartElement("Document");
 
             GeoMission gm = geoMission;
 
@@ -57,41 +54,39 @@ public class KmlFileStaticHelpers {
             while (keyIt.hasNext()) {
                 String assetId = (String)keyIt.next();
                 log.trace("Creating Asset Point in KML: lat: "+gm.getAssets().get(assetId).getCurrent_loc()[0]+", lon: "+gm.getAssets().get(assetId).getCurrent_loc()[1]);
-                exportAssetLocation(doc,dnode,gm.getAssets().get(assetId));
+                exportAssetLocation(writer,gm.getAssets().get(assetId));
             }
 
             /* PLOT the measurements */
             if (gm.getShowMeas()) {
 
-                Element style = doc.createElement("Style");
-                style.setAttribute("id", "measurementStyle");
-                Element measStyle = doc.createElement("LineStyle");
-                Element color = doc.createElement("color");
-                color.appendChild(doc.createTextNode("ff888888")); //"7fccfc00"));
-                Element width = doc.createElement("width");
-                width.appendChild(doc.createTextNode("3"));
-                measStyle.appendChild(color);
-                measStyle.appendChild(width);
-                style.appendChild(measStyle);
-                dnode.appendChild(style);
+                writer.writeStartElement("Style");
+                writer.writeAttribute("id", "measurementStyle");
+                writer.writeStartElement("LineStyle");
+                writeElement(writer, "color", "ff888888"); //"7fccfc00"));
+                writeElement(writer, "width", "3");
+                writer.writeEndElement();
+                writer.writeEndElement();
+
+                StringBuilder coords = new StringBuilder();
 
                 /* Export range measurements */
-                exportMeasurementCircles(doc,dnode,geoMission);
+                exportMeasurementCircles(writer,geoMission,coords);
 
                 /* Export tdoa measurements */
-                exportMeasurementHyperbolas(doc,dnode,geoMission);
+                exportMeasurementHyperbolas(writer,geoMission,coords);
 
                 /* Export tdoa measurements */
-                exportMeasurementDirections(doc,dnode,geoMission);
+                exportMeasurementDirections(writer,geoMission,coords);
             }
 
             /* PLOT the geo result */
             if (gm.getShowGEOs())
             {
-                exportTargetEstimationResult(doc,dnode,geoMission,geoMission.getComputeResults().getGeolocationResult(), true);
+                exportTargetEstimationResult(writer,geoMission,geoMission.getComputeResults().getGeolocationResult(), true);
                 if (geoMission.getComputeResults().getAdditionalResults() != null) {
                     for (GeolocationResult result : geoMission.getComputeResults().getAdditionalResults()) {
-                        exportTargetEstimationResult(doc, dnode, geoMission, result, false);
+                        exportTargetEstimationResult(writer, geoMission, result, false);
                     }
                 }
             }
@@ -99,11 +94,10 @@ public class KmlFileStaticHelpers {
             /* PLOT the geo probability ELP result */
             if (geoMission.getShowCEPs())
             {
-                //exportTargetEstimationCEP(doc,dnode,geoMission);
-                exportTargetEstimationCEP(doc,dnode,geoMission,geoMission.getComputeResults().getGeolocationResult(), true);
+                exportTargetEstimationCEP(writer,geoMission,geoMission.getComputeResults().getGeolocationResult(), true);
                 if (geoMission.getComputeResults().getAdditionalResults() != null) {
                     for (GeolocationResult result : geoMission.getComputeResults().getAdditionalResults()) {
-                        exportTargetEstimationCEP(doc, dnode, geoMission, result, false);
+                        exportTargetEstimationCEP(writer, geoMission, result, false);
                     }
                 }
             }
@@ -111,432 +105,265 @@ public class KmlFileStaticHelpers {
             /* PLOT the true target loc - for experiment purposes */
             if (gm.getShowTrueLoc())
             {
-                exportTargetTrueLocation(doc, dnode, geoMission);
+                exportTargetTrueLocation(writer, geoMission);
             }
 
-            Source src = new DOMSource(doc);
-            Result dest = new StreamResult(new File(geoMission.getProperties().getProperty("working.directory")+"output/"+geoMission.getOutputKmlFilename()));
-            aTransformer.transform(src, dest);
-
-            log.debug("[KML Exp Geo] finished KML Geo export - updated map data");
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
         }
         catch (Exception e)
         {
             log.error("Error exporting data to kml",e);
+            staging.delete();
+            return;
+        }
+        if (moveIntoPlace(staging, output)) {
+            log.debug("[KML Exp Geo] finished KML Geo export - updated map data");
         }
     }
 
-    public static void exportTargetTrueLocation(Document doc, Element dnode, GeoMission geoMission) {
+    /* Replace the output with the fully written staging file, atomically where the filesystem supports it */
+    static boolean moveIntoPlace(File staging, File output) {
         try {
-            if (geoMission.getTarget().getTrue_current_loc()!=null) {
-                Element crosshairStyle = doc.createElement("Style");
-                crosshairStyle.setAttribute("id", "crosshairStyle");
-
-                Element crosshairIconStyle = doc.createElement("IconStyle");
-                crosshairIconStyle.setAttribute("id", "crosshairIconStyle");
-
-                Element crosshairIcon = doc.createElement("Icon");
-
-                Element crosshairIconHref = doc.createElement("href");
-                /* http://maps.google.com/mapfiles/kml/shapes/star.png */
-                crosshairIconHref.appendChild(doc.createTextNode("styles/true_target.png"));
-
-
-                crosshairStyle.appendChild(crosshairIconStyle);
-                crosshairIcon.appendChild(crosshairIconHref);
-                crosshairIconStyle.appendChild(crosshairIcon);
-                dnode.appendChild(crosshairStyle);
-
-                Element PFplacemark = doc.createElement("Placemark");
-                dnode.appendChild(PFplacemark);
-
-                Element name = doc.createElement("name");
-                name.appendChild(doc.createTextNode("True: "+geoMission.getTarget().getName()));
-                PFplacemark.appendChild(name);
-
-                PFplacemark.appendChild(crosshairStyle);
-
-                Element descrip = doc.createElement("description");
-                descrip.appendChild(doc.createTextNode("<![CDATA[\n" +
-                        "          <p><font color=\"red\">" + geoMission.getTarget().getId() + " : " + geoMission.getTarget().getName() + "\n" +
-                        "          <b>(True Location) is here</b></font></p>"));
-                PFplacemark.appendChild(descrip);
-
-                Element PFpoint = doc.createElement("Point");
-                Element coordinates = doc.createElement("coordinates");
-
-                Text textNode = doc.createTextNode(geoMission.getTarget().getTrue_current_loc()[1] + "," + geoMission.getTarget().getTrue_current_loc()[0]);
-                coordinates.appendChild(textNode);
-                PFpoint.appendChild(coordinates);
-
-                PFplacemark.appendChild(PFpoint);
+            Files.move(staging.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            try {
+                Files.move(staging.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
             }
-            else {
-                log.debug("Attempted to export true location however none was available");
+            catch (IOException ioe) {
+                log.error("Error moving kml export into place",ioe);
+                return false;
             }
-        } catch (Exception e) {
-            log.error("Error exporting true location: " + e.toString());
         }
+        return true;
     }
 
-    public static void exportTargetEstimationResult(Document doc, Element dnode, GeoMission geoMission, GeolocationResult geolocationResult, boolean highlight) {
-        try
-        {
-            Element crosshairStyle = doc.createElement("Style");
-            crosshairStyle.setAttribute("id", "crosshairStyle");
+    public static void exportTargetTrueLocation(XMLStreamWriter writer, GeoMission geoMission) throws XMLStreamException {
+        if (geoMission.getTarget().getTrue_current_loc()!=null) {
+            writer.writeStartElement("Placemark");
 
-            Element crosshairIconStyle = doc.createElement("IconStyle");
-            crosshairIconStyle.setAttribute("id", "crosshairIconStyle");
+            writeElement(writer, "name", "True: "+geoMission.getTarget().getName());
 
-            Element crosshairIcon = doc.createElement("Icon");
+            /* http://maps.google.com/mapfiles/kml/shapes/star.png */
+            writeIconStyle(writer, "crosshairStyle", "crosshairIconStyle", "styles/true_target.png");
 
-            Element crosshairIconHref = doc.createElement("href");
-            /* http://maps.google.com/mapfiles/kml/shapes/earthquake.png
-            *  http://maps.google.com/mapfiles/kml/shapes/caution.png */
-            if (highlight) {
-                crosshairIconHref.appendChild(doc.createTextNode("styles/estimated_target.png"));
-            }
-            else {
-                crosshairIconHref.appendChild(doc.createTextNode("styles/alt_estimated_target.png"));
-            }
+            writeElement(writer, "description", "<![CDATA[\n" +
+                    "          <p><font color=\"red\">" + geoMission.getTarget().getId() + " : " + geoMission.getTarget().getName() + "\n" +
+                    "          <b>(True Location) is here</b></font></p>");
 
-            crosshairStyle.appendChild(crosshairIconStyle);
-            crosshairIcon.appendChild(crosshairIconHref);
-            crosshairIconStyle.appendChild(crosshairIcon);
-            dnode.appendChild(crosshairStyle);
+            writePoint(writer, geoMission.getTarget().getTrue_current_loc()[1] + "," + geoMission.getTarget().getTrue_current_loc()[0]);
 
-            Element PFplacemark = doc.createElement("Placemark");
-            dnode.appendChild(PFplacemark);
-
-            Element name = doc.createElement("name");
-            name.appendChild(doc.createTextNode(geoMission.getTarget().getName()));
-            PFplacemark.appendChild(name);
-
-            PFplacemark.appendChild(crosshairStyle);
-
-            Element descrip = doc.createElement("description");
-            descrip.appendChild(doc.createTextNode("<![CDATA[\n" +
-                    "          <p><font color=\"red\">"+geoMission.getTarget().getId()+" : "+geoMission.getTarget().getName()+"\n" +
-                    "          <b>Located here</b></font></p>"));
-            PFplacemark.appendChild(descrip);
-
-            Element PFpoint = doc.createElement("Point");
-            Element coordinates = doc.createElement("coordinates");
-
-            //Text textNode = doc.createTextNode(geoMission.getTarget().getCurrent_loc()[1]+ "," + geoMission.getTarget().getCurrent_loc()[0]);
-            Text textNode = doc.createTextNode(geolocationResult.getLon()+","+geolocationResult.getLat());
-            coordinates.appendChild(textNode);
-            PFpoint.appendChild(coordinates);
-
-            PFplacemark.appendChild(PFpoint);
+            writer.writeEndElement();
         }
-        catch(Exception egeo){
-            log.error("error exporting geo position to kml",egeo);
-            egeo.printStackTrace();
+        else {
+            log.debug("Attempted to export true location however none was available");
         }
     }
 
-    public static void exportTargetEstimationCEP(Document doc, Element dnode, GeoMission geoMission, GeolocationResult geolocationResult, boolean highlight) {
-        try {
-            try
-            {
-                List<double[]> geometryCoords = new ArrayList<double[]>();
-
-                double lat = geolocationResult.getLat();
-                double lon = geolocationResult.getLon();
-                double elp_long = geolocationResult.getElp_long();
-                double elp_short = geolocationResult.getElp_short();
-                double elp_rot = geolocationResult.getElp_rot();
-
-                //double[] utm_target_loc = Helpers.convertLatLngToUtmNthingEasting(geoMission.getTarget().getCurrent_loc()[0], geoMission.getTarget().getCurrent_loc()[1]);
-                double[] utm_target_loc = Helpers.convertLatLngToUtmNthingEasting(lat, lon);
-                log.debug("UTM Target Loc: "+utm_target_loc[0]+", "+utm_target_loc[1]);
+    public static void exportTargetEstimationResult(XMLStreamWriter writer, GeoMission geoMission, GeolocationResult geolocationResult, boolean highlight) throws XMLStreamException {
+        writer.writeStartElement("Placemark");
 
-                // temp swapped bottom row to cos,sin
-                //double[][] M_rot = new double[][]{{Math.cos(geoMission.getTarget().getElp_rot()), -Math.sin(geoMission.getTarget().getElp_rot())}, {Math.sin(geoMission.getTarget().getElp_rot()), Math.cos(geoMission.getTarget().getElp_rot())}};
-                double[][] M_rot = new double[][]{{Math.cos(elp_rot), -Math.sin(elp_rot)}, {Math.sin(elp_rot), Math.cos(elp_rot)}};
+        writeElement(writer, "name", geoMission.getTarget().getName());
 
-                for (double theta = (1 / 2) * Math.PI; theta <= (5 / 2) * Math.PI; theta += 0.2) {
-                    double a = elp_long * Math.cos(theta);
-                    double b = elp_short * Math.sin(theta);
-
-                    double x = M_rot[0][0] * (a) + M_rot[0][1] * (b);
-                    double y = M_rot[1][0] * (a) + M_rot[1][1] * (b);
-
-                    UTMRef utmMeas = new UTMRef(x + utm_target_loc[1], y + utm_target_loc[0], geoMission.getLatZone(), geoMission.getLonZone());
-                    LatLng ltln = utmMeas.toLatLng();
-                    double[] measPoint = {ltln.getLat(), ltln.getLng()};
-                    geometryCoords.add(measPoint);
-                }
-
-                Element style = doc.createElement("Style");
-                style.setAttribute("id", "cepStyle");
-
-                Element polyStyle = doc.createElement("PolyStyle");
-                Element color = doc.createElement("color");
-
-                if (highlight) {
-                    color.appendChild(doc.createTextNode("3f2002e4"));
-                }
-                else {
-                    color.appendChild(doc.createTextNode("501478C8"));
-                }
-
-                polyStyle.appendChild(color);
-                style.appendChild(polyStyle);
-
-                dnode.appendChild(style);
-                Element polyPlacemark = doc.createElement("Placemark");
-                dnode.appendChild(polyPlacemark);
-
-                Element name = doc.createElement("name");
-                name.appendChild(doc.createTextNode(geoMission.getTarget().getId()+":cep"));
-                polyPlacemark.appendChild(name);
-
-                Element styleUrl = doc.createElement("styleUrl");
-                styleUrl.appendChild(doc.createTextNode("#cepStyle"));
-
-                polyPlacemark.appendChild(styleUrl);
-
-                Element polygon = doc.createElement("Polygon");
+        /* http://maps.google.com/mapfiles/kml/shapes/earthquake.png
+        *  http://maps.google.com/mapfiles/kml/shapes/caution.png */
+        if (highlight) {
+            writeIconStyle(writer, "crosshairStyle", "crosshairIconStyle", "styles/estimated_target.png");
+        }
+        else {
+            writeIconStyle(writer, "crosshairStyle", "crosshairIconStyle", "styles/alt_estimated_target.png");
+        }
 
-                Element altitudeMode = doc.createElement("altitudeMode");
-                altitudeMode.appendChild(doc.createTextNode("relativeToGround"));
-                polygon.appendChild(altitudeMode);
+        writeElement(writer, "description", "<![CDATA[\n" +
+                "          <p><font color=\"red\">"+geoMission.getTarget().getId()+" : "+geoMission.getTarget().getName()+"\n" +
+                "          <b>Located here</b></font></p>");
 
-//                Element extrude = doc.createElement("extrude");
-//                extrude.appendChild(doc.createTextNode("1"));
-//                polygon.appendChild(extrude);
+        writePoint(writer, geolocationResult.getLon()+","+geolocationResult.getLat());
 
-                Element outer = doc.createElement("outerBoundaryIs");
-                Element cepOuterRing = doc.createElement("LinearRing");
-                Element cepCircleCoords = doc.createElement("coordinates");
+        writer.writeEndElement();
+    }
 
-                Iterator circlePoints = geometryCoords.iterator();
-                while (circlePoints.hasNext())
-                {
-                    double[] point = (double[])circlePoints.next();
+    public static void exportTargetEstimationCEP(XMLStreamWriter writer, GeoMission geoMission, GeolocationResult geolocationResult, boolean highlight) throws XMLStreamException {
+        List<double[]> geometryCoords = new ArrayList<double[]>();
 
-                    cepCircleCoords.appendChild(doc.createTextNode(point[1]+","+point[0]+",200 \n"));
-                }
-                cepOuterRing.appendChild(cepCircleCoords);
+        double lat = geolocationResult.getLat();
+        double lon = geolocationResult.getLon();
+        double elp_long = geolocationResult.getElp_long();
+        double elp_short = geolocationResult.getElp_short();
+        double elp_rot = geolocationResult.getElp_rot();
 
-                outer.appendChild(cepOuterRing);
-                polygon.appendChild(outer);
+        double[] utm_target_loc = Helpers.convertLatLngToUtmNthingEasting(lat, lon);
+        log.debug("UTM Target Loc: "+utm_target_loc[0]+", "+utm_target_loc[1]);
 
-                polyPlacemark.appendChild(polygon);
-            }
-            catch(Exception ecep){log.trace("error exporting cep circle to kml"); ecep.printStackTrace();}
-        } catch (Exception e) {
-            log.error(e.toString());
-            e.printStackTrace();
-        }
-    }
+        // temp swapped bottom row to cos,sin
+        double[][] M_rot = new double[][]{{Math.cos(elp_rot), -Math.sin(elp_rot)}, {Math.sin(elp_rot), Math.cos(elp_rot)}};
 
-    public static void exportAssetLocation(Document doc, Element dnode, Asset asset) {
         try
         {
-            Element crosshairStyle = doc.createElement("Style");
-            crosshairStyle.setAttribute("id", "assetStyle");
-
-            Element crosshairIconStyle = doc.createElement("IconStyle");
-            crosshairIconStyle.setAttribute("id", "assetIconStyle");
+            for (double theta = (1 / 2) * Math.PI; theta <= (5 / 2) * Math.PI; theta += 0.2) {
+                double a = elp_long * Math.cos(theta);
+                double b = elp_short * Math.sin(theta);
 
-            Element crosshairIcon = doc.createElement("Icon");
+                double x = M_rot[0][0] * (a) + M_rot[0][1] * (b);
+                double y = M_rot[1][0] * (a) + M_rot[1][1] * (b);
 
-            Element crosshairIconHref = doc.createElement("href");
-            /* http://maps.google.com/mapfiles/kml/shapes/cabs.png */
-            crosshairIconHref.appendChild(doc.createTextNode("styles/asset.png"));
-
-            crosshairStyle.appendChild(crosshairIconStyle);
-            crosshairIcon.appendChild(crosshairIconHref);
-            crosshairIconStyle.appendChild(crosshairIcon);
-            dnode.appendChild(crosshairStyle);
+                UTMRef utmMeas = new UTMRef(x + utm_target_loc[1], y + utm_target_loc[0], geoMission.getLatZone(), geoMission.getLonZone());
+                LatLng ltln = utmMeas.toLatLng();
+                double[] measPoint = {ltln.getLat(), ltln.getLng()};
+                geometryCoords.add(measPoint);
+            }
+        }
+        catch(Exception ecep){
+            log.trace("error exporting cep circle to kml");
+            ecep.printStackTrace();
+            return;
+        }
 
-            Element PFplacemark = doc.createElement("Placemark");
-            dnode.appendChild(PFplacemark);
+        writer.writeStartElement("Style");
+        writer.writeAttribute("id", "cepStyle");
+        writer.writeStartElement("PolyStyle");
+        if (highlight) {
+            writeElement(writer, "color", "3f2002e4");
+        }
+        else {
+            writeElement(writer, "color", "501478C8");
+        }
+        writer.writeEndElement();
+        writer.writeEndElement();
+
+        writer.writeStartElement("Placemark");
+        writeElement(writer, "name", geoMission.getTarget().getId()+":cep");
+        writeElement(writer, "styleUrl", "#cepStyle");
+
+        writer.writeStartElement("Polygon");
+        writeElement(writer, "altitudeMode", "relativeToGround");
+        writer.writeStartElement("outerBoundaryIs");
+        writer.writeStartElement("LinearRing");
+        writeCoordinates(writer, geometryCoords, ",200 \n", new StringBuilder());
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndElement();
+
+        writer.writeEndElement();
+    }
 
-            Element name = doc.createElement("name");
-            name.appendChild(doc.createTextNode(asset.getId()));
-            PFplacemark.appendChild(name);
+    public static void exportAssetLocation(XMLStreamWriter writer, Asset asset) throws XMLStreamException {
+        writer.writeStartElement("Placemark");
 
-            PFplacemark.appendChild(crosshairStyle);
+        writeElement(writer, "name", asset.getId());
 
-            Element descrip = doc.createElement("description");
-            descrip.appendChild(doc.createTextNode("<![CDATA[\n" +
-                    "          <p><font color=\"blue\">"+asset.getId()+"\n" +
-                    "          <b>Located here</b></font></p>"));
-            PFplacemark.appendChild(descrip);
+        /* http://maps.google.com/mapfiles/kml/shapes/cabs.png */
+        writeIconStyle(writer, "assetStyle", "assetIconStyle", "styles/asset.png");
 
-            Element PFpoint = doc.createElement("Point");
-            Element coordinates = doc.createElement("coordinates");
+        writeElement(writer, "description", "<![CDATA[\n" +
+                "          <p><font color=\"blue\">"+asset.getId()+"\n" +
+                "          <b>Located here</b></font></p>");
 
-            Text textNode = doc.createTextNode(asset.getCurrent_loc()[1]+ "," + asset.getCurrent_loc()[0]);
-            coordinates.appendChild(textNode);
-            PFpoint.appendChild(coordinates);
+        writePoint(writer, asset.getCurrent_loc()[1]+ "," + asset.getCurrent_loc()[0]);
 
-            PFplacemark.appendChild(PFpoint);
-        }
-        catch(Exception egeo){
-            log.error("error exporting asset position to kml");egeo.printStackTrace();
-        }
+        writer.writeEndElement();
     }
 
     /* Plot Range estimates */
-    public static void exportMeasurementCircles(Document doc, Element dnode, GeoMission geoMission) {
+    public static void exportMeasurementCircles(XMLStreamWriter writer, GeoMission geoMission, StringBuilder coords) throws XMLStreamException {
         Set keys = geoMission.circlesToShow;
         log.trace("# measurement circles: "+keys.size());
         Iterator keyIt = keys.iterator();
         while (keyIt.hasNext()) {
             Long ele = (Long) keyIt.next();
             log.trace("Creating kml for ele: "+ele);
-            List<double[]> circle = (ArrayList<double[]>) geoMission.getObservations().get(ele).getCircleGeometry();
+            List<double[]> circle = geoMission.getObservations().get(ele).getCircleGeometry();
 
             log.trace("This asset has measurement circle data? "+!circle.isEmpty());
             if (!circle.isEmpty())
             {
-                try {
-                    Element measPlacemark = doc.createElement("Placemark");
-                    dnode.appendChild(measPlacemark);
-
-                    Element name = doc.createElement("name");
-                    name.appendChild(doc.createTextNode("RANGE:"+geoMission.getObservations().get(ele).getAssetId()));
-                    measPlacemark.appendChild(name);
-
-                    Element styleUrl = doc.createElement("styleUrl");
-                    styleUrl.appendChild(doc.createTextNode("#measurementStyle"));
-
-                    measPlacemark.appendChild(styleUrl);
-
-                    Element line = doc.createElement("LineString");
-                    Element circleCoords = doc.createElement("coordinates");
-
-                    Iterator circlePoints = circle.iterator();
-
-                    try {
-                        synchronized (circlePoints) {
-                            while (circlePoints.hasNext()) {
-                                double[] point = (double[]) circlePoints.next();
-                                circleCoords.appendChild(doc.createTextNode(point[1] + "," + point[0] + ",0 \n"));
-                            }
-                        }
-                    } catch (Exception esynch) {
-                        log.trace("error iterating over measurement circle, b/c it being updated");
-                    }
-                    line.appendChild(circleCoords);
-
-                    measPlacemark.appendChild(line);
-                } catch (Exception emeas) {
-                    log.error("error exporting meas circle to kml");
-                    emeas.printStackTrace();
-                }
+                writeMeasurement(writer, "RANGE:"+geoMission.getObservations().get(ele).getAssetId(), circle, coords);
             }
         }
     }
 
     /* Plot TDOA measurements */
-    public static void exportMeasurementHyperbolas(Document doc, Element dnode, GeoMission geoMission) {
+    public static void exportMeasurementHyperbolas(XMLStreamWriter writer, GeoMission geoMission, StringBuilder coords) throws XMLStreamException {
         Set keys = geoMission.hyperbolasToShow;
         log.trace("# measurement hyperbolas: "+keys.size());
         Iterator keyIt = keys.iterator();
         while (keyIt.hasNext()) {
             Long ele = (Long) keyIt.next();
             log.trace("Creating kml for ele: "+ele);
-            List<double[]> hyperbola = (ArrayList<double[]>) geoMission.getObservations().get(ele).getHyperbolaGeometry();
+            List<double[]> hyperbola = geoMission.getObservations().get(ele).getHyperbolaGeometry();
 
             log.trace("This asset has measurement hyperbola data? "+!hyperbola.isEmpty());
             if (!hyperbola.isEmpty())
             {
-                try {
-                    Element measPlacemark = doc.createElement("Placemark");
-                    dnode.appendChild(measPlacemark);
-
-                    Element name = doc.createElement("name");
-                    name.appendChild(doc.createTextNode("TDOA:"+geoMission.getObservations().get(ele).getAssetId()+"/"+geoMission.getObservations().get(ele).getAssetId_b()));
-                    measPlacemark.appendChild(name);
-
-                    Element styleUrl = doc.createElement("styleUrl");
-                    styleUrl.appendChild(doc.createTextNode("#measurementStyle"));
-
-                    measPlacemark.appendChild(styleUrl);
-
-                    Element line = doc.createElement("LineString");
-                    Element circleCoords = doc.createElement("coordinates");
-
-                    Iterator hyperbolaPoints = hyperbola.iterator();
-
-                    try {
-                        synchronized (hyperbolaPoints) {
-                            while (hyperbolaPoints.hasNext()) {
-                                double[] point = (double[]) hyperbolaPoints.next();
-                                circleCoords.appendChild(doc.createTextNode(point[1] + "," + point[0] + ",0 \n"));
-                            }
-                        }
-                    } catch (Exception esynch) {
-                        log.debug("error iterating over measurement hyperbola, b/c it being updated");
-                    }
-                    line.appendChild(circleCoords);
-
-                    measPlacemark.appendChild(line);
-                } catch (Exception emeas) {
-                    log.error("error exporting meas hyperbola to kml");
-                    emeas.printStackTrace();
-                }
+                writeMeasurement(writer, "TDOA:"+geoMission.getObservations().get(ele).getAssetId()+"/"+geoMission.getObservations().get(ele).getAssetId_b(), hyperbola, coords);
             }
         }
     }
 
     /* Plot AOA measurements */
-    public static void exportMeasurementDirections(Document doc, Element dnode, GeoMission geoMission) {
+    public static void exportMeasurementDirections(XMLStreamWriter writer, GeoMission geoMission, StringBuilder coords) throws XMLStreamException {
         Set keys = geoMission.linesToShow;
         log.trace("# measurement lines: "+keys.size());
         Iterator keyIt = keys.iterator();
         while (keyIt.hasNext()) {
             Long ele = (Long) keyIt.next();
             log.trace("Creating AOA kml for ele: "+ele);
-            List<double[]> aoa_line = (ArrayList<double[]>) geoMission.getObservations().get(ele).getLineGeometry();
+            List<double[]> aoa_line = geoMission.getObservations().get(ele).getLineGeometry();
 
             if (!aoa_line.isEmpty())
             {
-                try {
-                    log.trace("CREATING NEW MEAS Line in KML");
-
-                    Element measPlacemark = doc.createElement("Placemark");
-                    dnode.appendChild(measPlacemark);
-
-                    Element name = doc.createElement("name");
-                    name.appendChild(doc.createTextNode("AOA:"+geoMission.getObservations().get(ele).getAssetId()));
-                    measPlacemark.appendChild(name);
-
-                    Element styleUrl = doc.createElement("styleUrl");
-                    styleUrl.appendChild(doc.createTextNode("#measurementStyle"));
+                writeMeasurement(writer, "AOA:"+geoMission.getObservations().get(ele).getAssetId(), aoa_line, coords);
+            }
+        }
+    }
 
-                    measPlacemark.appendChild(styleUrl);
+    /* Measurement placemark, a line through the measurement geometry points */
+    static void writeMeasurement(XMLStreamWriter writer, String name, List<double[]> points, StringBuilder coords) throws XMLStreamException {
+        writer.writeStartElement("Placemark");
+        writeElement(writer, "name", name);
+        writeElement(writer, "styleUrl", "#measurementStyle");
+        writer.writeStartElement("LineString");
+        writeCoordinates(writer, points, ",0 \n", coords);
+        writer.writeEndElement();
+        writer.writeEndElement();
+    }
 
-                    Element line = doc.createElement("LineString");
-                    Element circleCoords = doc.createElement("coordinates");
+    /* Coordinates element of lon,lat<suffix> tuples, formatted into the reused builder */
+    static void writeCoordinates(XMLStreamWriter writer, List<double[]> points, String suffix, StringBuilder coords) throws XMLStreamException {
+        writer.writeStartElement("coordinates");
+        for (double[] point : points) {
+            coords.setLength(0);
+            coords.append(point[1]).append(',').append(point[0]).append(suffix);
+            writer.writeCharacters(coords.toString());
+        }
+        writer.writeEndElement();
+    }
 
-                    Iterator linePoints = aoa_line.iterator();
+    static void writeIconStyle(XMLStreamWriter writer, String styleId, String iconStyleId, String href) throws XMLStreamException {
+        writer.writeStartElement("Style");
+        writer.writeAttribute("id", styleId);
+        writer.writeStartElement("IconStyle");
+        writer.writeAttribute("id", iconStyleId);
+        writer.writeStartElement("Icon");
+        writeElement(writer, "href", href);
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndElement();
+    }
 
-                    try {
-                        synchronized (linePoints) {
-                            while (linePoints.hasNext()) {
-                                double[] point = (double[]) linePoints.next();
-                                circleCoords.appendChild(doc.createTextNode(point[1] + "," + point[0] + ",0 \n"));
-                            }
-                        }
-                    } catch (Exception esynch) {
-                        log.trace("error iterating over measurement line, b/c it being updated");
-                    }
-                    line.appendChild(circleCoords);
+    static void writePoint(XMLStreamWriter writer, String coordinates) throws XMLStreamException {
+        writer.writeStartElement("Point");
+        writeElement(writer, "coordinates", coordinates);
+        writer.writeEndElement();
+    }
 
-                    measPlacemark.appendChild(line);
-                } catch (Exception emeas) {
-                    log.error("error exporting meas line to kml");
-                    emeas.printStackTrace();
-                }
-            }
-        }
+    static void writeElement(XMLStreamWriter writer, String name, String text) throws XMLStreamException {
+        writer.writeStartElement(name);
+        writer.writeCharacters(text);
+        writer.writeEndElement();
     }
 }
-
@@ -0,0 +1,106 @@
+package tech.edgx.cage.util;
+
+import tech.edgx.cage.model.Observation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Time ordered index of observation expiry, for evicting observations older than the mission's TTL
+ *  - Entries are queued by expiry time, eviction polls only the expired head of the queue rather than scanning
+ *    all observations
+ *  - An observation's expiry is its measurement time plus the TTL, or the time it was indexed plus the TTL if it
+ *    has no measurement time
+ *  - Re-adding (or removing) an observation supersedes its queued entry, which is discarded lazily when polled, or
+ *    when superseded entries have accumulated to well beyond the live ones
+ *  - Not thread safe, callers hold the manager lock
+ */
+public class ObservationExpiryIndex {
+
+    /* Queue is compacted once it holds this many times the live entries (plus slack) */
+    static final int COMPACTION_FACTOR = 2;
+    static final int COMPACTION_SLACK = 64;
+
+    static class Entry {
+        final long expiry;
+        final Observation observation;
+
+        Entry(long expiry, Observation observation) {
+            this.expiry = expiry;
+            this.observation = observation;
+        }
+    }
+
+    final long ttl;
+
+    final PriorityQueue<Entry> queue = new PriorityQueue<Entry>((a, b) -> Long.compare(a.expiry, b.expiry));
+
+    /* Live entry per observation id */
+    final Map<Long, Entry> live = new HashMap<Long, Entry>();
+
+    long evicted = 0;
+
+    public ObservationExpiryIndex(long ttl) {
+        if (ttl < 1) {
+            throw new IllegalArgumentException("Observation TTL must be at least 1 ms");
+        }
+        this.ttl = ttl;
+    }
+
+    /* Index an observation as of now [epoch ms], superseding any previous entry for its id */
+    public void add(Observation obs, long now) {
+        long time = (obs.getTime() != null) ? obs.getTime() : now;
+        Entry entry = new Entry(time + ttl, obs);
+        live.put(obs.getId(), entry);
+        queue.add(entry);
+        if (queue.size() > COMPACTION_FACTOR * live.size() + COMPACTION_SLACK) {
+            queue.removeIf(e -> live.get(e.observation.getId()) != e);
+        }
+    }
+
+    public void remove(Long observationId) {
+        live.remove(observationId);
+    }
+
+    /* Remove and return the observations which have expired by the given time [epoch ms] */
+    public List<Observation> pollExpired(long now) {
+        List<Observation> expired = new ArrayList<Observation>();
+        while (!queue.isEmpty() && queue.peek().expiry <= now) {
+            Entry entry = queue.poll();
+            if (live.get(entry.observation.getId()) == entry) {
+                live.remove(entry.observation.getId());
+                expired.add(entry.observation);
+            }
+        }
+        evicted += expired.size();
+        return expired;
+    }
+
+    /* Earliest expiry [epoch ms], null if nothing is indexed. May belong to a superseded entry, i.e. fire early */
+    public Long nextExpiry() {
+        Entry head = queue.peek();
+        return (head == null) ? null : head.expiry;
+    }
+
+    public void clear() {
+        queue.clear();
+        live.clear();
+    }
+
+    /* # queued entries, including superseded ones not yet discarded */
+    public int size() {
+        return queue.size();
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    /* # observations evicted over the life of the index */
+    public long getEvicted() {
+        return evicted;
+    }
+}
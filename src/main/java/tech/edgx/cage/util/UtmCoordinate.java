@@ -0,0 +1,53 @@
+package tech.edgx.cage.util;
+
+/**
+ * Result of a single lat/lon to UTM projection, northing/easting together with the zones
+ *  - Retains the projected lat/lon so a cached projection can be checked against a reported position
+ */
+public class UtmCoordinate {
+
+    final double lat;
+    final double lon;
+    final double northing;
+    final double easting;
+    final char latZone;
+    final int lonZone;
+
+    public UtmCoordinate(double lat, double lon, double northing, double easting, char latZone, int lonZone) {
+        this.lat = lat;
+        this.lon = lon;
+        this.northing = northing;
+        this.easting = easting;
+        this.latZone = latZone;
+        this.lonZone = lonZone;
+    }
+
+    /* Whether this is the projection of exactly the given position */
+    public boolean isProjectionOf(double lat, double lon) {
+        return this.lat == lat && this.lon == lon;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getLon() {
+        return lon;
+    }
+
+    public double getNorthing() {
+        return northing;
+    }
+
+    public double getEasting() {
+        return easting;
+    }
+
+    public char getLatZone() {
+        return latZone;
+    }
+
+    public int getLonZone() {
+        return lonZone;
+    }
+}
@@ -0,0 +1,66 @@
+package tech.edgx.cage.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of the most recent UTM projection per asset
+ *  - Observation feeds re-report stationary assets repeatedly, their projection is reused while the reported
+ *    position is unchanged. A moved asset is re-projected and replaces its entry
+ *  - Least recently used assets are evicted once capacity is reached, a capacity of 0 disables caching
+ */
+public class UtmProjectionCache {
+
+    final int capacity;
+
+    final Map<String, UtmCoordinate> projections;
+
+    long hits = 0;
+    long misses = 0;
+
+    public UtmProjectionCache(final int capacity) {
+        this.capacity = capacity;
+        this.projections = new LinkedHashMap<String, UtmCoordinate>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UtmCoordinate> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized UtmCoordinate project(String assetId, double lat, double lon) {
+        if (capacity > 0 && assetId != null) {
+            UtmCoordinate cached = projections.get(assetId);
+            if (cached != null && cached.isProjectionOf(lat, lon)) {
+                hits++;
+                return cached;
+            }
+        }
+        misses++;
+        UtmCoordinate projection = Helpers.convertLatLngToUtm(lat, lon);
+        if (capacity > 0 && assetId != null) {
+            projections.put(assetId, projection);
+        }
+        return projection;
+    }
+
+    public synchronized void clear() {
+        projections.clear();
+    }
+
+    public synchronized int size() {
+        return projections.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,161 @@
+package tech.edgx.cage.batch;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.edgx.cage.CageListener;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.compute.ComputeResults;
+import tech.edgx.cage.model.*;
+import tech.edgx.cage.util.Helpers;
+import tech.edgx.cage.util.ObservationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchObservationITs implements CageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchObservationITs.class);
+
+    double true_lat = -31.98; double true_lon = 116.0;
+
+    /* Some common asset coords to reuse */
+    double[][] asset_coords = new double[][]{{-31.9, 115.98}, {-31.88, 115.97}, {-31.78, 115.90}, {-32.0, 115.85}};
+
+    double[] latest_est_latlon;
+
+    /* Result callback */
+    @Override
+    public void result(String geoId, double lat, double lon, double cep_elp_maj, double cep_elp_min, double cep_elp_rot) {
+        log.debug("Result -> GeoId: "+geoId+", Lat: "+lat+", Lon: "+lon+", CEP major: "+cep_elp_maj+", CEP minor: "+cep_elp_min+", CEP rotation: "+cep_elp_rot);
+    }
+
+    /* Result callback */
+    @Override
+    public void result(ComputeResults results) {
+        latest_est_latlon = new double[]{results.getGeolocationResult().getLat(),results.getGeolocationResult().getLon()};
+    }
+
+    @Test
+    public void testBatchMatchesIndividualAdds() throws Exception {
+        CageProcessManager individual = createManager();
+        for (Observation obs : createObservations(0)) {
+            individual.addObservation(obs);
+        }
+        CageProcessManager batch = createManager();
+        batch.addObservations(createObservations(0), true);
+
+        assertEquals(individual.getGeoMission().getObservations().size(), batch.getGeoMission().getObservations().size());
+        assertEquals(individual.getGeoMission().getAssets().keySet(), batch.getGeoMission().getAssets().keySet());
+        assertEquals(individual.getGeoMission().circlesToShow, batch.getGeoMission().circlesToShow);
+        assertEquals(individual.getGeoMission().hyperbolasToShow, batch.getGeoMission().hyperbolasToShow);
+        assertEquals(individual.getGeoMission().linesToShow, batch.getGeoMission().linesToShow);
+        for (Observation obs : individual.getGeoMission().getObservations().values()) {
+            Observation batchObs = batch.getGeoMission().getObservations().get(obs.getId());
+            assertEquals(obs.getX(), batchObs.getX(), 0);
+            assertEquals(obs.getY(), batchObs.getY(), 0);
+            assertEquals(obs.getMeas_error(), batchObs.getMeas_error());
+        }
+    }
+
+    @Test
+    public void testInvalidBatchAddsNothing() throws Exception {
+        CageProcessManager cageProcessManager = createManager();
+        List<Observation> observations = createObservations(0);
+        observations.get(2).setAssetId(null);
+        try {
+            cageProcessManager.addObservations(observations, true);
+            fail("Expected an invalid observation");
+        }
+        catch (ObservationException oe) {
+            log.debug("Rejected batch: "+oe.getMessage());
+        }
+        assertTrue(cageProcessManager.getGeoMission().getObservations().isEmpty());
+        assertTrue(cageProcessManager.getGeoMission().getAssets().isEmpty());
+    }
+
+    @Test
+    public void testReplaceObservations() throws Exception {
+        CageProcessManager cageProcessManager = createManager();
+        cageProcessManager.addObservations(createObservations(0));
+        List<Observation> replacement = createObservations(100).subList(0, 3);
+        cageProcessManager.replaceObservations(replacement);
+
+        assertEquals(3, cageProcessManager.getGeoMission().getObservations().size());
+        for (Observation obs : replacement) {
+            assertNotNull(cageProcessManager.getGeoMission().getObservations().get(obs.getId()));
+        }
+        assertEquals(1, cageProcessManager.getGeoMission().circlesToShow.size());
+    }
+
+    @Test
+    public void testBatchFix() throws Exception {
+        CageProcessManager cageProcessManager = createManager();
+        cageProcessManager.addObservations(createObservations(0), true);
+        latest_est_latlon = null;
+        Thread thread = cageProcessManager.start();
+        thread.join();
+
+        assertNotNull(latest_est_latlon);
+        double[] true_nth_east = Helpers.convertLatLngToUtmNthingEasting(true_lat, true_lon);
+        double[] est_nth_east = Helpers.convertLatLngToUtmNthingEasting(latest_est_latlon[0], latest_est_latlon[1]);
+        double ate = Math.sqrt(Math.pow(true_nth_east[0] - est_nth_east[0], 2) + Math.pow(true_nth_east[1] - est_nth_east[1], 2));
+        log.debug("ATE [m]: "+ate);
+        assertTrue("ATE: "+ate, ate < 1000);
+    }
+
+    private CageProcessManager createManager() throws Exception {
+        GeoMission geoMission = new GeoMission();
+        geoMission.setMissionMode(MissionMode.fix);
+        geoMission.setTarget(new Target("MY_TGT_ID","MY_TGT_NAME"));
+        geoMission.setGeoId("MY_GEO_ID");
+        geoMission.setShowMeas(true);
+        geoMission.setOutputKml(false);
+        geoMission.setOutputFilterState(false);
+        CageProcessManager cageProcessManager = new CageProcessManager(this);
+        cageProcessManager.configure(geoMission);
+        return cageProcessManager;
+    }
+
+    /* Exact range, tdoa and aoa observations from each asset, ids starting at the given id */
+    private List<Observation> createObservations(long firstId) {
+        double[] true_utm = Helpers.convertLatLngToUtmNthingEasting(true_lat, true_lon);
+        List<Observation> observations = new ArrayList<Observation>();
+        long id = firstId;
+        for (int i=0;i<asset_coords.length;i++) {
+            double[] asset_utm = Helpers.convertLatLngToUtmNthingEasting(asset_coords[i][0], asset_coords[i][1]);
+            double range = range(asset_utm, true_utm);
+
+            Observation range_obs = new Observation(id++, "A"+i, asset_coords[i][0], asset_coords[i][1]);
+            range_obs.setObservationType(ObservationType.range);
+            range_obs.setMeas(range);
+            observations.add(range_obs);
+
+            Observation aoa_obs = new Observation(id++, "A"+i, asset_coords[i][0], asset_coords[i][1]);
+            aoa_obs.setObservationType(ObservationType.aoa);
+            double aoa = Math.atan2(true_utm[0] - asset_utm[0], true_utm[1] - asset_utm[1]);
+            aoa_obs.setMeas(aoa < 0 ? aoa + 2*Math.PI : aoa);
+            observations.add(aoa_obs);
+
+            int j = (i + 1) % asset_coords.length;
+            double[] asset_b_utm = Helpers.convertLatLngToUtmNthingEasting(asset_coords[j][0], asset_coords[j][1]);
+            Observation tdoa_obs = new Observation(id++, "A"+i, asset_coords[i][0], asset_coords[i][1]);
+            tdoa_obs.setObservationType(ObservationType.tdoa);
+            tdoa_obs.setAssetId_b("A"+j);
+            tdoa_obs.setLat_b(asset_coords[j][0]);
+            tdoa_obs.setLon_b(asset_coords[j][1]);
+            tdoa_obs.setMeas((range - range(asset_b_utm, true_utm)) / Helpers.SPEED_OF_LIGHT);
+            observations.add(tdoa_obs);
+        }
+        return observations;
+    }
+
+    private double range(double[] a, double[] b) {
+        return Math.sqrt(Math.pow(a[0] - b[0], 2) + Math.pow(a[1] - b[1], 2));
+    }
+}
@@ -0,0 +1,71 @@
+package tech.edgx.cage.compute;
+
+import tech.edgx.cage.model.Observation;
+import tech.edgx.cage.model.ObservationType;
+import tech.edgx.cage.util.Helpers;
+
+/**
+ * Exact observations of a target in UTM coords [x,y], shared by the filter kernel and initial state estimator tests
+ */
+class ObservationFixtures {
+
+    static final double MEAS_ERROR = 0.3;
+
+    /* UTM coords of a target and assets, roughly as per the fix tests */
+    static final double[] TARGET = new double[]{405000, 6461000};
+    static final double[][] ASSETS = new double[][]{{403000, 6470000}, {404000, 6472000}, {396000, 6483000}, {384000, 6459000}};
+
+    /* Velocity [m/s] of a target moving from TARGET */
+    static final double[] VELOCITY = new double[]{10, -5};
+
+    static final double[][] PROCESS_NOISE = new double[][]{{0.01, 0}, {0, 0.01}};
+
+    /* Moving target position after the given # seconds */
+    static double[] targetAt(double seconds) {
+        return new double[]{TARGET[0] + VELOCITY[0]*seconds, TARGET[1] + VELOCITY[1]*seconds};
+    }
+
+    /* Offset of the target from TARGET [m] */
+    static double[] offset(double dx, double dy) {
+        return new double[]{TARGET[0] + dx, TARGET[1] + dy};
+    }
+
+    static double range(double[] asset, double[] target) {
+        return Math.sqrt(Math.pow(asset[0]-target[0],2) + Math.pow(asset[1]-target[1],2));
+    }
+
+    /* Distance of the kernel's estimate from the target [m] */
+    static double error(FilterKernel kernel, double[] target) {
+        return Math.sqrt(Math.pow(kernel.getX()-target[0],2) + Math.pow(kernel.getY()-target[1],2));
+    }
+
+    static Observation createRange(long id, double[] asset, double[] target) {
+        Observation obs = createObservation(id, asset, ObservationType.range);
+        obs.setMeas(range(asset, target));
+        return obs;
+    }
+
+    static Observation createTdoa(long id, double[] asset, double[] asset_b, double[] target) {
+        Observation obs = createObservation(id, asset, ObservationType.tdoa);
+        obs.setXb(asset_b[0]);
+        obs.setYb(asset_b[1]);
+        obs.setMeas((range(asset, target) - range(asset_b, target)) / Helpers.SPEED_OF_LIGHT);
+        return obs;
+    }
+
+    static Observation createAoa(long id, double[] asset, double[] target) {
+        Observation obs = createObservation(id, asset, ObservationType.aoa);
+        double meas_aoa = Math.atan2(target[1]-asset[1], target[0]-asset[0]);
+        obs.setMeas(meas_aoa < 0 ? meas_aoa + 2*Math.PI : meas_aoa);
+        return obs;
+    }
+
+    static Observation createObservation(long id, double[] asset, ObservationType observationType) {
+        Observation obs = new Observation(id, "A"+id, 0, 0);
+        obs.setX(asset[0]);
+        obs.setY(asset[1]);
+        obs.setObservationType(observationType);
+        obs.setMeas_error(MEAS_ERROR);
+        return obs;
+    }
+}
@@ -0,0 +1,75 @@
+package tech.edgx.cage.compute;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.edgx.cage.model.Observation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static tech.edgx.cage.compute.ObservationFixtures.*;
+
+public class TestClosedFormEstimator {
+
+    private static final Logger log = LoggerFactory.getLogger(TestClosedFormEstimator.class);
+
+    @Test
+    public void testRange() {
+        List<Observation> observations = new ArrayList<Observation>();
+        for (int i=0;i<ASSETS.length;i++) {
+            observations.add(createRange(i, ASSETS[i], TARGET));
+        }
+        assertEstimate(ClosedFormEstimator.estimate(ObservationBuffer.compile(observations)));
+    }
+
+    @Test
+    public void testTdoa() {
+        List<Observation> observations = new ArrayList<Observation>();
+        for (int i=1;i<ASSETS.length;i++) {
+            observations.add(createTdoa(i, ASSETS[0], ASSETS[i], TARGET));
+        }
+        assertEstimate(ClosedFormEstimator.estimate(ObservationBuffer.compile(observations)));
+    }
+
+    @Test
+    public void testAoa() {
+        List<Observation> observations = new ArrayList<Observation>();
+        for (int i=0;i<ASSETS.length;i++) {
+            observations.add(createAoa(i, ASSETS[i], TARGET));
+        }
+        assertEstimate(ClosedFormEstimator.estimate(ObservationBuffer.compile(observations)));
+    }
+
+    @Test
+    public void testMixed() {
+        List<Observation> observations = new ArrayList<Observation>();
+        observations.add(createRange(0, ASSETS[0], TARGET));
+        observations.add(createRange(1, ASSETS[1], TARGET));
+        observations.add(createAoa(2, ASSETS[2], TARGET));
+        observations.add(createTdoa(3, ASSETS[3], ASSETS[0], TARGET));
+        observations.add(createTdoa(4, ASSETS[3], ASSETS[1], TARGET));
+        assertEstimate(ClosedFormEstimator.estimate(ObservationBuffer.compile(observations)));
+    }
+
+    @Test
+    public void testUnderDetermined() {
+        List<Observation> observations = new ArrayList<Observation>();
+        observations.add(createRange(0, ASSETS[0], TARGET));
+        observations.add(createRange(1, ASSETS[1], TARGET));
+        assertNull(ClosedFormEstimator.estimate(ObservationBuffer.compile(observations)));
+    }
+
+    private void assertEstimate(ClosedFormEstimator estimate) {
+        assertNotNull(estimate);
+        log.debug("Estimate: "+estimate.getX()+","+estimate.getY());
+        assertEquals(TARGET[0], estimate.getX(), 1);
+        assertEquals(TARGET[1], estimate.getY(), 1);
+        assertTrue(estimate.getCovariance()[0][0] <= ClosedFormEstimator.MAX_INITIAL_COVARIANCE);
+        assertTrue(estimate.getCovariance()[1][1] <= ClosedFormEstimator.MAX_INITIAL_COVARIANCE);
+    }
+}
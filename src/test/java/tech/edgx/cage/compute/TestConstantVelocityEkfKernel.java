@@ -0,0 +1,123 @@
+package tech.edgx.cage.compute;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.edgx.cage.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tech.edgx.cage.compute.ObservationFixtures.*;
+
+public class TestConstantVelocityEkfKernel {
+
+    private static final Logger log = LoggerFactory.getLogger(TestConstantVelocityEkfKernel.class);
+
+    /* Range from each asset once a second over the given # seconds */
+    private ObservationBuffer movingTargetObservations(int seconds) {
+        List<Observation> observations = new ArrayList<Observation>();
+        long id = 0;
+        for (int t=0;t<seconds;t++) {
+            for (int i=0;i<ASSETS.length;i++) {
+                Observation range = createRange(id++, ASSETS[i], targetAt(t));
+                range.setTime(1000L*t);
+                observations.add(range);
+            }
+        }
+        return ObservationBuffer.compile(observations);
+    }
+
+    @Test
+    public void testTracksMovingTargetAtLatestTime() {
+        int seconds = 10;
+        ObservationBuffer buffer = movingTargetObservations(seconds);
+        double[] target = targetAt(seconds-1);
+
+        ConstantVelocityEkfKernel cvKernel = new ConstantVelocityEkfKernel();
+        cvKernel.initialise(target[0] + 3000, target[1] + 3000, new double[][]{{0.01, 0}, {0, 0.01}}, PROCESS_NOISE);
+        PrimitiveEkfKernel kernel = new PrimitiveEkfKernel();
+        kernel.initialise(target[0] + 3000, target[1] + 3000, 0.01, PROCESS_NOISE);
+        for (int k=0;k<5000;k++) {
+            cvKernel.iterate(buffer);
+            kernel.iterate(buffer);
+        }
+        double cvError = error(cvKernel, target);
+        double error = error(kernel, target);
+        log.debug("Constant velocity error: "+cvError+", velocity: "+cvKernel.getVx()+","+cvKernel.getVy()+", position only error: "+error);
+
+        assertEquals(1000L*(seconds-1), cvKernel.getEpoch());
+        assertTrue(cvError < 5);
+        assertTrue(error > 10*cvError);
+        assertEquals(VELOCITY[0], cvKernel.getVx(), 1);
+        assertEquals(VELOCITY[1], cvKernel.getVy(), 1);
+    }
+
+    @Test
+    public void testAdvancesToNewerObservations() {
+        ConstantVelocityEkfKernel cvKernel = new ConstantVelocityEkfKernel();
+        cvKernel.initialise(TARGET[0], TARGET[1], new double[][]{{0.01, 0}, {0, 0.01}}, PROCESS_NOISE);
+        cvKernel.xk[2] = VELOCITY[0];
+        cvKernel.xk[3] = VELOCITY[1];
+        cvKernel.advanceTo(0);
+        double pxx = cvKernel.p[0][0];
+        cvKernel.advanceTo(2000);
+        assertEquals(targetAt(2)[0], cvKernel.getX(), 1e-9);
+        assertEquals(targetAt(2)[1], cvKernel.getY(), 1e-9);
+        /* P' = F.P.F', position variance grows by dt^2 x velocity variance */
+        assertEquals(pxx + 4*cvKernel.p[2][2], cvKernel.p[0][0], 1e-12);
+        assertEquals(2*cvKernel.p[2][2], cvKernel.p[0][2], 1e-12);
+        /* Never steps back */
+        cvKernel.advanceTo(1000);
+        assertEquals(2000L, cvKernel.getEpoch());
+    }
+
+    @Test
+    public void testSimultaneousObservationsMatchPositionOnly() {
+        ObservationBuffer buffer = movingTargetObservations(1);
+        ConstantVelocityEkfKernel cvKernel = new ConstantVelocityEkfKernel();
+        cvKernel.initialise(TARGET[0] + 3000, TARGET[1] + 3000, new double[][]{{0.01, 0}, {0, 0.01}}, PROCESS_NOISE);
+        PrimitiveEkfKernel kernel = new PrimitiveEkfKernel();
+        kernel.initialise(TARGET[0] + 3000, TARGET[1] + 3000, 0.01, PROCESS_NOISE);
+        for (int k=0;k<2000;k++) {
+            cvKernel.iterate(buffer);
+            kernel.iterate(buffer);
+        }
+        /* No time spread, nothing informs the velocity */
+        assertEquals(kernel.getX(), cvKernel.getX(), 1e-3);
+        assertEquals(kernel.getY(), cvKernel.getY(), 1e-3);
+        assertEquals(0, cvKernel.getVx(), 0);
+        assertEquals(0, cvKernel.getVy(), 0);
+    }
+
+    @Test
+    public void testFewerIterationsPerUpdate() {
+        /* Tracking, a new observation per asset each second and only a few iterations between updates */
+        ConstantVelocityEkfKernel cvKernel = new ConstantVelocityEkfKernel();
+        cvKernel.initialise(TARGET[0] + 3000, TARGET[1] + 3000, new double[][]{{0.01, 0}, {0, 0.01}}, PROCESS_NOISE);
+        PrimitiveEkfKernel kernel = new PrimitiveEkfKernel();
+        kernel.initialise(TARGET[0] + 3000, TARGET[1] + 3000, 0.01, PROCESS_NOISE);
+        double cvError = 0; double error = 0;
+        for (int t=0;t<60;t++) {
+            double[] target = targetAt(t);
+            List<Observation> observations = new ArrayList<Observation>();
+            for (int i=0;i<ASSETS.length;i++) {
+                Observation range = createRange(i, ASSETS[i], target);
+                range.setTime(1000L*t);
+                observations.add(range);
+            }
+            ObservationBuffer buffer = ObservationBuffer.compile(observations);
+            for (int k=0;k<5;k++) {
+                cvKernel.iterate(buffer);
+                kernel.iterate(buffer);
+            }
+            cvError = error(cvKernel, target);
+            error = error(kernel, target);
+        }
+        log.debug("Constant velocity error: "+cvError+", position only error: "+error);
+        assertTrue(cvError < 1);
+        assertTrue(error > 5);
+    }
+}
@@ -0,0 +1,64 @@
+package tech.edgx.cage.compute;
+
+import org.junit.Test;
+
+import java.util.function.LongToDoubleFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestConvergenceMonitor {
+
+    /* Offer residual(k) until the monitor calls a stop, returns the trend and the iteration it was called at */
+    private Object[] run(ConvergenceMonitor monitor, long iterations, LongToDoubleFunction residual) {
+        for (long k=0;k<iterations;k++) {
+            ConvergenceTrend trend = monitor.offer(residual.applyAsDouble(k));
+            if (!trend.equals(ConvergenceTrend.converging)) {
+                return new Object[]{trend, k};
+            }
+        }
+        return new Object[]{ConvergenceTrend.converging, iterations};
+    }
+
+    @Test
+    public void testGeometricDecayContinues() {
+        ConvergenceMonitor monitor = new ConvergenceMonitor(100, 100000, 0.01);
+        Object[] result = run(monitor, 5000, k -> 100*Math.pow(0.999, k));
+        assertEquals(ConvergenceTrend.converging, result[0]);
+    }
+
+    @Test
+    public void testPlateauStalls() {
+        ConvergenceMonitor monitor = new ConvergenceMonitor(100, 100000, 0.01);
+        Object[] result = run(monitor, 100000, k -> Math.max(100*Math.pow(0.99, k), 5));
+        assertEquals(ConvergenceTrend.stalled, result[0]);
+        assertEquals(499L, result[1]);
+    }
+
+    @Test
+    public void testSlowDecayStallsOnBudget() {
+        /* 1/k decay, would take 10^6 iterations to reach the threshold, stops once the slowing rate can't make it */
+        ConvergenceMonitor monitor = new ConvergenceMonitor(100, 100000, 0.01);
+        Object[] result = run(monitor, 100000, k -> 10000.0/(k+1));
+        assertEquals(ConvergenceTrend.stalled, result[0]);
+        assertTrue((Long) result[1] < 25000);
+    }
+
+    @Test
+    public void testDivergence() {
+        ConvergenceMonitor monitor = new ConvergenceMonitor(100, 100000, 0.01);
+        Object[] result = run(monitor, 100000, k -> k < 300 ? 100*Math.pow(0.99, k) : 1000);
+        assertEquals(ConvergenceTrend.diverged, result[0]);
+        assertEquals(399L, result[1]);
+    }
+
+    @Test
+    public void testResetForNewAttempt() {
+        ConvergenceMonitor monitor = new ConvergenceMonitor(100, 100000, 0.01);
+        run(monitor, 100000, k -> 5);
+        monitor.reset(50000);
+        assertEquals(0, monitor.getIterations());
+        Object[] result = run(monitor, 5000, k -> 100*Math.pow(0.999, k));
+        assertEquals(ConvergenceTrend.converging, result[0]);
+    }
+}
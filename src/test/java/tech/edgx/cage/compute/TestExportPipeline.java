@@ -0,0 +1,103 @@
+package tech.edgx.cage.compute;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestExportPipeline {
+
+    ExportPipeline exportPipeline;
+
+    /* Holds the worker in its first export until released */
+    CountDownLatch started;
+    CountDownLatch release;
+
+    List<String> exported = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void configure() throws Exception {
+        exportPipeline = new ExportPipeline(2);
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        exportPipeline.submit("BLOCKER", new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void teardown() {
+        release.countDown();
+        exportPipeline.shutdown();
+    }
+
+    @Test
+    public void testCoalescesToLatest() throws Exception {
+        for (int i=0;i<5;i++) {
+            exportPipeline.submit("A", export("A"+i));
+        }
+        assertEquals(1, exportPipeline.getQueueDepth());
+        assertEquals(4, exportPipeline.getDroppedCount());
+
+        release.countDown();
+        assertTrue(exportPipeline.awaitIdle(5000));
+        assertEquals(Collections.singletonList("A4"), exported);
+    }
+
+    @Test
+    public void testBoundedDropsLongestWaiting() throws Exception {
+        exportPipeline.submit("A", export("A"));
+        exportPipeline.submit("B", export("B"));
+        exportPipeline.submit("C", export("C"));
+        assertEquals(2, exportPipeline.getQueueDepth());
+        assertEquals(1, exportPipeline.getDroppedCount());
+
+        release.countDown();
+        assertTrue(exportPipeline.awaitIdle(5000));
+        assertEquals(2, exported.size());
+        assertEquals("B", exported.get(0));
+        assertEquals("C", exported.get(1));
+    }
+
+    @Test
+    public void testFailedExportDoesNotStopPipeline() throws Exception {
+        exportPipeline.submit("A", new Runnable() {
+            @Override
+            public void run() {
+                throw new RuntimeException("Slow or broken sink");
+            }
+        });
+        exportPipeline.submit("B", export("B"));
+        release.countDown();
+        assertTrue(exportPipeline.awaitIdle(5000));
+        assertEquals(Collections.singletonList("B"), exported);
+        assertEquals(3, exportPipeline.getExportedCount());
+    }
+
+    private Runnable export(final String frame) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                exported.add(frame);
+            }
+        };
+    }
+}
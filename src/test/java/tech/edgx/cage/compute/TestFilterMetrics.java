@@ -0,0 +1,127 @@
+package tech.edgx.cage.compute;
+
+import org.junit.Test;
+import tech.edgx.cage.CageListener;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.model.*;
+import tech.edgx.cage.util.Helpers;
+
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class TestFilterMetrics implements CageListener {
+
+    @Override
+    public void result(String geoId, double lat, double lon, double cep_elp_maj, double cep_elp_min, double cep_elp_rot) {
+    }
+
+    @Override
+    public void result(ComputeResults results) {
+    }
+
+    @Test
+    public void testLatencyHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i=0;i<99;i++) {
+            histogram.record(100000); // 100us
+        }
+        histogram.record(50000000); // 50ms
+        assertEquals(100, histogram.getCount());
+        assertEquals(128, histogram.getPercentileMicros(50));
+        assertEquals(128, histogram.getPercentileMicros(99));
+        assertEquals(50000, histogram.getPercentileMicros(100));
+        assertEquals(50000, histogram.getMaxMicros());
+        assertEquals((99*100 + 50000)/100.0, histogram.getMeanMicros(), 1e-9);
+    }
+
+    @Test
+    public void testConvergenceEpisodes() {
+        FilterMetrics filterMetrics = new FilterMetrics("MY_GEO_ID");
+        filterMetrics.startConvergence();
+        for (int i=0;i<10;i++) {
+            filterMetrics.recordIteration(i, 100);
+        }
+        assertFalse(filterMetrics.isConverged());
+        assertEquals(-1, filterMetrics.getLastConvergenceIterations());
+
+        filterMetrics.recordConvergence(0.001);
+        filterMetrics.recordIteration(10, 0.001);
+        filterMetrics.recordConvergence(0.001);
+        assertTrue(filterMetrics.isConverged());
+        assertEquals(10, filterMetrics.getLastConvergenceIterations());
+        assertEquals(1, filterMetrics.getConvergenceCount());
+        assertEquals(0, filterMetrics.getMillisSinceConvergenceStart());
+
+        /* Observations changed */
+        filterMetrics.startConvergence();
+        filterMetrics.recordIteration(11, 100);
+        filterMetrics.recordConvergence(0.001);
+        assertEquals(1, filterMetrics.getLastConvergenceIterations());
+        assertEquals(2, filterMetrics.getConvergenceCount());
+        assertEquals(12, filterMetrics.getIterations());
+    }
+
+    /* Sampled on each execution's own iteration #, concurrent executions share no sampling state */
+    @Test
+    public void testInnovationSampledPerExecution() throws Exception {
+        final FilterMetrics filterMetrics = new FilterMetrics("MY_GEO_ID");
+        filterMetrics.recordIteration(1, 5);
+        assertTrue(Double.isNaN(filterMetrics.getInnovation()));
+        filterMetrics.recordIteration(FilterMetrics.SAMPLE_INTERVAL, 5);
+        assertEquals(5, filterMetrics.getInnovation(), 0);
+
+        Thread[] executions = new Thread[4];
+        for (int t=0;t<executions.length;t++) {
+            executions[t] = new Thread(() -> {
+                for (int k=1;k<10000;k++) {
+                    filterMetrics.recordIteration(k, 1);
+                }
+            });
+            executions[t].start();
+        }
+        for (Thread execution : executions) {
+            execution.join();
+        }
+        assertEquals(2 + executions.length*9999, filterMetrics.getIterations());
+        assertEquals(1, filterMetrics.getInnovation(), 0);
+    }
+
+    @Test
+    public void testFixMissionMetrics() throws Exception {
+        GeoMission geoMission = new GeoMission();
+        geoMission.setMissionMode(MissionMode.fix);
+        geoMission.setTarget(new Target("MY_TGT_ID","MY_TGT_NAME"));
+        geoMission.setGeoId("METRICS_GEO_ID");
+        geoMission.setOutputKml(false);
+        geoMission.setOutputFilterState(false);
+        geoMission.setMetricsJmx(true);
+        CageProcessManager cageProcessManager = new CageProcessManager(this);
+        cageProcessManager.configure(geoMission);
+
+        double[] true_utm = Helpers.convertLatLngToUtmNthingEasting(-31.98, 116.0);
+        double[][] asset_coords = new double[][]{{-31.9, 115.98}, {-31.88, 115.97}, {-31.78, 115.90}, {-32.0, 115.85}};
+        for (int i=0;i<asset_coords.length;i++) {
+            double[] asset_utm = Helpers.convertLatLngToUtmNthingEasting(asset_coords[i][0], asset_coords[i][1]);
+            Observation obs = new Observation((long) i, "A"+i, asset_coords[i][0], asset_coords[i][1]);
+            obs.setObservationType(ObservationType.range);
+            obs.setMeas(Math.sqrt(Math.pow(asset_utm[0]-true_utm[0],2) + Math.pow(asset_utm[1]-true_utm[1],2)));
+            cageProcessManager.addObservation(obs);
+        }
+
+        Thread thread = cageProcessManager.start();
+        thread.join();
+
+        FilterMetrics filterMetrics = cageProcessManager.getFilterMetrics();
+        assertTrue(filterMetrics.getIterations() > 0);
+        assertEquals(4, filterMetrics.getObservationsInUse());
+        assertEquals(1, filterMetrics.getDispatchCount());
+        assertTrue(filterMetrics.isConverged());
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(filterMetrics.getIterations(), mBeanServer.getAttribute(cageProcessManager.getFilterMetricsObjectName(), "Iterations"));
+        cageProcessManager.stop();
+        assertFalse(mBeanServer.isRegistered(cageProcessManager.getFilterMetricsObjectName()));
+    }
+}
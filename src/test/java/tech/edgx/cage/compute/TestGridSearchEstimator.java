@@ -0,0 +1,116 @@
+package tech.edgx.cage.compute;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.edgx.cage.model.Observation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static tech.edgx.cage.compute.ObservationFixtures.*;
+
+public class TestGridSearchEstimator {
+
+    private static final Logger log = LoggerFactory.getLogger(TestGridSearchEstimator.class);
+
+    /* Asset box corners, as per the box initial state modes */
+    Double[] lowerCorner = new Double[]{384000.0 - 5000, 6459000.0 - 5000};
+    Double[] upperCorner = new Double[]{404000.0 + 5000, 6483000.0 + 5000};
+
+    @Test
+    public void testTdoa() {
+        List<Observation> observations = new ArrayList<Observation>();
+        for (int i=1;i<ASSETS.length;i++) {
+            observations.add(createTdoa(i, ASSETS[0], ASSETS[i], TARGET));
+        }
+        assertEstimate(GridSearchEstimator.estimate(ObservationBuffer.compile(observations), lowerCorner, upperCorner), TARGET, 1);
+    }
+
+    @Test
+    public void testAoa() {
+        List<Observation> observations = new ArrayList<Observation>();
+        for (int i=0;i<ASSETS.length;i++) {
+            observations.add(createAoa(i, ASSETS[i], TARGET));
+        }
+        assertEstimate(GridSearchEstimator.estimate(ObservationBuffer.compile(observations), lowerCorner, upperCorner), TARGET, 1);
+    }
+
+    @Test
+    public void testMixed() {
+        List<Observation> observations = new ArrayList<Observation>();
+        observations.add(createRange(0, ASSETS[0], TARGET));
+        observations.add(createAoa(2, ASSETS[2], TARGET));
+        observations.add(createTdoa(3, ASSETS[3], ASSETS[0], TARGET));
+        observations.add(createTdoa(4, ASSETS[3], ASSETS[1], TARGET));
+        assertEstimate(GridSearchEstimator.estimate(ObservationBuffer.compile(observations), lowerCorner, upperCorner), TARGET, 1);
+    }
+
+    /* Range circles extend the box, the coarse cells are hundreds of metres yet refinement resolves the target to RESOLUTION */
+    @Test
+    public void testRefinementResolution() {
+        List<Observation> observations = new ArrayList<Observation>();
+        for (int i=0;i<ASSETS.length;i++) {
+            observations.add(createRange(i, ASSETS[i], TARGET));
+        }
+        GridSearchEstimator estimate = GridSearchEstimator.estimate(ObservationBuffer.compile(observations), lowerCorner, upperCorner);
+        assertEstimate(estimate, TARGET, GridSearchEstimator.RESOLUTION);
+        int maxEvaluations = GridSearchEstimator.COARSE_CELLS*GridSearchEstimator.COARSE_CELLS
+                + GridSearchEstimator.CANDIDATES*GridSearchEstimator.MAX_LEVELS*GridSearchEstimator.REFINE_CELLS*GridSearchEstimator.REFINE_CELLS;
+        assertTrue(estimate.getEvaluations() <= maxEvaluations);
+    }
+
+    /*
+     * TDOA from collinear assets is ambiguous with the target's mirror about their line, both are refined as
+     * candidates. A weak off-axis bearing favours the target, which is selected
+     */
+    @Test
+    public void testSelectsBestOfMirrorCandidates() {
+        double[] target = new double[]{412000, 6468000};
+        double[] mirror = new double[]{412000, 6452000};
+        double[][] collinear = new double[][]{{400000, 6460000}, {410000, 6460000}, {420000, 6460000}};
+        List<Observation> observations = new ArrayList<Observation>();
+        for (int i=1;i<collinear.length;i++) {
+            observations.add(createTdoa(i, collinear[0], collinear[i], target));
+        }
+        Observation bearing = createAoa(3, new double[]{430000, 6475000}, target);
+        bearing.setMeas_error(3.0);
+        observations.add(bearing);
+        ObservationBuffer buffer = ObservationBuffer.compile(observations);
+
+        /* The mirror is a near equal fit */
+        assertTrue(MeasurementModel.logLikelihood(buffer, mirror[0], mirror[1]) > -1);
+
+        Double[] lower = new Double[]{395000.0, 6445000.0};
+        Double[] upper = new Double[]{435000.0, 6480000.0};
+        assertEstimate(GridSearchEstimator.estimate(buffer, lower, upper), target, 1);
+    }
+
+    @Test
+    public void testNoObservations() {
+        assertNull(GridSearchEstimator.estimate(ObservationBuffer.compile(new ArrayList<Observation>()), lowerCorner, upperCorner));
+    }
+
+    @Test
+    public void testLocalMaxima() {
+        double[] grid = new double[]{
+                5, 1, 0,
+                1, 0, 1,
+                0, 2, 7};
+        assertArrayEquals(new int[]{8, 0, -1}, GridSearchEstimator.localMaxima(grid, 3, 3));
+    }
+
+    private void assertEstimate(GridSearchEstimator estimate, double[] target, double tolerance) {
+        assertNotNull(estimate);
+        log.debug("Estimate: "+estimate.getX()+","+estimate.getY()+", # evaluations: "+estimate.getEvaluations());
+        assertEquals(target[0], estimate.getX(), tolerance);
+        assertEquals(target[1], estimate.getY(), tolerance);
+        assertTrue(estimate.getCovariance()[0][0] <= ClosedFormEstimator.MAX_INITIAL_COVARIANCE);
+        assertTrue(estimate.getCovariance()[1][1] <= ClosedFormEstimator.MAX_INITIAL_COVARIANCE);
+    }
+}
@@ -0,0 +1,112 @@
+package tech.edgx.cage.compute;
+
+import org.junit.Test;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.model.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestObservationSnapshot {
+
+    @Test
+    public void testAoaLast() {
+        List<Observation> observations = new ArrayList<Observation>();
+        observations.add(createObservation(1, ObservationType.aoa));
+        observations.add(createObservation(2, ObservationType.range));
+        observations.add(createObservation(3, ObservationType.tdoa));
+        observations.add(createObservation(4, ObservationType.aoa));
+        observations.add(createObservation(5, ObservationType.range));
+
+        ObservationSnapshot snapshot = ObservationSnapshot.of(7, observations);
+        assertEquals(7, snapshot.getVersion());
+        assertEquals(5, snapshot.size());
+        Iterator<Long> ids = snapshot.getObservations().keySet().iterator();
+        long[] expected = new long[]{2, 5, 3, 1, 4};
+        for (long id : expected) {
+            assertEquals(id, (long) ids.next());
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        List<Observation> observations = new ArrayList<Observation>();
+        observations.add(createObservation(1, ObservationType.range));
+        ObservationSnapshot.of(1, observations).getObservations().remove(1L);
+    }
+
+    @Test
+    public void testAdoptedByReference() {
+        List<Observation> observations = new ArrayList<Observation>();
+        observations.add(createObservation(1, ObservationType.range));
+        ObservationSnapshot first = ObservationSnapshot.of(1, observations);
+        ComputeProcessor computeProcessor = new ComputeProcessor(null, first, new GeoMission());
+        assertFalse(computeProcessor.adoptLatestObservations());
+
+        observations.add(createObservation(2, ObservationType.aoa));
+        ObservationSnapshot second = ObservationSnapshot.of(2, observations);
+        computeProcessor.publishObservations(second);
+        assertSame(first.getBuffer(), computeProcessor.observationBuffer);
+
+        assertTrue(computeProcessor.adoptLatestObservations());
+        assertSame(second.getBuffer(), computeProcessor.observationBuffer);
+        assertEquals(2, computeProcessor.observations.size());
+    }
+
+    /* Changes through the manager are compiled once, when the processor next adopts them */
+    @Test
+    public void testBuiltOnAdoption() throws Exception {
+        GeoMission geoMission = new GeoMission();
+        geoMission.setMissionMode(MissionMode.track);
+        geoMission.setTarget(new Target("MY_TGT_ID","MY_TGT_NAME"));
+        geoMission.setGeoId("SNAPSHOT_GEO_ID");
+        geoMission.setOutputKml(false);
+        geoMission.setOutputFilterState(false);
+        CageProcessManager cageProcessManager = new CageProcessManager(null);
+        cageProcessManager.configure(geoMission);
+        cageProcessManager.addObservation(createManagedObservation(1));
+        ComputeProcessor computeProcessor = cageProcessManager.createProcessor();
+        ObservationSnapshot adopted = computeProcessor.observationSnapshot;
+        assertEquals(1, adopted.size());
+
+        for (long id=2;id<=100;id++) {
+            cageProcessManager.addObservation(createManagedObservation(id));
+        }
+        cageProcessManager.removeObservation(50L);
+        assertSame(adopted, computeProcessor.observationSnapshot);
+
+        /* The burst is adopted as a single snapshot, reused until observations change again */
+        assertTrue(computeProcessor.adoptLatestObservations());
+        ObservationSnapshot burst = computeProcessor.observationSnapshot;
+        assertEquals(99, burst.size());
+        assertEquals(101, burst.getVersion());
+        assertSame(burst, cageProcessManager.getObservationSnapshot());
+        assertFalse(computeProcessor.adoptLatestObservations());
+
+        cageProcessManager.removeObservation(1L);
+        assertTrue(computeProcessor.adoptLatestObservations());
+        assertEquals(98, computeProcessor.observationSnapshot.size());
+    }
+
+    private Observation createManagedObservation(long id) {
+        Observation obs = new Observation(id, "A"+id, -31.9 + id*0.001, 115.98);
+        obs.setObservationType(ObservationType.range);
+        obs.setMeas(1000.0);
+        obs.setMeas_error(0.1);
+        return obs;
+    }
+
+    private Observation createObservation(long id, ObservationType observationType) {
+        Observation obs = new Observation(id, "A"+id, 0, 0);
+        obs.setObservationType(observationType);
+        obs.setMeas(1.0);
+        obs.setMeas_error(0.1);
+        return obs;
+    }
+}
@@ -0,0 +1,145 @@
+package tech.edgx.cage.compute;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.edgx.cage.CageListener;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.model.*;
+import tech.edgx.cage.util.Helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestParticleFilterSolver implements CageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TestParticleFilterSolver.class);
+
+    @Override
+    public void result(String geoId, double lat, double lon, double cep_elp_maj, double cep_elp_min, double cep_elp_rot) {
+    }
+
+    @Override
+    public void result(ComputeResults results) {
+    }
+
+    /* UTM coords of collinear assets, tdoa from the first to each other leaves the target ambiguous with its mirror */
+    double true_x = 412000; double true_y = 6468000;
+    double mirror_x = 412000; double mirror_y = 6452000;
+    double[][] assets = new double[][]{{400000, 6460000}, {410000, 6460000}, {420000, 6460000}};
+
+    private double range(double[] asset) {
+        return Math.sqrt(Math.pow(asset[0]-true_x,2) + Math.pow(asset[1]-true_y,2));
+    }
+
+    private ObservationBuffer mirroredTdoaObservations() {
+        List<Observation> observations = new ArrayList<Observation>();
+        for (int i=1;i<assets.length;i++) {
+            Observation tdoa = new Observation((long) i, "A0", 0, 0);
+            tdoa.setX(assets[0][0]);
+            tdoa.setY(assets[0][1]);
+            tdoa.setXb(assets[i][0]);
+            tdoa.setYb(assets[i][1]);
+            tdoa.setObservationType(ObservationType.tdoa);
+            tdoa.setMeas_error(0.001);
+            tdoa.setMeas((range(assets[0]) - range(assets[i])) / Helpers.SPEED_OF_LIGHT);
+            observations.add(tdoa);
+        }
+        return ObservationBuffer.compile(observations);
+    }
+
+    @Test
+    public void testMirroredTdoaReportsBothModes() {
+        ObservationBuffer buffer = mirroredTdoaObservations();
+        ParticleFilterSolver particleFilter = new ParticleFilterSolver(4096);
+        particleFilter.initialise(buffer);
+        particleFilter.solve(buffer, 1000, null);
+        List<ParticleFilterSolver.Mode> modes = particleFilter.findModes(buffer, 1000, 0.0000001, null);
+        for (ParticleFilterSolver.Mode mode : modes) {
+            log.debug("Mode: "+mode.getX()+","+mode.getY()+", share: "+mode.getShare());
+        }
+
+        assertEquals(2, modes.size());
+        assertTrue(modes.get(0).getShare() >= modes.get(1).getShare());
+        assertTrue(modes.get(0).getShare() + modes.get(1).getShare() <= 1);
+        boolean trueFirst = modes.get(0).getY() > assets[0][1];
+        ParticleFilterSolver.Mode trueMode = trueFirst ? modes.get(0) : modes.get(1);
+        ParticleFilterSolver.Mode mirrorMode = trueFirst ? modes.get(1) : modes.get(0);
+        assertEquals(true_x, trueMode.getX(), 1);
+        assertEquals(true_y, trueMode.getY(), 1);
+        assertEquals(mirror_x, mirrorMode.getX(), 1);
+        assertEquals(mirror_y, mirrorMode.getY(), 1);
+    }
+
+    @Test
+    public void testSystematicResampling() {
+        ParticleFilterSolver particleFilter = new ParticleFilterSolver(10);
+        for (int p=0;p<10;p++) {
+            particleFilter.px[p] = p;
+            particleFilter.weight[p] = 0;
+        }
+        particleFilter.weight[2] = 0.7;
+        particleFilter.weight[7] = 0.3;
+        particleFilter.resample();
+        int twos = 0; int sevens = 0;
+        for (int p=0;p<10;p++) {
+            if (particleFilter.px[p] == 2) twos++;
+            if (particleFilter.px[p] == 7) sevens++;
+        }
+        /* Systematic resampling copies each particle within one of its expected # */
+        assertEquals(7, twos);
+        assertEquals(3, sevens);
+    }
+
+    @Test
+    public void testFixMissionReportsSecondaryModes() throws Exception {
+        GeoMission geoMission = new GeoMission();
+        geoMission.setMissionMode(MissionMode.fix);
+        geoMission.setTarget(new Target("MY_TGT_ID","MY_TGT_NAME"));
+        geoMission.setGeoId("PARTICLE_GEO_ID");
+        geoMission.setOutputKml(false);
+        geoMission.setOutputFilterState(false);
+        geoMission.setFilterEngine(FilterEngine.particle);
+        CageProcessManager cageProcessManager = new CageProcessManager(this);
+        cageProcessManager.configure(geoMission);
+
+        /* As above, about an asset near Perth */
+        double[] origin_utm = Helpers.convertLatLngToUtmNthingEasting(-31.9, 115.98);
+        double[][] asset_coords = new double[assets.length][];
+        for (int i=0;i<assets.length;i++) {
+            asset_coords[i] = Helpers.convertUtmNthingEastingToLatLng(origin_utm[1] + assets[i][0] - assets[0][0], origin_utm[0] + assets[i][1] - assets[0][1], 'J', 50);
+        }
+        double[] true_utm = new double[]{origin_utm[0] + true_y - assets[0][1], origin_utm[1] + true_x - assets[0][0]};
+        double[] mirror_utm = new double[]{origin_utm[0] + mirror_y - assets[0][1], origin_utm[1] + mirror_x - assets[0][0]};
+        for (int i=1;i<assets.length;i++) {
+            Observation tdoa = new Observation((long) i, "A0", asset_coords[0][0], asset_coords[0][1]);
+            tdoa.setAssetId_b("A"+i);
+            tdoa.setLat_b(asset_coords[i][0]);
+            tdoa.setLon_b(asset_coords[i][1]);
+            tdoa.setObservationType(ObservationType.tdoa);
+            tdoa.setMeas_error(0.01);
+            tdoa.setMeas((range(assets[0]) - range(assets[i])) / Helpers.SPEED_OF_LIGHT);
+            cageProcessManager.addObservation(tdoa);
+        }
+
+        Thread thread = cageProcessManager.start();
+        thread.join();
+
+        ComputeResults computeResults = geoMission.getComputeResults();
+        assertEquals(1, computeResults.getAdditionalResults().size());
+        double trueError = Double.MAX_VALUE; double mirrorError = Double.MAX_VALUE;
+        List<GeolocationResult> results = new ArrayList<GeolocationResult>(computeResults.getAdditionalResults());
+        results.add(computeResults.getGeolocationResult());
+        for (GeolocationResult result : results) {
+            double[] result_utm = Helpers.convertLatLngToUtmNthingEasting(result.getLat(), result.getLon());
+            trueError = Math.min(trueError, Math.sqrt(Math.pow(result_utm[0]-true_utm[0],2) + Math.pow(result_utm[1]-true_utm[1],2)));
+            mirrorError = Math.min(mirrorError, Math.sqrt(Math.pow(result_utm[0]-mirror_utm[0],2) + Math.pow(result_utm[1]-mirror_utm[1],2)));
+        }
+        log.debug("Particle fix error: "+trueError+", mirror error: "+mirrorError+", # iterations: "+cageProcessManager.getFilterMetrics().getIterations());
+        assertTrue(trueError < 10);
+        assertTrue(mirrorError < 10);
+    }
+}
@@ -0,0 +1,146 @@
+package tech.edgx.cage.compute;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.edgx.cage.model.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tech.edgx.cage.compute.ObservationFixtures.*;
+
+public class TestPrimitiveEkfKernel {
+
+    private static final Logger log = LoggerFactory.getLogger(TestPrimitiveEkfKernel.class);
+
+    /* Start of the estimate, off the target */
+    double[] start = offset(3000, 3000);
+
+    @Test
+    public void testMatchesCommonsMathIteration() {
+        Map<Long,Observation> observations = new LinkedHashMap<Long,Observation>();
+        long id = 0;
+        for (int i=0;i<ASSETS.length;i++) {
+            Observation range = createRange(id++, ASSETS[i], TARGET);
+            range.setMeas(range.getMeas() + 50);
+            observations.put(range.getId(), range);
+
+            Observation aoa = createAoa(id++, ASSETS[i], TARGET);
+            observations.put(aoa.getId(), aoa);
+
+            if (i>0) {
+                Observation tdoa = createTdoa(id++, ASSETS[0], ASSETS[i], TARGET);
+                observations.put(tdoa.getId(), tdoa);
+            }
+        }
+
+        GeoMission geoMission = new GeoMission();
+        geoMission.setFilterProcessNoise(PROCESS_NOISE);
+        ComputeProcessor computeProcessor = new ComputeProcessor(null, observations, geoMission);
+        computeProcessor.Qu = new Array2DRowRealMatrix(geoMission.getFilterProcessNoise());
+        FilterExecution filterExecution = new FilterExecution(new Double[]{start[0], start[1]});
+        computeProcessor.initialiseExecutionState(filterExecution);
+
+        PrimitiveEkfKernel kernel = new PrimitiveEkfKernel();
+        kernel.initialise(start[0], start[1], 0.01, geoMission.getFilterProcessNoise());
+
+        for (int k=0;k<2000;k++) {
+            computeProcessor.runFilterIteration(filterExecution);
+            kernel.iterate(computeProcessor.observationBuffer);
+        }
+        log.debug("Commons-math: "+filterExecution.getXk()+", primitive: "+kernel.getXk());
+
+        assertEquals(filterExecution.getXk().getEntry(0), kernel.getX(), 1e-6);
+        assertEquals(filterExecution.getXk().getEntry(1), kernel.getY(), 1e-6);
+        for (int r=0;r<2;r++) {
+            for (int c=0;c<2;c++) {
+                assertEquals(filterExecution.getPk().getEntry(r,c), kernel.getPk().getEntry(r,c), 1e-9);
+            }
+        }
+        assertEquals(computeProcessor.getResidual(filterExecution), kernel.getResidual(), 1e-9);
+    }
+
+    @Test
+    public void testInformationUpdateMatchesSingleObservation() {
+        List<Observation> observations = new ArrayList<Observation>();
+        observations.add(createRange(0, ASSETS[0], TARGET));
+        ObservationBuffer buffer = ObservationBuffer.compile(observations);
+
+        PrimitiveEkfKernel kernel = new PrimitiveEkfKernel();
+        kernel.initialise(start[0], start[1], 0.01, PROCESS_NOISE);
+        PrimitiveEkfKernel informationKernel = new PrimitiveEkfKernel();
+        informationKernel.initialise(start[0], start[1], 0.01, PROCESS_NOISE);
+        informationKernel.setInformationUpdate(true, Integer.MAX_VALUE);
+
+        /* A single observation has nothing to sum, both forms are the kalman update */
+        for (int k=0;k<100;k++) {
+            kernel.iterate(buffer);
+            informationKernel.iterate(buffer);
+            assertEquals(kernel.getX(), informationKernel.getX(), 1e-6);
+            assertEquals(kernel.getY(), informationKernel.getY(), 1e-6);
+            assertEquals(kernel.getPk().getEntry(0,0), informationKernel.getPk().getEntry(0,0), 1e-12);
+            assertEquals(kernel.getPk().getEntry(0,1), informationKernel.getPk().getEntry(0,1), 1e-12);
+        }
+    }
+
+    /* A singular or indefinite covariance skips the update, rather than turning the state into NaN */
+    @Test
+    public void testInformationUpdateSkipsSingularCovariance() {
+        List<Observation> observations = new ArrayList<Observation>();
+        observations.add(createRange(0, ASSETS[0], TARGET));
+        ObservationBuffer buffer = ObservationBuffer.compile(observations);
+        double[][] noProcessNoise = new double[][]{{0, 0}, {0, 0}};
+
+        double[][][] covariances = new double[][][]{{{0, 0}, {0, 0}}, {{0.01, 0.02}, {0.02, 0.01}}};
+        for (double[][] covariance : covariances) {
+            PrimitiveEkfKernel kernel = new PrimitiveEkfKernel();
+            kernel.initialise(start[0], start[1], covariance, noProcessNoise);
+            kernel.setInformationUpdate(true, Integer.MAX_VALUE);
+            kernel.iterate(buffer);
+            assertEquals(start[0], kernel.getX(), 0);
+            assertEquals(start[1], kernel.getY(), 0);
+            assertEquals(covariance[0][1], kernel.getPk().getEntry(0,1), 0);
+        }
+    }
+
+    @Test
+    public void testParallelInformationReduction() {
+        /* Many sensors on a ring around the target, noisy ranges */
+        Random random = new Random(1);
+        List<Observation> observations = new ArrayList<Observation>();
+        for (int i=0;i<20000;i++) {
+            double bearing = 2*Math.PI*i/20000;
+            double[] asset = offset(10000*Math.cos(bearing), 10000*Math.sin(bearing));
+            Observation range = createObservation(i, asset, ObservationType.range);
+            range.setMeas(10000 + random.nextGaussian()*20);
+            observations.add(range);
+        }
+        ObservationBuffer buffer = ObservationBuffer.compile(observations);
+
+        PrimitiveEkfKernel serialKernel = new PrimitiveEkfKernel();
+        serialKernel.initialise(start[0], start[1], 0.01, PROCESS_NOISE);
+        serialKernel.setInformationUpdate(true, Integer.MAX_VALUE);
+        PrimitiveEkfKernel parallelKernel = new PrimitiveEkfKernel();
+        parallelKernel.initialise(start[0], start[1], 0.01, PROCESS_NOISE);
+        parallelKernel.setInformationUpdate(true, 1);
+
+        for (int k=0;k<50;k++) {
+            serialKernel.iterate(buffer);
+            parallelKernel.iterate(buffer);
+        }
+        log.debug("Serial: "+serialKernel.getXk()+", parallel: "+parallelKernel.getXk());
+
+        /* Same reduction up to summation order */
+        assertEquals(serialKernel.getX(), parallelKernel.getX(), 1e-6);
+        assertEquals(serialKernel.getY(), parallelKernel.getY(), 1e-6);
+        assertEquals(serialKernel.getPk().getEntry(0,0), parallelKernel.getPk().getEntry(0,0), 1e-12);
+        assertTrue(error(parallelKernel, TARGET) < 5);
+    }
+}
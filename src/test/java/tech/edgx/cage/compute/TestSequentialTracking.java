@@ -0,0 +1,141 @@
+package tech.edgx.cage.compute;
+
+import org.junit.Test;
+import tech.edgx.cage.CageListener;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.model.*;
+import tech.edgx.cage.util.Helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static tech.edgx.cage.compute.ObservationFixtures.*;
+
+public class TestSequentialTracking implements CageListener {
+
+    final AtomicInteger results = new AtomicInteger();
+    volatile GeolocationResult latestResult;
+
+    @Override
+    public void result(String geoId, double lat, double lon, double cep_elp_maj, double cep_elp_min, double cep_elp_rot) {
+    }
+
+    @Override
+    public void result(ComputeResults computeResults) {
+        latestResult = computeResults.getGeolocationResult();
+        results.incrementAndGet();
+    }
+
+    /* Range from each asset to the moving target at t seconds */
+    private ObservationBuffer rangesAt(int t) {
+        List<Observation> observations = new ArrayList<Observation>();
+        for (int i=0;i<ASSETS.length;i++) {
+            Observation range = createRange(i, ASSETS[i], targetAt(t));
+            range.setTime(1000L*t);
+            observations.add(range);
+        }
+        return ObservationBuffer.compile(observations);
+    }
+
+    @Test
+    public void testPredictScalesProcessNoiseByElapsedTime() {
+        PrimitiveEkfKernel kernel = new PrimitiveEkfKernel();
+        kernel.initialise(TARGET[0], TARGET[1], 0.01, PROCESS_NOISE);
+        kernel.predictTo(1000);
+        assertEquals(0.01, kernel.getPk().getEntry(0, 0), 1e-12);
+        kernel.predictTo(3000);
+        assertEquals(0.01 + 2*0.01, kernel.getPk().getEntry(0, 0), 1e-12);
+        /* Never steps back */
+        kernel.predictTo(2000);
+        assertEquals(3000L, kernel.getEpoch());
+        assertEquals(0.03, kernel.getPk().getEntry(0, 0), 1e-12);
+    }
+
+    /* Bootstrap on the first observations, then each later observation applied once */
+    private ConstantVelocityEkfKernel runSequential(int seconds) {
+        ConstantVelocityEkfKernel cvKernel = new ConstantVelocityEkfKernel();
+        cvKernel.initialise(TARGET[0] + 3000, TARGET[1] + 3000, new double[][]{{0.01, 0}, {0, 0.01}}, PROCESS_NOISE);
+        ObservationBuffer initial = rangesAt(0);
+        for (int k=0;k<2000;k++) {
+            cvKernel.iterate(initial);
+        }
+        for (int t=1;t<seconds;t++) {
+            ObservationBuffer buffer = rangesAt(t);
+            for (int i=0;i<buffer.size;i++) {
+                cvKernel.predictTo(buffer.getTime(i));
+                cvKernel.updateSequential(buffer, i);
+            }
+        }
+        return cvKernel;
+    }
+
+    @Test
+    public void testEachObservationAppliedOnce() {
+        int seconds = 60;
+        ConstantVelocityEkfKernel cvKernel = runSequential(seconds);
+        assertEquals(1000L*(seconds-1), cvKernel.getEpoch());
+        assertTrue(error(cvKernel, targetAt(seconds-1)) < 5);
+        assertEquals(VELOCITY[0], cvKernel.getVx(), 1);
+        assertEquals(VELOCITY[1], cvKernel.getVy(), 1);
+
+        /* Independent of iteration rate, the same arrivals give the same estimate */
+        ConstantVelocityEkfKernel repeat = runSequential(seconds);
+        assertEquals(cvKernel.getX(), repeat.getX(), 0);
+        assertEquals(cvKernel.getY(), repeat.getY(), 0);
+    }
+
+    @Test
+    public void testTrackMissionDispatchesPerArrival() throws Exception {
+        GeoMission geoMission = new GeoMission();
+        geoMission.setMissionMode(MissionMode.track);
+        geoMission.setTarget(new Target("MY_TGT_ID","MY_TGT_NAME"));
+        geoMission.setGeoId("SEQUENTIAL_GEO_ID");
+        geoMission.setOutputKml(false);
+        geoMission.setOutputFilterState(false);
+        geoMission.setFilterEngine(FilterEngine.ekf_primitive);
+        geoMission.setTrackUpdateMode(TrackUpdateMode.sequential);
+        CageProcessManager cageProcessManager = new CageProcessManager(this);
+        cageProcessManager.configure(geoMission);
+
+        double[] true_utm = Helpers.convertLatLngToUtmNthingEasting(-31.98, 116.0);
+        double[][] asset_coords = new double[][]{{-31.9, 115.98}, {-31.88, 115.97}, {-31.78, 115.90}, {-32.0, 115.85}};
+        long now = System.currentTimeMillis();
+        List<Observation> observations = new ArrayList<Observation>();
+        for (int i=0;i<asset_coords.length;i++) {
+            double[] asset_utm = Helpers.convertLatLngToUtmNthingEasting(asset_coords[i][0], asset_coords[i][1]);
+            Observation obs = new Observation((long) i, "A"+i, asset_coords[i][0], asset_coords[i][1]);
+            obs.setObservationType(ObservationType.range);
+            obs.setMeas(Math.sqrt(Math.pow(asset_utm[0]-true_utm[0],2) + Math.pow(asset_utm[1]-true_utm[1],2)));
+            obs.setTime(now);
+            observations.add(obs);
+            cageProcessManager.addObservation(obs);
+        }
+
+        cageProcessManager.start();
+        awaitResults(1);
+        /* Established and parked, nothing further until observations arrive */
+        Thread.sleep(200);
+        assertEquals(1, results.get());
+        double[] first_utm = Helpers.convertLatLngToUtmNthingEasting(latestResult.getLat(), latestResult.getLon());
+        assertTrue(Math.sqrt(Math.pow(first_utm[0]-true_utm[0],2) + Math.pow(first_utm[1]-true_utm[1],2)) < 50);
+
+        /* A re-reported observation is applied once and dispatched */
+        Observation obs = observations.get(0);
+        obs.setTime(now + 1000);
+        cageProcessManager.addObservation(obs);
+        awaitResults(2);
+        Thread.sleep(200);
+        assertEquals(2, results.get());
+        cageProcessManager.stop();
+    }
+
+    private void awaitResults(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (results.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(results.get() >= count);
+    }
+}
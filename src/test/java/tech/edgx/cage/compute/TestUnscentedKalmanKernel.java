@@ -0,0 +1,110 @@
+package tech.edgx.cage.compute;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.edgx.cage.CageListener;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.model.*;
+import tech.edgx.cage.util.Helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tech.edgx.cage.compute.ObservationFixtures.*;
+
+public class TestUnscentedKalmanKernel implements CageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TestUnscentedKalmanKernel.class);
+
+    @Override
+    public void result(String geoId, double lat, double lon, double cep_elp_maj, double cep_elp_min, double cep_elp_rot) {
+    }
+
+    @Override
+    public void result(ComputeResults results) {
+    }
+
+    private ObservationBuffer aoaObservations() {
+        List<Observation> observations = new ArrayList<Observation>();
+        for (int i=0;i<ASSETS.length;i++) {
+            observations.add(createAoa(i, ASSETS[i], TARGET));
+        }
+        return ObservationBuffer.compile(observations);
+    }
+
+    @Test
+    public void testCovarianceReportedInFilterScale() {
+        UnscentedKalmanKernel kernel = new UnscentedKalmanKernel();
+        kernel.initialise(TARGET[0], TARGET[1], new double[][]{{0.01, 0}, {0, 0.02}}, PROCESS_NOISE);
+        assertEquals(0.01, kernel.getPk().getEntry(0, 0), 1e-12);
+        assertEquals(0.02, kernel.getPk().getEntry(1, 1), 1e-12);
+        /* 0.01 utm^2, i.e. 1km standard deviation */
+        assertEquals(1000*1000, kernel.p00, 1e-6);
+    }
+
+    @Test
+    public void testAoaConvergesFromFarStart() {
+        ObservationBuffer buffer = aoaObservations();
+        UnscentedKalmanKernel kernel = new UnscentedKalmanKernel();
+        kernel.initialise(TARGET[0] - 20000, TARGET[1] - 20000, new double[][]{{0.01, 0}, {0, 0.01}}, PROCESS_NOISE);
+        PrimitiveEkfKernel ekfKernel = new PrimitiveEkfKernel();
+        ekfKernel.initialise(TARGET[0] - 20000, TARGET[1] - 20000, 0.01, PROCESS_NOISE);
+
+        int iterations = 0;
+        while (iterations < 200 && !(iterations > 0 && kernel.getResidual() < 0.01)) {
+            kernel.iterate(buffer);
+            ekfKernel.iterate(buffer);
+            iterations++;
+        }
+        double error = error(kernel, TARGET);
+        double ekfError = error(ekfKernel, TARGET);
+        log.debug("UKF converged in # iterations: "+iterations+", error: "+error+", EKF error after as many: "+ekfError);
+
+        assertTrue(iterations < 200);
+        assertTrue(error < 1);
+        assertTrue(ekfError > 100);
+    }
+
+    @Test
+    public void testFixMission() throws Exception {
+        GeoMission geoMission = new GeoMission();
+        geoMission.setMissionMode(MissionMode.fix);
+        geoMission.setTarget(new Target("MY_TGT_ID","MY_TGT_NAME"));
+        geoMission.setGeoId("UKF_GEO_ID");
+        geoMission.setOutputKml(false);
+        geoMission.setOutputFilterState(false);
+        geoMission.setFilterEngine(FilterEngine.ukf);
+        geoMission.setInitialStateMode(InitialStateMode.top_right);
+        CageProcessManager cageProcessManager = new CageProcessManager(this);
+        cageProcessManager.configure(geoMission);
+
+        double[] true_utm = Helpers.convertLatLngToUtmNthingEasting(-31.98, 116.0);
+        double[][] asset_coords = new double[][]{{-31.9, 115.98}, {-31.88, 115.97}, {-31.78, 115.90}, {-32.0, 115.85}};
+        for (int i=0;i<asset_coords.length;i++) {
+            double[] asset_utm = Helpers.convertLatLngToUtmNthingEasting(asset_coords[i][0], asset_coords[i][1]);
+            Observation range = new Observation((long) i, "A"+i, asset_coords[i][0], asset_coords[i][1]);
+            range.setObservationType(ObservationType.range);
+            range.setMeas(Math.sqrt(Math.pow(asset_utm[0]-true_utm[0],2) + Math.pow(asset_utm[1]-true_utm[1],2)));
+            cageProcessManager.addObservation(range);
+
+            Observation aoa = new Observation((long) (i + asset_coords.length), "A"+i, asset_coords[i][0], asset_coords[i][1]);
+            aoa.setObservationType(ObservationType.aoa);
+            double meas_aoa = Math.atan2(true_utm[0]-asset_utm[0], true_utm[1]-asset_utm[1]);
+            aoa.setMeas(meas_aoa < 0 ? meas_aoa + 2*Math.PI : meas_aoa);
+            cageProcessManager.addObservation(aoa);
+        }
+
+        Thread thread = cageProcessManager.start();
+        thread.join();
+
+        GeolocationResult result = geoMission.getComputeResults().getGeolocationResult();
+        double[] result_utm = Helpers.convertLatLngToUtmNthingEasting(result.getLat(), result.getLon());
+        double error = Math.sqrt(Math.pow(result_utm[0]-true_utm[0],2) + Math.pow(result_utm[1]-true_utm[1],2));
+        log.debug("UKF fix error: "+error+", # iterations: "+cageProcessManager.getFilterMetrics().getIterations());
+        assertTrue(error < 10);
+        assertTrue(cageProcessManager.getFilterMetrics().getIterations() < 500);
+    }
+}
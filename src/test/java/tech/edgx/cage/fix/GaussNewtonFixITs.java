@@ -0,0 +1,148 @@
+package tech.edgx.cage.fix;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.edgx.cage.CageListener;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.compute.ComputeResults;
+import tech.edgx.cage.model.*;
+import tech.edgx.cage.util.ConfigurationException;
+import tech.edgx.cage.util.Helpers;
+import tech.edgx.cage.util.SimulatedTargetObserver;
+import tech.edgx.cage.util.TestAsset;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+
+/* Compares the batch gauss_newton engine against the EKF on the same scenarios */
+public class GaussNewtonFixITs implements CageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(GaussNewtonFixITs.class);
+
+    /* Some common asset coords to reuse */
+    double[] asset_a_coords = new double[]{-31.9, 115.98};
+    double[] asset_b_coords = new double[]{-31.88, 115.97};
+    double[] asset_c_coords = new double[]{-31.78, 115.90};
+    double[] asset_d_coords = new double[]{-32.0, 115.85};
+
+    double[] latest_est_latlon;
+
+    /* Result callback */
+    @Override
+    public void result(String geoId, double lat, double lon, double cep_elp_maj, double cep_elp_min, double cep_elp_rot) {
+        log.debug("Result -> GeoId: "+geoId+", Lat: "+lat+", Lon: "+lon+", CEP major: "+cep_elp_maj+", CEP minor: "+cep_elp_min+", CEP rotation: "+cep_elp_rot);
+    }
+
+    /* Result callback */
+    @Override
+    public void result(ComputeResults results) {
+        log.debug("Result [NEW] -> GeoId: "+results.getGeoId()+", Lat: "+results.getGeolocationResult().getLat()+", Lon: "+results.getGeolocationResult().getLon()+", CEP major: "+results.getGeolocationResult().getElp_long()+", CEP minor: "+results.getGeolocationResult().getElp_short()+", CEP rotation: "+results.getGeolocationResult().getElp_rot());
+        latest_est_latlon = new double[]{results.getGeolocationResult().getLat(),results.getGeolocationResult().getLon()};
+    }
+
+    @Test
+    public void testBottom() throws Exception {
+        compareEngines(-31.98, 116.000, InitialStateMode.box_all_out);
+    }
+
+    @Test
+    public void testTopRight() throws Exception {
+        compareEngines(-31.7, 116.08, InitialStateMode.box_all_out);
+    }
+
+    @Test
+    public void testClosedFormStart() throws Exception {
+        compareEngines(-31.98, 116.000, InitialStateMode.closed_form);
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void testTrackModeRejected() throws Exception {
+        GeoMission geoMission = createMission(FilterEngine.gauss_newton, InitialStateMode.top_right);
+        geoMission.setMissionMode(MissionMode.track);
+        new CageProcessManager(this).configure(geoMission);
+    }
+
+    private void compareEngines(double true_lat, double true_lon, InitialStateMode initialStateMode) throws Exception {
+        double ekf_ate = 0; double gn_ate = 0;
+        for (FilterEngine filterEngine : new FilterEngine[]{FilterEngine.ekf_primitive, FilterEngine.gauss_newton}) {
+            CageProcessManager cageProcessManager = new CageProcessManager(this);
+            GeoMission geoMission = createMission(filterEngine, initialStateMode);
+            cageProcessManager.configure(geoMission);
+
+            SimulatedTargetObserver simulatedTargetObserver = new SimulatedTargetObserver();
+            simulatedTargetObserver.setCageProcessManager(cageProcessManager);
+            simulatedTargetObserver.setTrue_lat(true_lat);
+            simulatedTargetObserver.setTrue_lon(true_lon);
+            simulatedTargetObserver.setAoa_rand_factor(0.01);
+            simulatedTargetObserver.setTdoa_rand_factor(0.0000001);
+            simulatedTargetObserver.setRange_rand_factor(50);
+            simulatedTargetObserver.setLat_move(0.0); // STATIC
+            simulatedTargetObserver.setLon_move(0.0);
+            simulatedTargetObserver.setTestAssets(createAssets());
+            simulatedTargetObserver.run();
+
+            latest_est_latlon = null;
+            long startTime = System.nanoTime();
+            Thread thread = cageProcessManager.start();
+            thread.join();
+            long elapsed = System.nanoTime() - startTime;
+
+            double ate = ate(geoMission, latest_est_latlon);
+            log.info("Engine: "+filterEngine+", elapsed [ms]: "+elapsed/1e6+", ATE [m]: "+ate);
+            if (filterEngine.equals(FilterEngine.gauss_newton)) {
+                gn_ate = ate;
+            }
+            else {
+                ekf_ate = ate;
+            }
+        }
+        assertTrue("Gauss-Newton ATE: "+gn_ate, gn_ate < 1000);
+        assertTrue("Gauss-Newton ATE: "+gn_ate+", EKF ATE: "+ekf_ate, gn_ate < ekf_ate + 1000);
+    }
+
+    private double ate(GeoMission geoMission, double[] est_latlon) {
+        Double[] true_lat_lon = geoMission.getTarget().getTrue_current_loc();
+        double[] true_nth_east = Helpers.convertLatLngToUtmNthingEasting(true_lat_lon[0], true_lat_lon[1]);
+        double[] est_nth_east = Helpers.convertLatLngToUtmNthingEasting(est_latlon[0], est_latlon[1]);
+        return Math.sqrt(Math.pow(true_nth_east[0] - est_nth_east[0], 2) + Math.pow(true_nth_east[1] - est_nth_east[1], 2));
+    }
+
+    private GeoMission createMission(FilterEngine filterEngine, InitialStateMode initialStateMode) {
+        GeoMission geoMission = new GeoMission();
+        geoMission.setMissionMode(MissionMode.fix);
+        geoMission.setTarget(new Target("MY_TGT_ID","MY_TGT_NAME"));
+        geoMission.setGeoId("MY_GEO_ID");
+        geoMission.setOutputKml(false);
+        geoMission.setOutputFilterState(false);
+        geoMission.setInitialStateMode(initialStateMode);
+        geoMission.setFilterEngine(filterEngine);
+        return geoMission;
+    }
+
+    private Map<String, TestAsset> createAssets() {
+        TestAsset asset_a = new TestAsset();
+        TestAsset asset_b = new TestAsset();
+        TestAsset asset_c = new TestAsset();
+        TestAsset asset_d = new TestAsset();
+        double[][] coords = new double[][]{asset_a_coords, asset_b_coords, asset_c_coords, asset_d_coords};
+        TestAsset[] testAssets = new TestAsset[]{asset_a, asset_b, asset_c, asset_d};
+        String[] ids = new String[]{"A","B","C","D"};
+        Map<String, TestAsset> assets = new HashMap<String, TestAsset>();
+        for (int i=0;i<testAssets.length;i++) {
+            testAssets[i].setId(ids[i]);
+            testAssets[i].setProvide_range(true);
+            testAssets[i].setProvide_tdoa(true);
+            testAssets[i].setProvide_aoa(true);
+            testAssets[i].setCurrent_loc(coords[i]);
+            assets.put(ids[i], testAssets[i]);
+        }
+        asset_a.setTdoa_asset_ids(Arrays.asList(new String[]{"B","C","D"}));
+        asset_b.setTdoa_asset_ids(Arrays.asList(new String[]{"C","D"}));
+        asset_c.setTdoa_asset_ids(Arrays.asList(new String[]{"D"}));
+        return assets;
+    }
+}
@@ -401,4 +401,35 @@ public class InitStateModeITs implements CageListener {
         }
         printPerformance();
     }
+
+    @Test
+    public void testClosedForm() {
+        geoMission.setInitialStateMode(InitialStateMode.closed_form);
+
+        simulatedTargetObserver.setTrue_lat(-31.98); // BOTTOM
+        simulatedTargetObserver.setTrue_lon(116.000);
+        simulatedTargetObserver.setAoa_rand_factor(0.1);
+        simulatedTargetObserver.setTdoa_rand_factor(0.0000001);
+        simulatedTargetObserver.setRange_rand_factor(200);
+        simulatedTargetObserver.setLat_move(0.0); // STATIC
+        simulatedTargetObserver.setLon_move(0.0);
+        Map<String, TestAsset> assets = new HashMap<String, TestAsset>()
+        {{
+            put(asset_a.getId(), asset_a);
+            put(asset_b.getId(), asset_b);
+            put(asset_c.getId(), asset_c);
+            put(asset_d.getId(), asset_d);
+        }};
+        simulatedTargetObserver.setTestAssets(assets);
+        simulatedTargetObserver.run();
+
+        try {
+            Thread thread = cageProcessManager.start();
+            thread.join();
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+        printPerformance();
+    }
 }
@@ -0,0 +1,216 @@
+package tech.edgx.cage.scheduler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.edgx.cage.CageListener;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.MissionScheduler;
+import tech.edgx.cage.compute.ComputeResults;
+import tech.edgx.cage.model.GeoMission;
+import tech.edgx.cage.model.InitialStateMode;
+import tech.edgx.cage.model.MissionMode;
+import tech.edgx.cage.model.Target;
+import tech.edgx.cage.util.SimulatedTargetObserver;
+import tech.edgx.cage.util.TestAsset;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MissionSchedulerITs implements CageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(MissionSchedulerITs.class);
+
+    /* Some common asset coords to reuse */
+    double[] asset_a_coords = new double[]{-31.9, 115.98};
+    double[] asset_b_coords = new double[]{-31.88, 115.97};
+    double[] asset_c_coords = new double[]{-31.78, 115.90};
+
+    MissionScheduler missionScheduler;
+
+    Map<String,double[]> latest_est_latlon = new ConcurrentHashMap<String,double[]>();
+
+    Map<String,CountDownLatch> resultLatches = new ConcurrentHashMap<String,CountDownLatch>();
+
+    @Before
+    public void configure() {
+        missionScheduler = new MissionScheduler(2, 50);
+    }
+
+    @After
+    public void teardown() {
+        missionScheduler.shutdown();
+    }
+
+    /* Result callback */
+    @Override
+    public void result(String geoId, double lat, double lon, double cep_elp_maj, double cep_elp_min, double cep_elp_rot) {
+        log.debug("Result -> GeoId: " + geoId + ", Lat: " + lat + ", Lon: " + lon + ", CEP major: " + cep_elp_maj + ", CEP minor: " + cep_elp_min + ", CEP rotation: " + cep_elp_rot);
+    }
+
+    /* Result callback */
+    @Override
+    public void result(ComputeResults results) {
+        log.debug("Result [NEW] -> GeoId: "+results.getGeoId()+", Lat: "+results.getGeolocationResult().getLat()+", Lon: "+results.getGeolocationResult().getLon());
+        latest_est_latlon.put(results.getGeoId(), new double[]{results.getGeolocationResult().getLat(),results.getGeolocationResult().getLon()});
+        CountDownLatch latch = resultLatches.get(results.getGeoId());
+        if (latch != null) {
+            latch.countDown();
+        }
+    }
+
+    /* Several fix missions multiplexed over fewer workers than missions */
+    @Test
+    public void testManyFixMissions() throws Exception {
+        int numMissions = 6;
+        for (int i=0;i<numMissions;i++) {
+            String geoId = "FIX_GEO_ID_"+i;
+            resultLatches.put(geoId, new CountDownLatch(1));
+            CageProcessManager cageProcessManager = createMission(geoId, MissionMode.fix, -31.98 + i*0.01, 116.0);
+            missionScheduler.start(cageProcessManager, 1 + (i % 2));
+        }
+
+        for (int i=0;i<numMissions;i++) {
+            String geoId = "FIX_GEO_ID_"+i;
+            assertTrue("No result for: "+geoId, resultLatches.get(geoId).await(60, TimeUnit.SECONDS));
+            assertEquals(-31.98 + i*0.01, latest_est_latlon.get(geoId)[0], 0.01);
+            assertEquals(116.0, latest_est_latlon.get(geoId)[1], 0.01);
+        }
+    }
+
+    /* Concurrent executions of many fix missions share the scheduler's execution pool, no threads are created per mission */
+    @Test
+    public void testFixExecutionThreadsBounded() throws Exception {
+        Set<Thread> existing = new HashSet<Thread>(Thread.getAllStackTraces().keySet());
+        int numMissions = 8;
+        for (int i=0;i<numMissions;i++) {
+            String geoId = "BOUNDED_FIX_GEO_ID_"+i;
+            resultLatches.put(geoId, new CountDownLatch(1));
+            CageProcessManager cageProcessManager = createMission(geoId, MissionMode.fix, -31.98 + i*0.01, 116.0);
+            cageProcessManager.getGeoMission().setInitialStateMode(InitialStateMode.box_all_out);
+            cageProcessManager.getGeoMission().setFixExecutionParallelism(4);
+            missionScheduler.start(cageProcessManager);
+        }
+
+        /* Workers, their execution pool and the throttle timer, sampled until all missions have reported */
+        Set<String> created = new HashSet<String>();
+        long deadline = System.currentTimeMillis() + 120000;
+        while (System.currentTimeMillis() < deadline && missionScheduler.getNumMissions() > 0) {
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (!existing.contains(thread) && !thread.getName().equals("cage-observation-expiry")) {
+                    created.add(thread.getName());
+                }
+            }
+            Thread.sleep(5);
+        }
+        for (int i=0;i<numMissions;i++) {
+            assertTrue(resultLatches.get("BOUNDED_FIX_GEO_ID_"+i).await(60, TimeUnit.SECONDS));
+        }
+        log.debug("Threads created while running: "+created);
+        for (String name : created) {
+            assertTrue("Thread created outside the scheduler: "+name, name.startsWith("cage-scheduler-execution-"));
+        }
+        assertTrue(created.size() <= 2);
+    }
+
+    /* Tracking missions are run in slices, and can be paused, resumed and stopped */
+    @Test
+    public void testTrackMissionControl() throws Exception {
+        String geoId = "TRACK_GEO_ID";
+        resultLatches.put(geoId, new CountDownLatch(1));
+        CageProcessManager cageProcessManager = createMission(geoId, MissionMode.track, -31.98, 116.0);
+        cageProcessManager.getGeoMission().setTrackParkOnConvergence(false);
+        missionScheduler.start(cageProcessManager);
+        assertTrue(resultLatches.get(geoId).await(60, TimeUnit.SECONDS));
+
+        missionScheduler.pause(geoId);
+        assertTrue(missionScheduler.isPaused(geoId));
+
+        resultLatches.put(geoId, new CountDownLatch(1));
+        missionScheduler.resume(geoId);
+        assertTrue(resultLatches.get(geoId).await(60, TimeUnit.SECONDS));
+
+        missionScheduler.stop(geoId);
+        assertFalse(missionScheduler.isScheduled(geoId));
+    }
+
+    /* A converged tracking mission parks, holding no worker, until its observations change */
+    @Test
+    public void testTrackMissionParksUntilObservationsChange() throws Exception {
+        String geoId = "PARKED_TRACK_GEO_ID";
+        resultLatches.put(geoId, new CountDownLatch(1));
+        CageProcessManager cageProcessManager = createMission(geoId, MissionMode.track, -31.98, 116.0);
+        cageProcessManager.getGeoMission().setTrackParkOnConvergence(true);
+        missionScheduler.start(cageProcessManager);
+        assertTrue(resultLatches.get(geoId).await(60, TimeUnit.SECONDS));
+
+        /* Parked, no further results */
+        resultLatches.put(geoId, new CountDownLatch(1));
+        assertFalse(resultLatches.get(geoId).await(3, TimeUnit.SECONDS));
+
+        /* Woken by the observation change */
+        Long observationId = cageProcessManager.getGeoMission().getObservations().keySet().iterator().next();
+        cageProcessManager.removeObservation(observationId);
+        assertTrue(resultLatches.get(geoId).await(60, TimeUnit.SECONDS));
+
+        missionScheduler.stop(geoId);
+    }
+
+    private CageProcessManager createMission(String geoId, MissionMode missionMode, double true_lat, double true_lon) throws Exception {
+        CageProcessManager cageProcessManager = new CageProcessManager(this);
+
+        GeoMission geoMission = new GeoMission();
+        geoMission.setMissionMode(missionMode);
+        geoMission.setTarget(new Target("MY_TGT_ID","MY_TGT_NAME"));
+        geoMission.setGeoId(geoId);
+        geoMission.setOutputKml(false);
+        geoMission.setOutputFilterState(false);
+        cageProcessManager.configure(geoMission);
+
+        TestAsset asset_a = new TestAsset();
+        asset_a.setId("A");
+        asset_a.setProvide_range(true);
+        asset_a.setProvide_aoa(true);
+        asset_a.setCurrent_loc(asset_a_coords);
+
+        TestAsset asset_b = new TestAsset();
+        asset_b.setId("B");
+        asset_b.setProvide_range(true);
+        asset_b.setProvide_aoa(true);
+        asset_b.setCurrent_loc(asset_b_coords);
+
+        TestAsset asset_c = new TestAsset();
+        asset_c.setId("C");
+        asset_c.setProvide_range(true);
+        asset_c.setCurrent_loc(asset_c_coords);
+
+        final Map<String, TestAsset> assets = new HashMap<String, TestAsset>();
+        assets.put(asset_a.getId(), asset_a);
+        assets.put(asset_b.getId(), asset_b);
+        assets.put(asset_c.getId(), asset_c);
+
+        SimulatedTargetObserver simulatedTargetObserver = new SimulatedTargetObserver();
+        simulatedTargetObserver.setCageProcessManager(cageProcessManager);
+        simulatedTargetObserver.setTrue_lat(true_lat);
+        simulatedTargetObserver.setTrue_lon(true_lon);
+        simulatedTargetObserver.setRange_rand_factor(0);
+        simulatedTargetObserver.setAoa_rand_factor(0);
+        simulatedTargetObserver.setLat_move(+0.000); // STATIC
+        simulatedTargetObserver.setLon_move(+0.000);
+        simulatedTargetObserver.setTestAssets(assets);
+        simulatedTargetObserver.run();
+
+        return cageProcessManager;
+    }
+}
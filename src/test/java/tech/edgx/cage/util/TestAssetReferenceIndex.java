@@ -0,0 +1,86 @@
+package tech.edgx.cage.util;
+
+import org.junit.Test;
+import tech.edgx.cage.CageListener;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.compute.ComputeResults;
+import tech.edgx.cage.model.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class TestAssetReferenceIndex implements CageListener {
+
+    @Override
+    public void result(String geoId, double lat, double lon, double cep_elp_maj, double cep_elp_min, double cep_elp_rot) {
+    }
+
+    @Override
+    public void result(ComputeResults results) {
+    }
+
+    private Observation range(long id, String assetId) {
+        Observation obs = new Observation(id, assetId, -31.9, 115.98);
+        obs.setObservationType(ObservationType.range);
+        obs.setMeas(1000.0);
+        return obs;
+    }
+
+    private Observation tdoa(long id, String assetId, String assetId_b) {
+        Observation obs = new Observation(id, assetId, -31.9, 115.98);
+        obs.setAssetId_b(assetId_b);
+        obs.setLat_b(-31.88);
+        obs.setLon_b(115.97);
+        obs.setObservationType(ObservationType.tdoa);
+        obs.setMeas(0.0000001);
+        return obs;
+    }
+
+    @Test
+    public void testReferenceCounting() {
+        AssetReferenceIndex index = new AssetReferenceIndex();
+        assertTrue(index.register(range(1, "A")).isEmpty());
+        assertTrue(index.register(tdoa(2, "A", "B")).isEmpty());
+        assertEquals(2, index.getReferenceCount("A"));
+        assertEquals(1, index.getReferenceCount("B"));
+
+        assertTrue(index.release(1L).isEmpty());
+        assertEquals(Arrays.asList("A", "B"), index.release(2L));
+        assertTrue(index.release(2L).isEmpty());
+        assertEquals(0, index.getReferenceCount("A"));
+    }
+
+    @Test
+    public void testReplacedObservationReleasesAssets() {
+        AssetReferenceIndex index = new AssetReferenceIndex();
+        index.register(range(1, "A"));
+        index.register(range(1, "A"));
+        assertEquals(1, index.getReferenceCount("A"));
+        assertEquals(Collections.singletonList("A"), index.register(range(1, "C")));
+        assertEquals(1, index.getReferenceCount("C"));
+    }
+
+    @Test
+    public void testMissionRemovesTdoaSecondaryAsset() throws Exception {
+        GeoMission geoMission = new GeoMission();
+        geoMission.setMissionMode(MissionMode.track);
+        geoMission.setTarget(new Target("MY_TGT_ID","MY_TGT_NAME"));
+        geoMission.setGeoId("ASSET_REF_GEO_ID");
+        geoMission.setOutputKml(false);
+        CageProcessManager cageProcessManager = new CageProcessManager(this);
+        cageProcessManager.configure(geoMission);
+
+        cageProcessManager.addObservation(range(1, "A"));
+        cageProcessManager.addObservation(tdoa(2, "A", "B"));
+        assertEquals(2, geoMission.getAssets().size());
+
+        cageProcessManager.removeObservation(2L);
+        assertTrue(geoMission.getAssets().containsKey("A"));
+        assertFalse(geoMission.getAssets().containsKey("B"));
+
+        cageProcessManager.removeObservation(1L);
+        assertTrue(geoMission.getAssets().isEmpty());
+    }
+}
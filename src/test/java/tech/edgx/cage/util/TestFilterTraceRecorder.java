@@ -0,0 +1,105 @@
+package tech.edgx.cage.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import tech.edgx.cage.model.GeoMission;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestFilterTraceRecorder {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDecimation() {
+        FilterTraceRecorder recorder = new FilterTraceRecorder(100, 10);
+        for (int k=0;k<50;k++) {
+            recorder.record(k, k, k, k);
+        }
+        assertEquals(5, recorder.size());
+        assertEquals(0, recorder.getIteration(0));
+        assertEquals(40, recorder.getIteration(4));
+    }
+
+    /* Concurrent fix executions recording into the mission's recorder, no recorded sample is lost */
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final FilterTraceRecorder recorder = new FilterTraceRecorder(1000, 10);
+        Thread[] executions = new Thread[4];
+        for (int t=0;t<executions.length;t++) {
+            final double x = t;
+            executions[t] = new Thread(() -> {
+                for (int k=0;k<1000;k++) {
+                    recorder.record(k, x, x, 10);
+                }
+            });
+            executions[t].start();
+        }
+        for (Thread execution : executions) {
+            execution.join();
+        }
+        assertEquals(executions.length*100, recorder.getRecordedCount());
+        for (int i=0;i<recorder.size();i++) {
+            assertEquals(0, recorder.getIteration(i) % 10);
+            assertEquals(recorder.getX(i), recorder.getY(i), 0);
+        }
+    }
+
+    @Test
+    public void testRingOverwritesOldest() {
+        FilterTraceRecorder recorder = new FilterTraceRecorder(3, 1);
+        for (int k=0;k<5;k++) {
+            recorder.record(k, 100+k, 200+k, k);
+        }
+        assertEquals(3, recorder.size());
+        assertEquals(5, recorder.getRecordedCount());
+        assertEquals(2, recorder.getIteration(0));
+        assertEquals(102, recorder.getX(0), 0);
+        assertEquals(204, recorder.getY(2), 0);
+    }
+
+    @Test
+    public void testTraceAppendedKmlBounded() throws Exception {
+        GeoMission geoMission = new GeoMission();
+        UtmCoordinate origin = Helpers.convertLatLngToUtm(-31.9, 115.98);
+        geoMission.setLatZone(origin.getLatZone());
+        geoMission.setLonZone(origin.getLonZone());
+
+        File kml = folder.newFile("filterState.kml");
+        File trace = folder.newFile("filterState.csv");
+        FilterTraceRecorder recorder = new FilterTraceRecorder(4, 1);
+        recorder.provision(kml, trace);
+
+        for (int k=0;k<3;k++) {
+            recorder.record(k, origin.getEasting()+k, origin.getNorthing(), 20);
+        }
+        recorder.writeCurrentExports(geoMission);
+        for (int k=3;k<6;k++) {
+            recorder.record(k, origin.getEasting()+k, origin.getNorthing(), 1);
+        }
+        recorder.writeCurrentExports(geoMission);
+
+        /* Header and every sample once, in order */
+        List<String> lines = Files.readAllLines(trace.toPath());
+        assertEquals(FilterTraceRecorder.TRACE_HEADER, lines.get(0));
+        assertEquals(7, lines.size());
+        for (int k=0;k<6;k++) {
+            assertTrue(lines.get(k+1).startsWith(k+","));
+        }
+        assertEquals(0, recorder.getOverwrittenCount());
+
+        /* Kml holds the latest capacity samples only */
+        String kmlContent = new String(Files.readAllBytes(kml.toPath()), "UTF-8");
+        assertEquals(4, kmlContent.split(",0 \n", -1).length - 1);
+        assertTrue(kmlContent.contains("High Residual"));
+        assertFalse(new File(kml.getPath()+".tmp").exists());
+    }
+}
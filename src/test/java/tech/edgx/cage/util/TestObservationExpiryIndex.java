@@ -0,0 +1,100 @@
+package tech.edgx.cage.util;
+
+import org.junit.Test;
+import tech.edgx.cage.CageListener;
+import tech.edgx.cage.CageProcessManager;
+import tech.edgx.cage.compute.ComputeResults;
+import tech.edgx.cage.model.*;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestObservationExpiryIndex implements CageListener {
+
+    @Override
+    public void result(String geoId, double lat, double lon, double cep_elp_maj, double cep_elp_min, double cep_elp_rot) {
+    }
+
+    @Override
+    public void result(ComputeResults results) {
+    }
+
+    private Observation observation(long id, Long time) {
+        Observation obs = new Observation(id, "A"+id, -31.9, 115.98);
+        obs.setObservationType(ObservationType.range);
+        obs.setMeas(1000.0);
+        obs.setTime(time);
+        return obs;
+    }
+
+    @Test
+    public void testExpiresInTimeOrder() {
+        ObservationExpiryIndex index = new ObservationExpiryIndex(100);
+        index.add(observation(1, 1000L), 5000);
+        index.add(observation(2, 500L), 5000);
+        index.add(observation(3, null), 5000); // no measurement time, ages from when added
+        assertEquals(600L, (long) index.nextExpiry());
+
+        List<Observation> expired = index.pollExpired(1100);
+        assertEquals(2, expired.size());
+        assertEquals(2L, (long) expired.get(0).getId());
+        assertEquals(1L, (long) expired.get(1).getId());
+        assertEquals(5100L, (long) index.nextExpiry());
+        assertTrue(index.pollExpired(5099).isEmpty());
+        assertEquals(1, index.pollExpired(5100).size());
+        assertEquals(3, index.getEvicted());
+    }
+
+    @Test
+    public void testSupersededEntriesDiscarded() {
+        ObservationExpiryIndex index = new ObservationExpiryIndex(100);
+        Observation obs = observation(1, 1000L);
+        index.add(obs, 1000);
+        /* Same observation re-reported later, the earlier expiry no longer applies */
+        obs.setTime(2000L);
+        index.add(obs, 2000);
+        assertTrue(index.pollExpired(1500).isEmpty());
+        assertEquals(1, index.pollExpired(2100).size());
+
+        /* Removed observations aren't evicted */
+        index.add(observation(2, 3000L), 3000);
+        index.remove(2L);
+        assertTrue(index.pollExpired(4000).isEmpty());
+
+        /* Repeated re-reports don't grow the queue without bound */
+        for (long t=0;t<10000;t++) {
+            index.add(observation(3, 10000+t), 10000+t);
+        }
+        assertTrue(index.size() <= ObservationExpiryIndex.COMPACTION_FACTOR + ObservationExpiryIndex.COMPACTION_SLACK + 1);
+    }
+
+    @Test
+    public void testMissionEvictsExpiredObservations() throws Exception {
+        GeoMission geoMission = new GeoMission();
+        geoMission.setMissionMode(MissionMode.track);
+        geoMission.setTarget(new Target("MY_TGT_ID","MY_TGT_NAME"));
+        geoMission.setGeoId("TTL_GEO_ID");
+        geoMission.setOutputKml(false);
+        geoMission.setObservationTtl(200L);
+        CageProcessManager cageProcessManager = new CageProcessManager(this);
+        cageProcessManager.configure(geoMission);
+
+        long now = System.currentTimeMillis();
+        cageProcessManager.addObservation(observation(1, now - 1000)); // already expired, evicted as added
+        cageProcessManager.addObservation(observation(2, now));
+        cageProcessManager.addObservation(observation(3, null));
+        assertEquals(2, geoMission.getObservations().size());
+        assertFalse(geoMission.getAssets().containsKey("A1"));
+
+        /* Silent sensors, evicted by the expiry scheduler without any further calls */
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!geoMission.getObservations().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(geoMission.getObservations().isEmpty());
+        assertTrue(geoMission.getAssets().isEmpty());
+        assertEquals(0, cageProcessManager.getObservationSnapshot().size());
+        assertEquals(3, cageProcessManager.getFilterMetrics().getExpiredObservations());
+    }
+}
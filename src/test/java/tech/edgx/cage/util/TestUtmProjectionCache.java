@@ -0,0 +1,63 @@
+package tech.edgx.cage.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TestUtmProjectionCache {
+
+    @Test
+    public void testCombinedConversion() {
+        UtmCoordinate utm = Helpers.convertLatLngToUtm(-31.9, 115.98);
+        double[] nthing_easting = Helpers.convertLatLngToUtmNthingEasting(-31.9, 115.98);
+        Object[] zones = Helpers.getUtmLatZoneLonZone(-31.9, 115.98);
+        assertEquals(nthing_easting[0], utm.getNorthing(), 0);
+        assertEquals(nthing_easting[1], utm.getEasting(), 0);
+        assertEquals(zones[0], utm.getLatZone());
+        assertEquals(zones[1], utm.getLonZone());
+    }
+
+    @Test
+    public void testStationaryAssetReused() {
+        UtmProjectionCache cache = new UtmProjectionCache(10);
+        UtmCoordinate first = cache.project("A", -31.9, 115.98);
+        UtmCoordinate second = cache.project("A", -31.9, 115.98);
+        assertSame(first, second);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testMovedAssetReprojected() {
+        UtmProjectionCache cache = new UtmProjectionCache(10);
+        cache.project("A", -31.9, 115.98);
+        UtmCoordinate moved = cache.project("A", -31.91, 115.98);
+        assertEquals(Helpers.convertLatLngToUtmNthingEasting(-31.91, 115.98)[0], moved.getNorthing(), 0);
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        UtmProjectionCache cache = new UtmProjectionCache(2);
+        cache.project("A", -31.9, 115.98);
+        cache.project("B", -31.88, 115.97);
+        cache.project("A", -31.9, 115.98);
+        cache.project("C", -31.78, 115.90);
+        assertEquals(2, cache.size());
+        cache.project("A", -31.9, 115.98);
+        assertEquals(2, cache.getHits());
+        cache.project("B", -31.88, 115.97);
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void testDisabled() {
+        UtmProjectionCache cache = new UtmProjectionCache(0);
+        cache.project("A", -31.9, 115.98);
+        cache.project("A", -31.9, 115.98);
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.size());
+    }
+}